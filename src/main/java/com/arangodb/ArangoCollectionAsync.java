@@ -25,6 +25,7 @@ import java.util.concurrent.CompletableFuture;
 
 import com.arangodb.entity.*;
 import com.arangodb.model.*;
+import com.arangodb.velocypack.VPackSlice;
 
 /**
  * Interface for operations on ArangoDB collection level.
@@ -174,6 +175,29 @@ public interface ArangoCollectionAsync extends ArangoSerializationAccessor {
 	<T> CompletableFuture<T> getDocument(final String key, final Class<T> type, final DocumentReadOptions options)
 			throws ArangoDBException;
 
+	/**
+	 * Reads a single document, failing if the document did not arrive in time
+	 * 
+	 * @see <a href="https://docs.arangodb.com/current/HTTP/Document/WorkingWithDocuments.html#read-document">API
+	 *      Documentation</a>
+	 * @param key
+	 *            The key of the document
+	 * @param type
+	 *            The type of the document (POJO class, VPackSlice or String for Json)
+	 * @param options
+	 *            Additional options, can be null
+	 * @param timeout
+	 *            deadline in milliseconds, after which the returned future fails with an {@link ArangoDBException}
+	 *            caused by a {@link java.util.concurrent.TimeoutException}. <code>null</code> for
+	 *            {@link com.arangodb.ArangoDBAsync.Builder#requestTimeout(Integer)}, <code>0</code> for no deadline.
+	 * @return the document identified by the key
+	 */
+	<T> CompletableFuture<T> getDocument(
+		final String key,
+		final Class<T> type,
+		final DocumentReadOptions options,
+		final Integer timeout) throws ArangoDBException;
+
 	/**
 	 * Reads multiple documents
 	 * 
@@ -201,6 +225,75 @@ public interface ArangoCollectionAsync extends ArangoSerializationAccessor {
 		final Class<T> type,
 		DocumentReadOptions options);
 
+	/**
+	 * Reads multiple documents, failing if the documents did not arrive in time
+	 * 
+	 * @param keys
+	 *            The keys of the documents
+	 * @param type
+	 *            The type of the documents (POJO class, VPackSlice or String for Json)
+	 * @param options
+	 *            Additional options, can be null
+	 * @param timeout
+	 *            deadline in milliseconds, after which the returned future fails with an {@link ArangoDBException}
+	 *            caused by a {@link java.util.concurrent.TimeoutException}. <code>null</code> for
+	 *            {@link com.arangodb.ArangoDBAsync.Builder#requestTimeout(Integer)}, <code>0</code> for no deadline.
+	 * @return the documents and possible errors
+	 */
+	<T> CompletableFuture<MultiDocumentEntity<T>> getDocuments(
+		final Collection<String> keys,
+		final Class<T> type,
+		DocumentReadOptions options,
+		Integer timeout);
+
+	/**
+	 * Reads a single document as the VelocyPack received from the server, without deserializing it
+	 * 
+	 * @see <a href="https://docs.arangodb.com/current/HTTP/Document/WorkingWithDocuments.html#read-document">API
+	 *      Documentation</a>
+	 * @param key
+	 *            The key of the document
+	 * @return the document identified by the key
+	 */
+	CompletableFuture<VPackSlice> getDocumentRaw(final String key);
+
+	/**
+	 * Reads a single document as the VelocyPack received from the server, without deserializing it. Unlike
+	 * {@link #getDocument(String, Class, DocumentReadOptions)}, the read is never merged with others by read
+	 * coalescing.
+	 * 
+	 * @see <a href="https://docs.arangodb.com/current/HTTP/Document/WorkingWithDocuments.html#read-document">API
+	 *      Documentation</a>
+	 * @param key
+	 *            The key of the document
+	 * @param options
+	 *            Additional options, can be null
+	 * @return the document identified by the key
+	 */
+	CompletableFuture<VPackSlice> getDocumentRaw(final String key, final DocumentReadOptions options);
+
+	/**
+	 * Reads multiple documents as the VelocyPack received from the server, without deserializing them
+	 * 
+	 * @param keys
+	 *            The keys of the documents
+	 * @return an array with an element for every key in the same order, either the document or an error object
+	 *         with the attribute <code>error</code> set to <code>true</code>
+	 */
+	CompletableFuture<VPackSlice> getDocumentsRaw(final Collection<String> keys);
+
+	/**
+	 * Reads multiple documents as the VelocyPack received from the server, without deserializing them
+	 * 
+	 * @param keys
+	 *            The keys of the documents
+	 * @param options
+	 *            Additional options, can be null
+	 * @return an array with an element for every key in the same order, either the document or an error object
+	 *         with the attribute <code>error</code> set to <code>true</code>
+	 */
+	CompletableFuture<VPackSlice> getDocumentsRaw(final Collection<String> keys, DocumentReadOptions options);
+
 	/**
 	 * Replaces the document with key with the one in the body, provided there is such a document and no precondition is
 	 * violated
@@ -362,6 +455,18 @@ public interface ArangoCollectionAsync extends ArangoSerializationAccessor {
 		final Class<T> type,
 		final DocumentDeleteOptions options);
 
+	/**
+	 * Creates a writer which coalesces single document inserts, updates, replacements and removals on this collection
+	 * into multi document requests.
+	 * 
+	 * @param type
+	 *            The type of the documents (POJO class, VPackSlice or String for Json)
+	 * @param options
+	 *            Additional options, can be null
+	 * @return writer
+	 */
+	<T> BatchingDocumentWriter<T> batchingWriter(final Class<T> type, final BatchingDocumentWriterOptions options);
+
 	/**
 	 * Removes multiple document
 	 * 
@@ -20,9 +20,16 @@
 
 package com.arangodb;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
+ * Cursor of a query result. The {@link java.util.Iterator} API and {@link #streamRemaining()} block the calling
+ * thread whenever a batch has to be fetched from the server, the methods returning a {@link CompletableFuture} never
+ * do.
+ * 
  * @author Mark Vollmary
  *
  */
@@ -30,4 +37,31 @@ public interface ArangoCursorAsync<T> extends ArangoCursor<T> {
 
 	Stream<T> streamRemaining();
 
+	/**
+	 * Returns the elements of the current batch which have not been consumed yet. If there are none, the next batch
+	 * is fetched from the server. Must not be invoked again before the returned future is completed.
+	 * 
+	 * @return the next batch of elements, an empty list once the cursor is exhausted
+	 */
+	CompletableFuture<List<T>> nextBatch();
+
+	/**
+	 * Performs the given action for each remaining element, fetching the batches without blocking. The action is
+	 * invoked by the thread completing the batch.
+	 * 
+	 * @param action
+	 *            the action to be performed for each element
+	 * @return a future completed once all the elements have been consumed, or exceptionally if fetching a batch or
+	 *         the action failed. Cancelling it stops the iteration after the current batch and releases the cursor
+	 *         on the server.
+	 */
+	CompletableFuture<Void> forEachAsync(final Consumer<? super T> action);
+
+	/**
+	 * Releases the cursor on the server, unless all its batches have already been fetched.
+	 * 
+	 * @return a future completed once the cursor has been released
+	 */
+	CompletableFuture<Void> closeAsync();
+
 }
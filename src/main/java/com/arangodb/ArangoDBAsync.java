@@ -22,32 +22,57 @@ package com.arangodb;
 
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.net.ssl.SSLContext;
 
 import com.arangodb.entity.ArangoDBVersion;
+import com.arangodb.entity.CircuitBreakerState;
+import com.arangodb.entity.ConnectionSelectionStrategy;
 import com.arangodb.entity.LoadBalancingStrategy;
 import com.arangodb.entity.LogEntity;
 import com.arangodb.entity.LogLevelEntity;
+import com.arangodb.entity.OverflowPolicy;
 import com.arangodb.entity.Permissions;
 import com.arangodb.entity.ServerRole;
 import com.arangodb.entity.UserEntity;
 import com.arangodb.internal.ArangoContext;
 import com.arangodb.internal.ArangoDBAsyncImpl;
 import com.arangodb.internal.ArangoDefaults;
+import com.arangodb.internal.AsyncHostResolver;
+import com.arangodb.internal.DocumentReadCoalescer;
 import com.arangodb.internal.InternalArangoDBBuilder;
+import com.arangodb.internal.CircuitBreaker;
+import com.arangodb.internal.LatencyAwareHostHandler;
+import com.arangodb.internal.RequestHedging;
+import com.arangodb.internal.RetryPolicy;
+import com.arangodb.internal.net.Connection;
 import com.arangodb.internal.net.ConnectionFactory;
+import com.arangodb.internal.net.DirtyReadHostHandler;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
 import com.arangodb.internal.net.HostHandler;
+import com.arangodb.internal.net.HostImpl;
 import com.arangodb.internal.net.HostResolver;
+import com.arangodb.internal.net.RoundRobinHostHandler;
 import com.arangodb.internal.util.ArangoDeserializerImpl;
 import com.arangodb.internal.util.ArangoSerializationFactory;
 import com.arangodb.internal.util.ArangoSerializerImpl;
 import com.arangodb.internal.util.DefaultArangoSerialization;
+import com.arangodb.internal.util.HostUtils;
+import com.arangodb.internal.velocystream.BufferPool;
 import com.arangodb.internal.velocystream.VstCommunicationAsync;
-import com.arangodb.internal.velocystream.VstCommunicationSync;
+import com.arangodb.internal.velocystream.VstConnectionAsync;
 import com.arangodb.internal.velocystream.VstConnectionFactoryAsync;
+import com.arangodb.internal.velocystream.VstConnectionPool;
+import com.arangodb.internal.velocystream.VstEventLoopGroup;
+import com.arangodb.internal.velocystream.WriteStatisticsCollector;
+import com.arangodb.metrics.MetricsListener;
+import com.arangodb.metrics.WriteStatistics;
 import com.arangodb.model.LogOptions;
 import com.arangodb.model.UserCreateOptions;
 import com.arangodb.model.UserUpdateOptions;
@@ -92,6 +117,36 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 	 */
 	public static class Builder extends InternalArangoDBBuilder {
 
+		private Executor outgoingExecutor;
+		private Executor completionExecutor;
+		private Boolean writeCoalescing;
+		private Integer writeCoalescingBufferSize;
+		private Long writeCoalescingLinger;
+		private Boolean useNio;
+		private Integer nioThreads;
+		private Integer cursorPrefetch;
+		private Boolean readCoalescing;
+		private Long readCoalescingWindow;
+		private MetricsListener metricsListener;
+		private Integer maxInFlightRequests;
+		private Integer maxInFlightRequestsPerConnection;
+		private Integer maxQueuedRequests;
+		private OverflowPolicy overflowPolicy;
+		private Integer requestTimeout;
+		private ConnectionSelectionStrategy connectionSelectionStrategy;
+		private Boolean latencyAwareLoadBalancing;
+		private Boolean hedgedReads;
+		private Double hedgingPercentile;
+		private Boolean circuitBreaker;
+		private Integer circuitBreakerFailureThreshold;
+		private Double circuitBreakerTimeoutRatio;
+		private Integer circuitBreakerOpenTime;
+		private Integer maxRetries;
+		private Integer retryBaseDelay;
+		private Integer retryMaxDelay;
+		private Double retryBudget;
+		private Boolean pooledBuffers;
+
 		public Builder() {
 			super();
 		}
@@ -234,6 +289,19 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 			return this;
 		}
 
+		/**
+		 * Sets the minimum time between two acquisitions of the host list, see {@link #acquireHostList(Boolean)}. The
+		 * host list is acquired in the background and never blocks a request.
+		 * 
+		 * @param acquireHostListInterval
+		 *            interval in milliseconds (default: 1 hour)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder acquireHostListInterval(final Integer acquireHostListInterval) {
+			setAcquireHostListInterval(acquireHostListInterval);
+			return this;
+		}
+
 		/**
 		 * Sets the load balancing strategy to be used in an ArangoDB cluster setup.
 		 * 
@@ -246,6 +314,439 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 			return this;
 		}
 
+		/**
+		 * Balances the requests over the hosts by their observed response latency and error rate, instead of the
+		 * {@link #loadBalancingStrategy(LoadBalancingStrategy)}. Requests go to the faster of two randomly chosen
+		 * healthy hosts, a small share of the requests keeps probing the other hosts.
+		 * 
+		 * @param latencyAwareLoadBalancing
+		 *            whether or not to balance the requests by latency (default: false)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder latencyAwareLoadBalancing(final Boolean latencyAwareLoadBalancing) {
+			this.latencyAwareLoadBalancing = latencyAwareLoadBalancing;
+			return this;
+		}
+
+		/**
+		 * Sets the executor used to write the requests to the socket.
+		 * 
+		 * <p>
+		 * Every connection has its own send queue, which can be filled by any thread without locking and which is
+		 * drained by a single writer at a time. If no executor is set, every connection drains its queue in a writer
+		 * thread of its own. Otherwise the draining of the queue is performed in the given executor. Either way the
+		 * calling threads never write to the socket. An executor passed here is not shut down by
+		 * {@link ArangoDBAsync#shutdown()}.
+		 * </p>
+		 * 
+		 * @param outgoingExecutor
+		 *            executor for writing outgoing requests (default: <code>null</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder outgoingExecutor(final Executor outgoingExecutor) {
+			this.outgoingExecutor = outgoingExecutor;
+			return this;
+		}
+
+		/**
+		 * Sets the executor used to deserialize the responses and to complete the returned
+		 * {@link CompletableFuture}s. Dependent stages attached without an explicit executor run in this executor as
+		 * well.
+		 * 
+		 * <p>
+		 * Pass <code>Runnable::run</code> to deserialize the responses directly in the thread which received them
+		 * from the server. In this mode callbacks must not block, otherwise they delay every other response of the
+		 * same connection. An executor passed here is not shut down by {@link ArangoDBAsync#shutdown()}.
+		 * </p>
+		 * <p>
+		 * Unless {@link #outgoingExecutor(Executor)} is set, this executor also starts the requests which waited for
+		 * {@link #maxInFlightRequests(Integer)} and runs the background tasks of the driver: retries, hedged reads,
+		 * the linger of batching writers, the window of read coalescing and the refresh of the host list. It should
+		 * not run tasks in the calling thread in that case.
+		 * </p>
+		 * 
+		 * @param completionExecutor
+		 *            executor for completing the responses (default: {@link ForkJoinPool#commonPool()})
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder completionExecutor(final Executor completionExecutor) {
+			this.completionExecutor = completionExecutor;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, the chunks of all the requests queued on a connection since its last flush are
+		 * gathered into a single socket write, instead of flushing every request on its own. Requests pile up in the
+		 * send queue when they are issued by concurrent threads or when the queue is drained by an
+		 * {@link #outgoingExecutor(Executor)}.
+		 * 
+		 * @param writeCoalescing
+		 *            whether or not coalesce the writes (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #writeCoalescingBufferSize(Integer)
+		 * @see #writeCoalescingLinger(Long)
+		 */
+		public Builder writeCoalescing(final Boolean writeCoalescing) {
+			this.writeCoalescing = writeCoalescing;
+			return this;
+		}
+
+		/**
+		 * Sets the byte budget of a coalesced write when {@link #writeCoalescing(Boolean)} is enabled. Requests
+		 * exceeding the budget are written through to the socket.
+		 * 
+		 * @param writeCoalescingBufferSize
+		 *            max size in bytes of a single socket write (default: 8192)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder writeCoalescingBufferSize(final Integer writeCoalescingBufferSize) {
+			this.writeCoalescingBufferSize = writeCoalescingBufferSize;
+			return this;
+		}
+
+		/**
+		 * Sets the time the writer of a connection waits for further requests before flushing an incomplete batch
+		 * when {@link #writeCoalescing(Boolean)} is enabled. The waiting happens in the writer of the connection, never
+		 * in the calling thread, see {@link #outgoingExecutor(Executor)}.
+		 * 
+		 * @param writeCoalescingLinger
+		 *            linger time in microseconds (default: 0)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder writeCoalescingLinger(final Long writeCoalescingLinger) {
+			this.writeCoalescingLinger = writeCoalescingLinger;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, the connections use non-blocking socket channels served by a small, fixed set
+		 * of event loop threads instead of a blocking reader thread per connection. SSL is handled by an
+		 * {@link javax.net.ssl.SSLEngine} created from {@link #sslContext(SSLContext)}. All the requests queued on a
+		 * connection are written with a single socket write, so {@link #outgoingExecutor(Executor)} and the write
+		 * coalescing settings do not apply to this transport.
+		 * 
+		 * @param useNio
+		 *            whether or not use the non-blocking transport (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #nioThreads(Integer)
+		 */
+		public Builder useNio(final Boolean useNio) {
+			this.useNio = useNio;
+			return this;
+		}
+
+		/**
+		 * Sets the number of event loop threads shared by all the connections when {@link #useNio(Boolean)} is
+		 * enabled. The threads are stopped by {@link ArangoDBAsync#shutdown()}.
+		 * 
+		 * @param nioThreads
+		 *            number of event loop threads (default: number of available processors)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder nioThreads(final Integer nioThreads) {
+			this.nioThreads = nioThreads;
+			return this;
+		}
+
+		/**
+		 * Sets the number of batches a cursor fetches ahead of the consumption. The next batch is requested as soon
+		 * as the previous one arrived, on the coordinator which created the cursor, until the given number of batches
+		 * is buffered. This bounds the memory held by every cursor to the current batch plus the buffered ones.
+		 * 
+		 * @param cursorPrefetch
+		 *            number of batches to fetch ahead (default: <code>0</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder cursorPrefetch(final Integer cursorPrefetch) {
+			this.cursorPrefetch = cursorPrefetch;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, the single document reads of {@link ArangoCollectionAsync#getDocument} issued
+		 * within {@link #readCoalescingWindow(Long)} on the same collection are merged into one multi document read.
+		 * Duplicate keys are read once, but every caller receives its own instance of the document. Reads with
+		 * <code>ifMatch</code> or <code>ifNoneMatch</code> are never merged.
+		 * 
+		 * @param readCoalescing
+		 *            whether or not coalesce the document reads (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder readCoalescing(final Boolean readCoalescing) {
+			this.readCoalescing = readCoalescing;
+			return this;
+		}
+
+		/**
+		 * Sets the time a document read waits for further reads of the same collection when
+		 * {@link #readCoalescing(Boolean)} is enabled. A merged read is sent earlier once it contains 1000 keys.
+		 * 
+		 * @param readCoalescingWindow
+		 *            window in microseconds (default: 500)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder readCoalescingWindow(final Long readCoalescingWindow) {
+			this.readCoalescingWindow = readCoalescingWindow;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, read-only requests are hedged: if the response of
+		 * {@link ArangoCollectionAsync#getDocument}, {@link ArangoCollectionAsync#getDocuments},
+		 * {@link ArangoCollectionAsync#documentExists} or of a query without data modification has not arrived within
+		 * the {@link #hedgingPercentile(Double)} of the latencies observed for the same operation, the request is sent
+		 * once more, preferably to another coordinator, and the first response wins. The other request is abandoned,
+		 * the cursor of a query is deleted. At most 10% of the requests are hedged. Requests of stream transactions are
+		 * never hedged.
+		 * 
+		 * @param hedgedReads
+		 *            whether or not to hedge the read-only requests (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder hedgedReads(final Boolean hedgedReads) {
+			this.hedgedReads = hedgedReads;
+			return this;
+		}
+
+		/**
+		 * Sets the percentile of the observed latencies after which a request is hedged when
+		 * {@link #hedgedReads(Boolean)} is enabled. Requests are hedged once 100 latencies of the operation have been
+		 * observed.
+		 * 
+		 * @param hedgingPercentile
+		 *            percentile between 0 and 100 (default: 95)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder hedgingPercentile(final Double hedgingPercentile) {
+			this.hedgingPercentile = hedgingPercentile;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, every host gets a circuit breaker. It opens after
+		 * {@link #circuitBreakerFailureThreshold(Integer)} consecutive failures, or once
+		 * {@link #circuitBreakerTimeoutRatio(Double)} of the last 20 requests to the host timed out. Failures are
+		 * requests failing without response and responses with a server error. While the breaker is open, the requests
+		 * go to the other hosts, or fail immediately if there is none or if they belong to a cursor of the host. After
+		 * {@link #circuitBreakerOpenTime(Integer)}, a single request probes the host and closes the breaker on success.
+		 * The state changes are reported to
+		 * {@link MetricsListener#circuitBreakerStateChanged(String, CircuitBreakerState)}.
+		 * 
+		 * @param circuitBreaker
+		 *            whether or not to use circuit breakers (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder circuitBreaker(final Boolean circuitBreaker) {
+			this.circuitBreaker = circuitBreaker;
+			return this;
+		}
+
+		/**
+		 * @param circuitBreakerFailureThreshold
+		 *            number of consecutive failures opening the circuit breaker of a host (default: 5)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #circuitBreaker(Boolean)
+		 */
+		public Builder circuitBreakerFailureThreshold(final Integer circuitBreakerFailureThreshold) {
+			this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+			return this;
+		}
+
+		/**
+		 * @param circuitBreakerTimeoutRatio
+		 *            ratio, greater than 0 and at most 1, of timed out requests among the last 20 requests to a host
+		 *            opening its circuit breaker (default: 0.5)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #circuitBreaker(Boolean)
+		 */
+		public Builder circuitBreakerTimeoutRatio(final Double circuitBreakerTimeoutRatio) {
+			this.circuitBreakerTimeoutRatio = circuitBreakerTimeoutRatio;
+			return this;
+		}
+
+		/**
+		 * @param circuitBreakerOpenTime
+		 *            time in milliseconds a circuit breaker stays open until a request probes the host (default: 5000)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #circuitBreaker(Boolean)
+		 */
+		public Builder circuitBreakerOpenTime(final Integer circuitBreakerOpenTime) {
+			this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+			return this;
+		}
+
+		/**
+		 * Sets the number of times a request is retried after a transient failure, on another host if possible.
+		 * <p>
+		 * A write-write conflict is retried for every operation, as the conflicting write was not applied. Requests
+		 * failing without response, e.g. on a reset connection, and responses with status 503, e.g. from a
+		 * coordinator during a rolling restart, are retried only if repeating the operation is safe: reads, queries
+		 * without data modification, inserts of documents with <code>_key</code> or with <code>overwrite</code>, and
+		 * replacements, updates and removals of documents by key. Timed out requests, requests of stream transactions
+		 * and the following batches of a cursor are not retried.
+		 * <p>
+		 * The delay before a retry is chosen randomly between {@link #retryBaseDelay(Integer)} and three times the
+		 * previous delay, at most {@link #retryMaxDelay(Integer)}. The retries are limited to
+		 * {@link #retryBudget(Double)} of the requests.
+		 * 
+		 * @param maxRetries
+		 *            maximum number of retries of a request (default: 0)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder maxRetries(final Integer maxRetries) {
+			this.maxRetries = maxRetries;
+			return this;
+		}
+
+		/**
+		 * @param retryBaseDelay
+		 *            minimum delay in milliseconds before a retry (default: 10)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #maxRetries(Integer)
+		 */
+		public Builder retryBaseDelay(final Integer retryBaseDelay) {
+			this.retryBaseDelay = retryBaseDelay;
+			return this;
+		}
+
+		/**
+		 * @param retryMaxDelay
+		 *            maximum delay in milliseconds before a retry (default: 1000)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #maxRetries(Integer)
+		 */
+		public Builder retryMaxDelay(final Integer retryMaxDelay) {
+			this.retryMaxDelay = retryMaxDelay;
+			return this;
+		}
+
+		/**
+		 * @param retryBudget
+		 *            share, greater than 0 and at most 1, of the requests of the client which may be retried, with
+		 *            bursts of up to 100 retries (default: 0.1)
+		 * @return {@link ArangoDBAsync.Builder}
+		 * @see #maxRetries(Integer)
+		 */
+		public Builder retryBudget(final Double retryBudget) {
+			this.retryBudget = retryBudget;
+			return this;
+		}
+
+		/**
+		 * If set to <code>true</code>, the byte arrays of the connections are taken from a pool shared by all the
+		 * connections of the client and reused, instead of being allocated for every message: the arrays the responses
+		 * are reassembled in and, with {@link #useNio(Boolean)}, the arrays the requests are encoded in. An array of a
+		 * request is returned to the pool once it has been written to the socket. An array of a response is returned
+		 * once the response has been deserialized into a type which can not refer to it, i.e. which does not contain
+		 * a {@link com.arangodb.velocypack.VPackSlice}. Responses of cursors and of
+		 * {@link ArangoDBAsync#execute(com.arangodb.velocystream.Request)} are never returned to the pool.
+		 * 
+		 * @param pooledBuffers
+		 *            whether or not to pool the byte arrays of the messages (default: <code>false</code>)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder pooledBuffers(final Boolean pooledBuffers) {
+			this.pooledBuffers = pooledBuffers;
+			return this;
+		}
+
+		/**
+		 * Sets the listener receiving the latencies of the operations, the number of requests in flight on every
+		 * connection and the size of the requests and responses. Without listener no measurement is taken.
+		 * 
+		 * @param metricsListener
+		 *            listener, e.g. {@link com.arangodb.metrics.HistogramMetricsListener}
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder metricsListener(final MetricsListener metricsListener) {
+			this.metricsListener = metricsListener;
+			return this;
+		}
+
+		/**
+		 * Limits the number of requests of this client waiting for a response. Further requests wait in a queue of
+		 * {@link #maxQueuedRequests(Integer)} requests and are sent as soon as earlier requests complete.
+		 * 
+		 * @param maxInFlightRequests
+		 *            maximum number of requests in flight (default: unlimited)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder maxInFlightRequests(final Integer maxInFlightRequests) {
+			this.maxInFlightRequests = maxInFlightRequests;
+			return this;
+		}
+
+		/**
+		 * Limits the number of requests waiting for a response on every connection. Further requests wait in a queue
+		 * of {@link #maxQueuedRequests(Integer)} requests of the connection and are sent as soon as earlier requests
+		 * on the connection complete.
+		 * 
+		 * @param maxInFlightRequestsPerConnection
+		 *            maximum number of requests in flight per connection (default: unlimited)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder maxInFlightRequestsPerConnection(final Integer maxInFlightRequestsPerConnection) {
+			this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+			return this;
+		}
+
+		/**
+		 * Sets the size of the queues of requests waiting for {@link #maxInFlightRequests(Integer)} or
+		 * {@link #maxInFlightRequestsPerConnection(Integer)}. Requests exceeding a full queue are handled according to
+		 * {@link #overflowPolicy(OverflowPolicy)}.
+		 * 
+		 * @param maxQueuedRequests
+		 *            maximum number of waiting requests per queue (default: 10000)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder maxQueuedRequests(final Integer maxQueuedRequests) {
+			this.maxQueuedRequests = maxQueuedRequests;
+			return this;
+		}
+
+		/**
+		 * Sets the handling of the requests exceeding a full queue of {@link #maxQueuedRequests(Integer)}. With
+		 * {@link OverflowPolicy#DELAY} the returned futures complete once the requests got room in the queue and
+		 * were answered, or fail after the timeout of the driver. The calling thread never blocks.
+		 * 
+		 * @param overflowPolicy
+		 *            handling of the requests exceeding the queue (default: {@link OverflowPolicy#REJECT})
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder overflowPolicy(final OverflowPolicy overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		/**
+		 * Sets the default deadline of every request in milliseconds, including the time it waits for
+		 * {@link #maxInFlightRequests(Integer)}. A request without a response after the deadline fails with an
+		 * {@link ArangoDBException} caused by a {@link java.util.concurrent.TimeoutException}, a late response is
+		 * dropped. Unlike {@link #timeout(Integer)}, the connection stays open.
+		 * 
+		 * @param requestTimeout
+		 *            deadline of a request in milliseconds (default: <code>0</code>, no deadline)
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder requestTimeout(final Integer requestTimeout) {
+			this.requestTimeout = requestTimeout;
+			return this;
+		}
+
+		/**
+		 * Sets the selection of the connection a request is sent on, when {@link #maxConnections(Integer)} allows
+		 * more than one connection per host. With {@link ConnectionSelectionStrategy#LEAST_OUTSTANDING} a connection
+		 * busy with a slow request, e.g. a large cursor batch, is avoided by the requests issued meanwhile.
+		 * 
+		 * @param connectionSelectionStrategy
+		 *            selection of the connection (default: {@link ConnectionSelectionStrategy#ROUND_ROBIN})
+		 * @return {@link ArangoDBAsync.Builder}
+		 */
+		public Builder connectionSelectionStrategy(final ConnectionSelectionStrategy connectionSelectionStrategy) {
+			this.connectionSelectionStrategy = connectionSelectionStrategy;
+			return this;
+		}
+
 		/**
 		 * Register a custom {@link VPackSerializer} for a specific type to be used within the internal serialization
 		 * process.
@@ -575,25 +1076,104 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 
 			final int max = maxConnections != null ? Math.max(1, maxConnections)
 					: ArangoDefaults.MAX_CONNECTIONS_VST_DEFAULT;
-			final ConnectionFactory connectionFactory = new VstConnectionFactoryAsync(host, timeout, connectionTtl,
-					useSsl, sslContext);
+			final WriteStatisticsCollector writeStatistics = new WriteStatisticsCollector();
+			final BufferPool bufferPool = Boolean.TRUE == pooledBuffers ? new BufferPool() : null;
+			final VstEventLoopGroup eventLoopGroup = Boolean.TRUE == useNio
+					? new VstEventLoopGroup(
+							nioThreads != null ? nioThreads : Runtime.getRuntime().availableProcessors())
+					: null;
+			final ConnectionFactory connectionFactory = new VstConnectionFactoryAsync(
+					connectionBuilder(writeStatistics, eventLoopGroup).bufferPool(bufferPool));
 			final HostResolver hostResolver = createHostResolver(createHostList(max, connectionFactory), max,
 				connectionFactory);
-			final HostHandler hostHandler = createHostHandler(hostResolver);
-			return new ArangoDBAsyncImpl(asyncBuilder(hostHandler), util, syncBuilder(hostHandler), hostResolver,
-					new ArangoContext());
+			final LatencyAwareHostHandler latencyAwareHostHandler = Boolean.TRUE == latencyAwareLoadBalancing
+					? new LatencyAwareHostHandler(hostResolver)
+					: null;
+			final HostHandler hostHandler = latencyAwareHostHandler != null
+					? new DirtyReadHostHandler(latencyAwareHostHandler, new RoundRobinHostHandler(hostResolver))
+					: createHostHandler(hostResolver);
+			return new ArangoDBAsyncImpl(
+					asyncBuilder(hostHandler).hostResolver(hostResolver)
+							.latencyAwareHostHandler(latencyAwareHostHandler)
+							.requestHedging(Boolean.TRUE == hedgedReads ? new RequestHedging(
+									hedgingPercentile != null ? hedgingPercentile : RequestHedging.DEFAULT_PERCENTILE)
+									: null)
+							.circuitBreaker(Boolean.TRUE == circuitBreaker ? createCircuitBreaker() : null)
+							.retryPolicy(maxRetries != null && maxRetries > 0 ? createRetryPolicy() : null)
+							.bufferPool(bufferPool),
+					util, hostResolver,
+					new ArangoContext(), completionExecutor, writeStatistics, eventLoopGroup,
+					cursorPrefetch != null ? cursorPrefetch : 0,
+					Boolean.TRUE == readCoalescing ? new DocumentReadCoalescer(
+							readCoalescingWindow != null ? readCoalescingWindow : DocumentReadCoalescer.DEFAULT_WINDOW)
+							: null,
+					metricsListener);
+		}
+
+		private CircuitBreaker createCircuitBreaker() {
+			return new CircuitBreaker(
+					circuitBreakerFailureThreshold != null ? circuitBreakerFailureThreshold
+							: CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+					circuitBreakerTimeoutRatio != null ? circuitBreakerTimeoutRatio
+							: CircuitBreaker.DEFAULT_TIMEOUT_RATIO,
+					circuitBreakerOpenTime != null ? circuitBreakerOpenTime : CircuitBreaker.DEFAULT_OPEN_TIME,
+					metricsListener);
+		}
+
+		private RetryPolicy createRetryPolicy() {
+			return new RetryPolicy(maxRetries,
+					retryBaseDelay != null ? retryBaseDelay : RetryPolicy.DEFAULT_BASE_DELAY,
+					retryMaxDelay != null ? retryMaxDelay : RetryPolicy.DEFAULT_MAX_DELAY,
+					retryBudget != null ? retryBudget : RetryPolicy.DEFAULT_BUDGET);
+		}
+
+		private VstConnectionAsync.Builder connectionBuilder(final WriteStatisticsCollector writeStatistics,
+			final VstEventLoopGroup eventLoopGroup) {
+			return new VstConnectionAsync.Builder().timeout(timeout).ttl(connectionTtl).useSsl(useSsl)
+					.sslContext(sslContext).writeExecutor(outgoingExecutor).writeCoalescing(writeCoalescing)
+					.writeCoalescingBufferSize(writeCoalescingBufferSize).writeCoalescingLinger(writeCoalescingLinger)
+					.writeStatistics(writeStatistics).eventLoopGroup(eventLoopGroup)
+					.recordWriteTime(metricsListener != null);
 		}
 
 		private VstCommunicationAsync.Builder asyncBuilder(final HostHandler hostHandler) {
 			return new VstCommunicationAsync.Builder(hostHandler).timeout(timeout).user(user).password(password)
 					.useSsl(useSsl).sslContext(sslContext).chunksize(chunksize).maxConnections(maxConnections)
-					.connectionTtl(connectionTtl);
+					.connectionTtl(connectionTtl).maxInFlightRequests(maxInFlightRequests)
+					.maxInFlightRequestsPerConnection(maxInFlightRequestsPerConnection)
+					.maxQueuedRequests(maxQueuedRequests).overflowPolicy(overflowPolicy).requestTimeout(requestTimeout)
+					.queueExecutor(outgoingExecutor != null ? outgoingExecutor : completionExecutor)
+					.completionExecutor(completionExecutor);
 		}
 
-		private VstCommunicationSync.Builder syncBuilder(final HostHandler hostHandler) {
-			return new VstCommunicationSync.Builder(hostHandler).timeout(timeout).user(user).password(password)
-					.useSsl(useSsl).sslContext(sslContext).chunksize(chunksize).maxConnections(maxConnections)
-					.connectionTtl(connectionTtl);
+		@Override
+		protected HostResolver createHostResolver(final Collection<Host> hosts, final int maxConnections,
+			final ConnectionFactory connectionFactory) {
+			if (Boolean.TRUE == acquireHostList) {
+				return new AsyncHostResolver(new ArrayList<>(hosts),
+						description -> createHost(description, maxConnections, connectionFactory),
+						acquireHostListInterval);
+			}
+			return super.createHostResolver(hosts, maxConnections, connectionFactory);
+		}
+
+		@Override
+		protected <C extends Connection> Collection<Host> createHostList(final int maxConnections,
+			final ConnectionFactory connectionFactory) {
+			final Collection<Host> hostList = new ArrayList<>();
+			for (final HostDescription description : hosts) {
+				hostList.add(createHost(description, maxConnections, connectionFactory));
+			}
+			return hostList;
+		}
+
+		private Host createHost(final HostDescription description, final int maxConnections,
+			final ConnectionFactory connectionFactory) {
+			if (connectionSelectionStrategy == ConnectionSelectionStrategy.LEAST_OUTSTANDING) {
+				return new HostImpl(new VstConnectionPool(description, maxConnections, connectionFactory),
+						description);
+			}
+			return HostUtils.createHost(description, maxConnections, connectionFactory);
 		}
 
 	}
@@ -794,6 +1374,17 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 	 */
 	CompletableFuture<Response> execute(final Request request);
 
+	/**
+	 * Generic Execute with a deadline overriding {@link ArangoDBAsync.Builder#requestTimeout(Integer)}.
+	 * 
+	 * @param request
+	 *            VelocyStream request
+	 * @param timeout
+	 *            deadline in milliseconds, <code>0</code> for no deadline
+	 * @return VelocyStream response
+	 */
+	CompletableFuture<Response> execute(final Request request, final Integer timeout);
+
 	/**
 	 * Returns fatal, error, warning or info log messages from the server's global log.
 	 * 
@@ -821,4 +1412,21 @@ public interface ArangoDBAsync extends ArangoSerializationAccessor {
 	 * @return the server's current loglevel settings
 	 */
 	CompletableFuture<LogLevelEntity> setLogLevel(final LogLevelEntity entity);
+
+	/**
+	 * Returns the counters of the writers of all connections, e.g. to verify the effect of
+	 * {@link ArangoDBAsync.Builder#writeCoalescing(Boolean)}.
+	 * 
+	 * @return a snapshot of the write statistics
+	 */
+	WriteStatistics getWriteStatistics();
+
+	/**
+	 * Returns the number of requests waiting for {@link ArangoDBAsync.Builder#maxInFlightRequests(Integer)} or
+	 * {@link ArangoDBAsync.Builder#maxInFlightRequestsPerConnection(Integer)}, e.g. to shed load before the queues are
+	 * full.
+	 * 
+	 * @return number of queued requests
+	 */
+	int getQueuedRequests();
 }
@@ -24,11 +24,14 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import org.reactivestreams.Publisher;
+
 import com.arangodb.entity.*;
 import com.arangodb.entity.arangosearch.AnalyzerEntity;
 import com.arangodb.model.*;
 import com.arangodb.model.arangosearch.AnalyzerDeleteOptions;
 import com.arangodb.model.arangosearch.ArangoSearchCreateOptions;
+import com.arangodb.velocypack.VPackSlice;
 
 /**
  * Interface for operations on ArangoDB database level.
@@ -241,7 +244,8 @@ public interface ArangoDatabaseAsync extends ArangoSerializationAccessor {
 
     /**
      * Performs a database query using the given {@code query} and {@code bindVars}, then returns a new
-     * {@code ArangoCursor} instance for the result list.
+     * {@code ArangoCursor} instance for the result list. If the returned future is cancelled before the first batch
+     * arrived, the cursor is released on the server as soon as the first batch arrives.
      *
      * @param query    contains the query string to be executed
      * @param bindVars key/value pairs representing the bind parameters
@@ -257,6 +261,31 @@ public interface ArangoDatabaseAsync extends ArangoSerializationAccessor {
             final AqlQueryOptions options,
             final Class<T> type);
 
+    /**
+     * Performs a database query using the given {@code query} and {@code bindVars}, then returns a new
+     * {@code ArangoCursor} instance for the result list, failing if the first batch did not arrive in time. The
+     * following batches are fetched with the default deadline of the client.
+     *
+     * @param query    contains the query string to be executed
+     * @param bindVars key/value pairs representing the bind parameters
+     * @param options  Additional options, can be null
+     * @param type     The type of the result (POJO class, VPackSlice, String for Json, or Collection/List/Map)
+     * @param timeout  deadline in milliseconds, after which the returned future fails with an
+     *                 {@link com.arangodb.ArangoDBException} caused by a {@link java.util.concurrent.TimeoutException}.
+     *                 <code>null</code> for {@link com.arangodb.ArangoDBAsync.Builder#requestTimeout(Integer)},
+     *                 <code>0</code> for no deadline. A cursor whose first batch arrives too late is closed as soon
+     *                 as it arrives.
+     * @return cursor of the results
+     * @see <a href="https://docs.arangodb.com/current/HTTP/AqlQueryCursor/AccessingCursors.html#create-cursor">API
+     * Documentation</a>
+     */
+    <T> CompletableFuture<ArangoCursorAsync<T>> query(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options,
+            final Class<T> type,
+            final Integer timeout);
+
     /**
      * Performs a database query using the given {@code query}, then returns a new {@code ArangoCursor} instance for the
      * result list.
@@ -301,6 +330,46 @@ public interface ArangoDatabaseAsync extends ArangoSerializationAccessor {
      */
     <T> CompletableFuture<ArangoCursorAsync<T>> query(final String query, final Class<T> type);
 
+    /**
+     * Returns a {@link Publisher} of the results of the given query. The query is executed for every subscriber once
+     * it signals demand, and the next batch of the cursor is only fetched when the elements of the current one have
+     * been requested. Cancelling the subscription closes the cursor on the server.
+     * <p>
+     * On Java 9+ the publisher can be converted to a {@code java.util.concurrent.Flow.Publisher} with
+     * {@code org.reactivestreams.FlowAdapters.toFlowPublisher(Publisher)}.
+     * </p>
+     *
+     * @param query    contains the query string to be executed
+     * @param bindVars key/value pairs representing the bind parameters
+     * @param options  Additional options, can be null
+     * @param type     The type of the result (POJO class, VPackSlice, String for Json, or Collection/List/Map)
+     * @return publisher of the results
+     * @see <a href="https://docs.arangodb.com/current/HTTP/AqlQueryCursor/AccessingCursors.html#create-cursor">API
+     * Documentation</a>
+     */
+    <T> Publisher<T> queryPublisher(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options,
+            final Class<T> type);
+
+    /**
+     * Performs a database query like {@link #query(String, Map, AqlQueryOptions, Class)}, but every element of the
+     * returned cursor is a whole batch: the VelocyPack array of its results as received from the server, without
+     * deserializing them. The batch size is set through {@link AqlQueryOptions#batchSize(Integer)}.
+     *
+     * @param query    contains the query string to be executed
+     * @param bindVars key/value pairs representing the bind parameters, can be null
+     * @param options  Additional options, can be null
+     * @return cursor of the batches of the results
+     * @see <a href="https://docs.arangodb.com/current/HTTP/AqlQueryCursor/AccessingCursors.html#create-cursor">API
+     * Documentation</a>
+     */
+    CompletableFuture<ArangoCursorAsync<VPackSlice>> queryRaw(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options);
+
     /**
      * Return an cursor from the given cursor-ID if still existing
      *
@@ -0,0 +1,95 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.entity.DocumentDeleteEntity;
+import com.arangodb.entity.DocumentUpdateEntity;
+
+/**
+ * Writer which coalesces single document operations on a collection into multi document requests. Consecutive
+ * operations of the same kind are collected into one pending batch; an operation of another kind sends the pending
+ * batch first, so that the operations reach the server in the order they were submitted.
+ * <p>
+ * Every returned future completes with the result the server reported for that document. A document level error of
+ * the batch completes the future of its operation exceptionally with an {@link ArangoDBException}, a failure of the
+ * whole request fails all the operations of the batch.
+ * 
+ * @see ArangoCollectionAsync#batchingWriter(Class, com.arangodb.model.BatchingDocumentWriterOptions)
+ */
+public interface BatchingDocumentWriter<T> {
+
+	/**
+	 * Queues the creation of a document.
+	 * 
+	 * @param value
+	 *            A representation of a single document (POJO, VPackSlice or String for Json)
+	 * @return information about the document
+	 */
+	CompletableFuture<DocumentCreateEntity<T>> insertDocument(final T value);
+
+	/**
+	 * Queues the partial update of a document.
+	 * 
+	 * @param value
+	 *            A representation of a single document (POJO, VPackSlice or String for Json). The document has to
+	 *            contain the <code>_key</code> attribute.
+	 * @return information about the document
+	 */
+	CompletableFuture<DocumentUpdateEntity<T>> updateDocument(final T value);
+
+	/**
+	 * Queues the replacement of a document.
+	 * 
+	 * @param value
+	 *            A representation of a single document (POJO, VPackSlice or String for Json). The document has to
+	 *            contain the <code>_key</code> attribute.
+	 * @return information about the document
+	 */
+	CompletableFuture<DocumentUpdateEntity<T>> replaceDocument(final T value);
+
+	/**
+	 * Queues the removal of a document.
+	 * 
+	 * @param key
+	 *            The key of the document
+	 * @return information about the document
+	 */
+	CompletableFuture<DocumentDeleteEntity<T>> deleteDocument(final String key);
+
+	/**
+	 * Sends the pending batch without waiting for the linger time.
+	 * 
+	 * @return future completed when all the operations submitted before the call are completed
+	 */
+	CompletableFuture<Void> flush();
+
+	/**
+	 * Sends the pending batch and rejects further operations.
+	 * 
+	 * @return future completed when all the operations submitted before the call are completed
+	 */
+	CompletableFuture<Void> close();
+
+}
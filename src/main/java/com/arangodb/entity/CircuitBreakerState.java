@@ -0,0 +1,46 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.entity;
+
+/**
+ * State of the circuit breaker of a host.
+ * 
+ * @see com.arangodb.ArangoDBAsync.Builder#circuitBreaker(Boolean)
+ * @see com.arangodb.metrics.MetricsListener#circuitBreakerStateChanged(String, CircuitBreakerState)
+ */
+public enum CircuitBreakerState {
+
+	/**
+	 * the requests are sent to the host
+	 */
+	CLOSED,
+
+	/**
+	 * the host failed repeatedly, the requests are sent to other hosts or fail immediately
+	 */
+	OPEN,
+
+	/**
+	 * the host was open long enough, a single request probes whether it recovered
+	 */
+	HALF_OPEN;
+
+}
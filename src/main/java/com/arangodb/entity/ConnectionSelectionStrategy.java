@@ -0,0 +1,42 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.entity;
+
+/**
+ * Selection of the connection to a host a request is sent on, when more than one connection is opened per host.
+ * 
+ * @see com.arangodb.ArangoDBAsync.Builder#maxConnections(Integer)
+ */
+public enum ConnectionSelectionStrategy {
+
+	/**
+	 * the connections are used in turn
+	 */
+	ROUND_ROBIN,
+
+	/**
+	 * the less loaded of two randomly chosen connections is used, measured by the requests sent on the connection and
+	 * not yet completed
+	 */
+	LEAST_OUTSTANDING;
+
+}
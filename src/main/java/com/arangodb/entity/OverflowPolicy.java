@@ -0,0 +1,41 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.entity;
+
+/**
+ * Handling of the requests exceeding the queue of waiting requests, when the number of requests in flight is limited.
+ * 
+ * @see com.arangodb.ArangoDBAsync.Builder#maxQueuedRequests(Integer)
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * the request fails immediately
+	 */
+	REJECT,
+
+	/**
+	 * the request waits until the queue has room, at most for the timeout of the driver, without blocking the calling
+	 * thread
+	 */
+	DELAY;
+
+}
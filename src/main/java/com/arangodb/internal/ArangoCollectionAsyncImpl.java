@@ -22,9 +22,12 @@ package com.arangodb.internal;
 
 import com.arangodb.ArangoCollectionAsync;
 import com.arangodb.ArangoDBException;
+import com.arangodb.BatchingDocumentWriter;
 import com.arangodb.entity.*;
 import com.arangodb.internal.util.DocumentUtil;
 import com.arangodb.model.*;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.Response;
 
 import java.util.Collection;
 import java.util.Objects;
@@ -40,6 +43,11 @@ public class ArangoCollectionAsyncImpl
         extends InternalArangoCollection<ArangoDBAsyncImpl, ArangoDatabaseAsyncImpl, ArangoExecutorAsync>
         implements ArangoCollectionAsync {
 
+    // kinds of the hedged read requests, see ArangoExecutorAsync#executeHedged
+    static final String GET_DOCUMENT = "getDocument";
+    static final String GET_DOCUMENTS = "getDocuments";
+    static final String DOCUMENT_EXISTS = "documentExists";
+
     protected ArangoCollectionAsyncImpl(final ArangoDatabaseAsyncImpl db, final String name) {
         super(db, name);
     }
@@ -107,14 +115,44 @@ public class ArangoCollectionAsyncImpl
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> CompletableFuture<T> getDocument(
             final String key,
             final Class<T> type,
             final DocumentReadOptions options) throws ArangoDBException {
+        return getDocument(key, type, options, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getDocument(
+            final String key,
+            final Class<T> type,
+            final DocumentReadOptions options,
+            final Integer timeout) throws ArangoDBException {
+        DocumentUtil.validateDocumentKey(key);
+        boolean isCatchException = options != null ? options.isCatchException() : new DocumentReadOptions().isCatchException();
+        final DocumentReadCoalescer readCoalescer = db().arango().readCoalescer();
+        if (readCoalescer != null && (options == null || (options.getIfMatch() == null && options.getIfNoneMatch() == null))) {
+            final CompletableFuture<T> read = readCoalescer.getDocument(this, key, type,
+                    options != null ? options : new DocumentReadOptions());
+            // the shared request has the default deadline of the client
+            return (timeout != null ? executor.expire(read, timeout) : read)
+                    .exceptionally(handleGetDocumentExceptions(isCatchException));
+        }
+        return (CompletableFuture<T>) executor.executeHedged(getDocumentRequest(key, options), type, GET_DOCUMENT, timeout)
+                .exceptionally(handleGetDocumentExceptions(isCatchException));
+    }
+
+    @Override
+    public CompletableFuture<VPackSlice> getDocumentRaw(final String key) {
+        return getDocumentRaw(key, new DocumentReadOptions());
+    }
+
+    @Override
+    public CompletableFuture<VPackSlice> getDocumentRaw(final String key, final DocumentReadOptions options) {
         DocumentUtil.validateDocumentKey(key);
         boolean isCatchException = options != null ? options.isCatchException() : new DocumentReadOptions().isCatchException();
-        return (CompletableFuture<T>) executor.execute(getDocumentRequest(key, options), type)
+        return executor.executeHedged(getDocumentRequest(key, options), Response::getBody, null, GET_DOCUMENT, null)
                 .exceptionally(handleGetDocumentExceptions(isCatchException));
     }
 
@@ -152,7 +190,29 @@ public class ArangoCollectionAsyncImpl
             final Collection<String> keys,
             final Class<T> type,
             final DocumentReadOptions options) {
-        return executor.execute(getDocumentsRequest(keys, options), getDocumentsResponseDeserializer(type, options));
+        return getDocuments(keys, type, options, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<MultiDocumentEntity<T>> getDocuments(
+            final Collection<String> keys,
+            final Class<T> type,
+            final DocumentReadOptions options,
+            final Integer timeout) {
+        return executor.executeHedged(getDocumentsRequest(keys, options), getDocumentsResponseDeserializer(type, options),
+                null, GET_DOCUMENTS, null, timeout);
+    }
+
+    @Override
+    public CompletableFuture<VPackSlice> getDocumentsRaw(final Collection<String> keys) {
+        return getDocumentsRaw(keys, new DocumentReadOptions());
+    }
+
+    @Override
+    public CompletableFuture<VPackSlice> getDocumentsRaw(
+            final Collection<String> keys,
+            final DocumentReadOptions options) {
+        return executor.executeHedged(getDocumentsRequest(keys, options), Response::getBody, null, GET_DOCUMENTS, null);
     }
 
     @Override
@@ -250,6 +310,13 @@ public class ArangoCollectionAsyncImpl
         return executor.execute(deleteDocumentsRequest(values, options), deleteDocumentsResponseDeserializer(type));
     }
 
+    @Override
+    public <T> BatchingDocumentWriter<T> batchingWriter(
+            final Class<T> type,
+            final BatchingDocumentWriterOptions options) {
+        return new BatchingDocumentWriterImpl<>(this, type, options);
+    }
+
     @Override
     public CompletableFuture<Boolean> documentExists(final String key) {
         return documentExists(key, new DocumentExistsOptions());
@@ -258,7 +325,8 @@ public class ArangoCollectionAsyncImpl
     @Override
     public CompletableFuture<Boolean> documentExists(final String key, final DocumentExistsOptions options) {
         boolean isCatchException = options != null ? options.isCatchException() : new DocumentExistsOptions().isCatchException();
-        return executor.execute(documentExistsRequest(key, options), response -> response)
+        return executor.executeHedged(documentExistsRequest(key, options), response -> response, null, DOCUMENT_EXISTS,
+                null)
                 .exceptionally(handleGetDocumentExceptions(isCatchException))
                 .thenApply(Objects::nonNull);
     }
@@ -0,0 +1,72 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.CursorEntity;
+
+/**
+ * Non-blocking counterpart of {@link ArangoCursorExecute}. The blocking methods wait for the asynchronous ones and
+ * are only used by the {@link java.util.Iterator} API of the cursor.
+ */
+public interface ArangoCursorAsyncExecute extends ArangoCursorExecute {
+
+	CompletableFuture<CursorEntity> nextAsync(String id, Map<String, String> meta);
+
+	CompletableFuture<Void> closeAsync(String id, Map<String, String> meta);
+
+	/**
+	 * @return the number of batches to fetch ahead of the consumption
+	 */
+	default int prefetch() {
+		return 0;
+	}
+
+	/**
+	 * @return whether every element of the cursor is a whole batch, the raw VelocyPack array of its results
+	 */
+	default boolean batches() {
+		return false;
+	}
+
+	@Override
+	default CursorEntity next(final String id, final Map<String, String> meta) throws ArangoDBException {
+		try {
+			return nextAsync(id, meta).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new ArangoDBException(e);
+		}
+	}
+
+	@Override
+	default void close(final String id, final Map<String, String> meta) throws ArangoDBException {
+		try {
+			closeAsync(id, meta).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new ArangoDBException(e);
+		}
+	}
+
+}
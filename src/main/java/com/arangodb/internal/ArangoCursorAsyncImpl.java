@@ -20,13 +20,22 @@
 
 package com.arangodb.internal;
 
+import java.util.List;
 import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import com.arangodb.ArangoCursor;
 import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBException;
 import com.arangodb.entity.CursorEntity;
 import com.arangodb.internal.cursor.ArangoCursorImpl;
+import com.arangodb.internal.cursor.ArangoCursorIterator;
 
 /**
  * @author Mark Vollmary
@@ -34,13 +43,108 @@ import com.arangodb.internal.cursor.ArangoCursorImpl;
  */
 public class ArangoCursorAsyncImpl<T> extends ArangoCursorImpl<T> implements ArangoCursorAsync<T> {
 
-	protected ArangoCursorAsyncImpl(final InternalArangoDatabase<?, ?> db, final ArangoCursorExecute execute,
+	protected ArangoCursorAsyncImpl(final InternalArangoDatabase<?, ?> db, final ArangoCursorAsyncExecute execute,
 		final Class<T> type, final CursorEntity result) {
 		super(db, execute, type, result);
+		asyncIterator().start();
+	}
+
+	@Override
+	protected ArangoCursorIterator<T> createIterator(
+		final ArangoCursor<T> cursor,
+		final InternalArangoDatabase<?, ?> db,
+		final ArangoCursorExecute execute,
+		final CursorEntity result) {
+		return new ArangoCursorAsyncIterator<>(cursor, (ArangoCursorAsyncExecute) execute, db, result);
+	}
+
+	private ArangoCursorAsyncIterator<T> asyncIterator() {
+		return (ArangoCursorAsyncIterator<T>) iterator;
 	}
 
 	@Override
 	public Stream<T> streamRemaining() {
 		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, 0), false);
 	}
+
+	@Override
+	public CompletableFuture<List<T>> nextBatch() {
+		return asyncIterator().nextBatch();
+	}
+
+	@Override
+	public CompletableFuture<Void> forEachAsync(final Consumer<? super T> action) {
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		forEachBatch(action, done);
+		return done;
+	}
+
+	/**
+	 * consumes the batches which are already available in a loop, and continues in the completion of the first one
+	 * which is not, so that buffered batches do not grow the stack
+	 */
+	private void forEachBatch(final Consumer<? super T> action, final CompletableFuture<Void> done) {
+		CompletableFuture<List<T>> next;
+		while ((next = nextBatch()).isDone()) {
+			if (!consume(next, action, done)) {
+				return;
+			}
+		}
+		final CompletableFuture<List<T>> pending = next;
+		pending.whenComplete((batch, ex) -> {
+			if (consume(pending, action, done)) {
+				forEachBatch(action, done);
+			}
+		});
+	}
+
+	/**
+	 * @return whether the following batch should be consumed
+	 */
+	private boolean consume(
+		final CompletableFuture<List<T>> next,
+		final Consumer<? super T> action,
+		final CompletableFuture<Void> done) {
+		final List<T> batch;
+		try {
+			batch = next.join();
+		} catch (final CompletionException e) {
+			done.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+			return false;
+		} catch (final CancellationException e) {
+			done.completeExceptionally(e);
+			return false;
+		}
+		if (done.isDone()) {
+			// cancelled by the caller
+			closeAsync();
+			return false;
+		}
+		try {
+			batch.forEach(action);
+		} catch (final Throwable e) {
+			done.completeExceptionally(e);
+			return false;
+		}
+		if (!hasNext()) {
+			done.complete(null);
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public CompletableFuture<Void> closeAsync() {
+		return asyncIterator().closeAsync();
+	}
+
+	@Override
+	public void close() {
+		try {
+			closeAsync().get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new ArangoDBException(e);
+		}
+	}
+
 }
@@ -0,0 +1,233 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.arangodb.ArangoCursor;
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.CursorEntity;
+import com.arangodb.internal.cursor.ArangoCursorIterator;
+
+/**
+ * Iterator of an {@link ArangoCursorAsyncImpl}, keeping the current batch and the position inside of it. Elements
+ * can be consumed one by one through the blocking {@link java.util.Iterator} API, or batch by batch through
+ * {@link #nextBatch()} which never waits for the server.
+ * <p>
+ * With a prefetch greater than 0, the next batch is requested as soon as the previous one arrived, until
+ * <code>prefetch</code> batches are buffered ahead of the current one. The server serves the requests of a cursor one
+ * at a time, so there is at most one request in flight.
+ * </p>
+ */
+public class ArangoCursorAsyncIterator<T> extends ArangoCursorIterator<T> {
+
+	private final ArangoCursor<T> cursor;
+	private final ArangoCursorAsyncExecute execute;
+	private final int prefetch;
+	private final boolean batches;
+	private volatile CursorEntity result;
+	private volatile int pos;
+
+	// guarded by this
+	private final Deque<CursorEntity> buffered = new ArrayDeque<>();
+	private CursorEntity last;
+	private CompletableFuture<Void> fetching;
+	private Throwable failure;
+	private boolean closed;
+
+	protected ArangoCursorAsyncIterator(final ArangoCursor<T> cursor, final ArangoCursorAsyncExecute execute,
+		final InternalArangoDatabase<?, ?> db, final CursorEntity result) {
+		super(cursor, execute, db, result);
+		this.cursor = cursor;
+		this.execute = execute;
+		this.prefetch = Math.max(0, execute.prefetch());
+		this.batches = execute.batches();
+		this.result = result;
+		this.pos = 0;
+		this.last = result;
+	}
+
+	/**
+	 * starts fetching ahead, the cursor id is not available while the iterator is created
+	 */
+	synchronized void start() {
+		prefetch();
+	}
+
+	@Override
+	public CursorEntity getResult() {
+		return result;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return pos < size() || Boolean.TRUE == result.getHasMore();
+	}
+
+	@Override
+	public T next() {
+		if (pos >= size() && Boolean.TRUE == result.getHasMore()) {
+			try {
+				takeBatch().get();
+			} catch (final InterruptedException | ExecutionException e) {
+				throw new ArangoDBException(e);
+			}
+		}
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return element(pos++);
+	}
+
+	/**
+	 * @return the number of elements of the current batch, which is a single element if the cursor yields batches
+	 */
+	private int size() {
+		final int size = result.getResult().size();
+		return batches ? Math.min(size, 1) : size;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T element(final int index) {
+		return batches ? (T) result.getResult() : deserialize(result.getResult().get(index), cursor.getType());
+	}
+
+	/**
+	 * @return the not yet consumed elements of the current batch or, if there are none, the next batch. An empty list
+	 *         once the cursor is exhausted. The future is already completed if the batch has been buffered, callers
+	 *         chaining on it must not recurse.
+	 */
+	public CompletableFuture<List<T>> nextBatch() {
+		if (pos < size()) {
+			return CompletableFuture.completedFuture(remaining());
+		}
+		if (Boolean.TRUE != result.getHasMore()) {
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+		return takeBatch().thenApply(v -> remaining());
+	}
+
+	private List<T> remaining() {
+		final int size = size();
+		final List<T> elements = new ArrayList<>(Math.max(0, size - pos));
+		for (int i = pos; i < size; i++) {
+			elements.add(element(i));
+		}
+		pos = size;
+		return elements;
+	}
+
+	/**
+	 * makes the next batch the current one, waiting for it if it has not been buffered yet. Once fetching a batch
+	 * failed, every following batch fails with the same cause, as the position of the server cursor is unknown.
+	 */
+	private CompletableFuture<Void> takeBatch() {
+		final CompletableFuture<Void> pending;
+		synchronized (this) {
+			final CursorEntity batch = buffered.poll();
+			if (batch != null) {
+				result = batch;
+				pos = 0;
+				prefetch();
+				return CompletableFuture.completedFuture(null);
+			}
+			if (failure != null || closed) {
+				final CompletableFuture<Void> failed = new CompletableFuture<>();
+				failed.completeExceptionally(failure != null ? failure : new ArangoDBException("The cursor is closed."));
+				return failed;
+			}
+			pending = fetch();
+		}
+		return pending.thenCompose(v -> takeBatch());
+	}
+
+	private void prefetch() {
+		if (buffered.size() < prefetch && failure == null) {
+			fetch();
+		}
+	}
+
+	/**
+	 * requests the batch following the last received one, unless a request is already in flight. The returned future
+	 * is completed once the response has been buffered.
+	 */
+	private CompletableFuture<Void> fetch() {
+		if (fetching == null) {
+			if (closed || Boolean.TRUE != last.getHasMore()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			final CompletableFuture<Void> response = execute.nextAsync(cursor.getId(), last.getMeta())
+					.handle((batch, ex) -> {
+						fetched(batch, ex);
+						return null;
+					});
+			// already handled if the request failed synchronously
+			if (!response.isDone()) {
+				fetching = response;
+			}
+			return response;
+		}
+		return fetching;
+	}
+
+	private synchronized void fetched(final CursorEntity batch, final Throwable ex) {
+		fetching = null;
+		if (ex != null) {
+			failure = ex;
+			return;
+		}
+		last = batch;
+		if (!closed) {
+			buffered.add(batch);
+			prefetch();
+		}
+	}
+
+	/**
+	 * stops fetching ahead and releases the cursor on the server, unless it has already been exhausted
+	 */
+	public CompletableFuture<Void> closeAsync() {
+		final CompletableFuture<Void> pending;
+		synchronized (this) {
+			closed = true;
+			buffered.clear();
+			pending = fetching != null ? fetching : CompletableFuture.completedFuture(null);
+		}
+		return pending.thenCompose(v -> {
+			final CursorEntity last;
+			synchronized (this) {
+				last = this.last;
+			}
+			if (cursor.getId() != null && Boolean.TRUE == last.getHasMore()) {
+				return execute.closeAsync(cursor.getId(), last.getMeta());
+			}
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.arangodb.ArangoCursorAsync;
+
+/**
+ * Cold {@link Publisher} of the results of a query. Every subscription executes the query once the subscriber
+ * signals demand, and fetches the next batch of the cursor only when the elements of the current one have been
+ * requested. Cancelling the subscription releases the cursor on the server.
+ */
+public class ArangoCursorPublisher<T> implements Publisher<T> {
+
+	private final Supplier<CompletableFuture<ArangoCursorAsync<T>>> query;
+
+	public ArangoCursorPublisher(final Supplier<CompletableFuture<ArangoCursorAsync<T>>> query) {
+		super();
+		this.query = query;
+	}
+
+	@Override
+	public void subscribe(final Subscriber<? super T> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("subscriber is null");
+		}
+		final CursorSubscription subscription = new CursorSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * All the signals to the subscriber are emitted by {@link #drain()}, which is run by a single thread at a time.
+	 * The responses of the server only update the state and trigger a drain.
+	 */
+	private final class CursorSubscription implements Subscription {
+
+		private final Subscriber<? super T> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private volatile boolean cancelled;
+		private volatile boolean fetching;
+		private volatile ArangoCursorAsync<T> cursor;
+		private volatile Iterator<T> batch;
+		private volatile Throwable error;
+
+		private CursorSubscription(final Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(final long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("request must be positive, but was " + n);
+			} else {
+				long current;
+				do {
+					current = requested.get();
+					if (current == Long.MAX_VALUE) {
+						break;
+					}
+				} while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			closeCursor();
+		}
+
+		private void closeCursor() {
+			final ArangoCursorAsync<T> c = cursor;
+			if (c != null && closed.compareAndSet(false, true)) {
+				c.closeAsync();
+			}
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				if (cancelled) {
+					return;
+				}
+				final Throwable ex = error;
+				if (ex != null) {
+					terminate();
+					subscriber.onError(ex);
+					return;
+				}
+				final long demand = requested.get();
+				long emitted = 0L;
+				final Iterator<T> current = batch;
+				if (current != null) {
+					while (emitted != demand && current.hasNext()) {
+						if (cancelled) {
+							return;
+						}
+						final T next = current.next();
+						try {
+							subscriber.onNext(next);
+						} catch (final Throwable e) {
+							terminate();
+							subscriber.onError(e);
+							return;
+						}
+						emitted++;
+					}
+				}
+				if (emitted != 0 && demand != Long.MAX_VALUE) {
+					requested.addAndGet(-emitted);
+				}
+				if ((current == null || !current.hasNext()) && !fetching) {
+					final ArangoCursorAsync<T> c = cursor;
+					if (c != null && !c.hasNext()) {
+						cancelled = true;
+						subscriber.onComplete();
+						return;
+					}
+					if (requested.get() > 0) {
+						fetch(c);
+					}
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * executes the query or fetches the next batch of the cursor, completing synchronously if the batch has
+		 * already been received
+		 */
+		private void fetch(final ArangoCursorAsync<T> c) {
+			fetching = true;
+			if (c == null) {
+				final CompletableFuture<ArangoCursorAsync<T>> execution;
+				try {
+					execution = query.get();
+				} catch (final RuntimeException e) {
+					failed(e);
+					return;
+				}
+				execution.whenComplete((created, ex) -> {
+					if (ex != null) {
+						failed(ex);
+						return;
+					}
+					cursor = created;
+					if (cancelled) {
+						closeCursor();
+					}
+					fetching = false;
+					drain();
+				});
+			} else {
+				c.nextBatch().whenComplete((elements, ex) -> {
+					if (ex != null) {
+						failed(ex);
+						return;
+					}
+					batch = elements.iterator();
+					fetching = false;
+					drain();
+				});
+			}
+		}
+
+		private void failed(final Throwable ex) {
+			error = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+			fetching = false;
+			drain();
+		}
+
+		private void terminate() {
+			cancelled = true;
+			closeCursor();
+		}
+
+	}
+
+}
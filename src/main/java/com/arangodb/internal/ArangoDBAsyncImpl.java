@@ -23,6 +23,7 @@ package com.arangodb.internal;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import com.arangodb.ArangoDBAsync;
 import com.arangodb.ArangoDBException;
@@ -33,15 +34,14 @@ import com.arangodb.entity.LogLevelEntity;
 import com.arangodb.entity.Permissions;
 import com.arangodb.entity.ServerRole;
 import com.arangodb.entity.UserEntity;
-import com.arangodb.internal.net.CommunicationProtocol;
 import com.arangodb.internal.net.HostResolver;
 import com.arangodb.internal.util.ArangoSerializationFactory;
 import com.arangodb.internal.util.ArangoSerializationFactory.Serializer;
-import com.arangodb.internal.velocystream.VstCommunication;
 import com.arangodb.internal.velocystream.VstCommunicationAsync;
-import com.arangodb.internal.velocystream.VstCommunicationSync;
-import com.arangodb.internal.velocystream.VstProtocol;
-import com.arangodb.internal.velocystream.internal.VstConnectionSync;
+import com.arangodb.internal.velocystream.VstEventLoopGroup;
+import com.arangodb.internal.velocystream.WriteStatisticsCollector;
+import com.arangodb.metrics.MetricsListener;
+import com.arangodb.metrics.WriteStatistics;
 import com.arangodb.model.LogOptions;
 import com.arangodb.model.UserCreateOptions;
 import com.arangodb.model.UserUpdateOptions;
@@ -54,20 +54,28 @@ import com.arangodb.velocystream.Response;
  */
 public class ArangoDBAsyncImpl extends InternalArangoDB<ArangoExecutorAsync> implements ArangoDBAsync {
 
-	private final CommunicationProtocol cp;
+	private final HostResolver hostResolver;
+	private final WriteStatisticsCollector writeStatistics;
+	private final VstEventLoopGroup eventLoopGroup;
+	private final int cursorPrefetch;
+	private final DocumentReadCoalescer readCoalescer;
 
 	public ArangoDBAsyncImpl(final VstCommunicationAsync.Builder commBuilder, final ArangoSerializationFactory util,
-		final VstCommunicationSync.Builder syncbuilder, final HostResolver hostResolver, final ArangoContext context) {
-		
-		super(new ArangoExecutorAsync(commBuilder.build(util.get(Serializer.INTERNAL)), util, new DocumentCache()), util, context);
-		
-		final VstCommunication<Response, VstConnectionSync> cacheCom = syncbuilder.build(util.get(Serializer.INTERNAL));
-		
-		cp = new VstProtocol(cacheCom);
-		
-		ArangoExecutorSync arangoExecutorSync = new ArangoExecutorSync(cp, util, new DocumentCache());
-		hostResolver.init(arangoExecutorSync, util.get(Serializer.INTERNAL));
-
+		final HostResolver hostResolver, final ArangoContext context,
+		final Executor completionExecutor, final WriteStatisticsCollector writeStatistics,
+		final VstEventLoopGroup eventLoopGroup, final int cursorPrefetch, final DocumentReadCoalescer readCoalescer,
+		final MetricsListener metricsListener) {
+
+		super(new ArangoExecutorAsync(commBuilder.metricsListener(metricsListener).build(util.get(Serializer.INTERNAL)),
+				util, new DocumentCache(), completionExecutor, metricsListener), util, context);
+		this.writeStatistics = writeStatistics;
+		this.eventLoopGroup = eventLoopGroup;
+		this.cursorPrefetch = cursorPrefetch;
+		this.readCoalescer = readCoalescer;
+		this.hostResolver = hostResolver;
+		if (hostResolver instanceof AsyncHostResolver) {
+			((AsyncHostResolver) hostResolver).init(executor, util.get(Serializer.INTERNAL));
+		}
 	}
 
 	@Override
@@ -75,13 +83,27 @@ public class ArangoDBAsyncImpl extends InternalArangoDB<ArangoExecutorAsync> imp
 		return executor;
 	}
 
+	int cursorPrefetch() {
+		return cursorPrefetch;
+	}
+
+	DocumentReadCoalescer readCoalescer() {
+		return readCoalescer;
+	}
+
 	@Override
 	public void shutdown() throws ArangoDBException {
+		if (hostResolver instanceof AsyncHostResolver) {
+			((AsyncHostResolver) hostResolver).close();
+		}
 		try {
 			executor.disconnect();
-			cp.close();
 		} catch (final IOException e) {
 			throw new ArangoDBException(e);
+		} finally {
+			if (eventLoopGroup != null) {
+				eventLoopGroup.shutdown();
+			}
 		}
 	}
 
@@ -180,6 +202,11 @@ public class ArangoDBAsyncImpl extends InternalArangoDB<ArangoExecutorAsync> imp
 		return executor.execute(request, response -> response);
 	}
 
+	@Override
+	public CompletableFuture<Response> execute(final Request request, final Integer timeout) {
+		return executor.execute(request, response -> response, null, timeout);
+	}
+
 	@Override
 	public CompletableFuture<LogEntity> getLogs(final LogOptions options) {
 		return executor.execute(getLogsRequest(options), LogEntity.class);
@@ -194,4 +221,14 @@ public class ArangoDBAsyncImpl extends InternalArangoDB<ArangoExecutorAsync> imp
 	public CompletableFuture<LogLevelEntity> setLogLevel(final LogLevelEntity entity) {
 		return executor.execute(setLogLevelRequest(entity), LogLevelEntity.class);
 	}
+
+	@Override
+	public WriteStatistics getWriteStatistics() {
+		return writeStatistics.snapshot();
+	}
+
+	@Override
+	public int getQueuedRequests() {
+		return executor.getQueuedRequests();
+	}
 }
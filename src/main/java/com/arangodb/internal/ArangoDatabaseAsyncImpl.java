@@ -24,7 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 
 import com.arangodb.ArangoCollectionAsync;
 import com.arangodb.ArangoCursorAsync;
@@ -42,7 +42,10 @@ import com.arangodb.model.*;
 import com.arangodb.model.arangosearch.AnalyzerDeleteOptions;
 import com.arangodb.model.arangosearch.ArangoSearchCreateOptions;
 import com.arangodb.velocypack.Type;
+import com.arangodb.velocypack.VPackSlice;
 import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.Response;
+import org.reactivestreams.Publisher;
 
 /**
  * @author Mark Vollmary
@@ -51,6 +54,21 @@ import com.arangodb.velocystream.Request;
 public class ArangoDatabaseAsyncImpl extends InternalArangoDatabase<ArangoDBAsyncImpl, ArangoExecutorAsync>
         implements ArangoDatabaseAsync {
 
+    // kind of the hedged queries, see ArangoExecutorAsync#executeHedged
+    private static final String QUERY = "query";
+    // deadline of the requests of a cursor which have to be awaited even if the caller gave up
+    private static final Integer NO_TIMEOUT = 0;
+    // conservative, queries mentioning a data modification keyword anywhere, e.g. in a string, count as modifying
+    private static final Pattern MODIFICATION = Pattern.compile("\\b(INSERT|UPDATE|REPLACE|REMOVE|UPSERT)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * @return whether the query does certainly not modify data
+     */
+    static boolean isReadOnly(final String query) {
+        return !MODIFICATION.matcher(query).find();
+    }
+
     protected ArangoDatabaseAsyncImpl(final ArangoDBAsyncImpl arangoDB, final String name) {
         super(arangoDB, name);
     }
@@ -163,10 +181,34 @@ public class ArangoDatabaseAsyncImpl extends InternalArangoDatabase<ArangoDBAsyn
             final Map<String, Object> bindVars,
             final AqlQueryOptions options,
             final Class<T> type) {
+        return query(query, bindVars, options, type, null, false);
+    }
+
+    @Override
+    public <T> CompletableFuture<ArangoCursorAsync<T>> query(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options,
+            final Class<T> type,
+            final Integer timeout) {
+        return query(query, bindVars, options, type, timeout, false);
+    }
+
+    private <T> CompletableFuture<ArangoCursorAsync<T>> query(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options,
+            final Class<T> type,
+            final Integer timeout,
+            final boolean batches) {
         final Request request = queryRequest(query, bindVars, options);
         final HostHandle hostHandle = new HostHandle();
-        final CompletableFuture<CursorEntity> execution = executor.execute(request, CursorEntity.class, hostHandle);
-        return execution.thenApply(result -> createCursor(result, type, options, hostHandle));
+        // the request itself never times out, so that the cursor of a late response can still be released
+        final CompletableFuture<CursorEntity> execution = !isReadOnly(query)
+                ? executor.execute(request, CursorEntity.class, hostHandle, NO_TIMEOUT)
+                : executor.executeHedged(request, response -> util().deserialize(response.getBody(), CursorEntity.class),
+                        hostHandle, QUERY, (response, host) -> releaseLoser(response, options, host), NO_TIMEOUT);
+        return executor.expire(cursor(execution, type, options, hostHandle, batches), timeout);
     }
 
     @Override
@@ -190,37 +232,103 @@ public class ArangoDatabaseAsyncImpl extends InternalArangoDatabase<ArangoDBAsyn
         return query(query, null, null, type);
     }
 
+    @Override
+    public <T> Publisher<T> queryPublisher(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options,
+            final Class<T> type) {
+        return new ArangoCursorPublisher<>(() -> query(query, bindVars, options, type));
+    }
+
+    @Override
+    public CompletableFuture<ArangoCursorAsync<VPackSlice>> queryRaw(
+            final String query,
+            final Map<String, Object> bindVars,
+            final AqlQueryOptions options) {
+        return query(query, bindVars, options, VPackSlice.class, null, true);
+    }
+
     @Override
     public <T> CompletableFuture<ArangoCursorAsync<T>> cursor(final String cursorId, final Class<T> type) {
         final HostHandle hostHandle = new HostHandle();
-        final CompletableFuture<CursorEntity> execution = executor.execute(queryNextRequest(cursorId, null, null), CursorEntity.class, hostHandle);
-        return execution.thenApply(result -> createCursor(result, type, null, hostHandle));
+        final CompletableFuture<CursorEntity> execution = executor.execute(queryNextRequest(cursorId, null, null),
+                CursorEntity.class, hostHandle, NO_TIMEOUT);
+        return executor.expire(cursor(execution, type, null, hostHandle, false), null);
+    }
+
+    /**
+     * Creates the cursor once the first batch arrived. The query keeps running on the server if the returned future
+     * is cancelled or times out in the meantime, so the cursor is released as soon as its id is known.
+     */
+    private <T> CompletableFuture<ArangoCursorAsync<T>> cursor(
+            final CompletableFuture<CursorEntity> execution,
+            final Class<T> type,
+            final AqlQueryOptions options,
+            final HostHandle hostHandle,
+            final boolean batches) {
+        final CompletableFuture<ArangoCursorAsync<T>> cursor = new CompletableFuture<>();
+        execution.whenComplete((result, ex) -> {
+            if (ex != null) {
+                cursor.completeExceptionally(ex);
+                return;
+            }
+            if (cursor.isDone()) {
+                release(result, options, hostHandle);
+                return;
+            }
+            final ArangoCursorAsync<T> created;
+            try {
+                created = createCursor(result, type, options, hostHandle, batches);
+            } catch (final RuntimeException e) {
+                cursor.completeExceptionally(e);
+                return;
+            }
+            if (!cursor.complete(created)) {
+                created.closeAsync();
+            }
+        });
+        return cursor;
+    }
+
+    /**
+     * Releases the cursor of a hedged query which lost
+     */
+    private void releaseLoser(final Response response, final AqlQueryOptions options, final HostHandle hostHandle) {
+        release(util().deserialize(response.getBody(), CursorEntity.class), options, hostHandle);
+    }
+
+    private void release(final CursorEntity result, final AqlQueryOptions options, final HostHandle hostHandle) {
+        if (result.getId() != null && Boolean.TRUE == result.getHasMore()) {
+            executor.execute(queryCloseRequest(result.getId(), options, result.getMeta()), Void.class, hostHandle);
+        }
     }
 
     private <T> ArangoCursorAsync<T> createCursor(
             final CursorEntity result,
             final Class<T> type,
             final AqlQueryOptions options,
-            final HostHandle hostHandle) {
-        return new ArangoCursorAsyncImpl<>(this, new ArangoCursorExecute() {
+            final HostHandle hostHandle,
+            final boolean batches) {
+        return new ArangoCursorAsyncImpl<>(this, new ArangoCursorAsyncExecute() {
+            @Override
+            public CompletableFuture<CursorEntity> nextAsync(final String id, final Map<String, String> meta) {
+                return executor.execute(queryNextRequest(id, options, meta), CursorEntity.class, hostHandle);
+            }
+
+            @Override
+            public CompletableFuture<Void> closeAsync(final String id, final Map<String, String> meta) {
+                return executor.execute(queryCloseRequest(id, options, meta), Void.class, hostHandle);
+            }
+
             @Override
-            public CursorEntity next(final String id, Map<String, String> meta) {
-                final CompletableFuture<CursorEntity> result = executor.execute(queryNextRequest(id, options, meta),
-                        CursorEntity.class, hostHandle);
-                try {
-                    return result.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new ArangoDBException(e);
-                }
+            public int prefetch() {
+                return arango().cursorPrefetch();
             }
 
             @Override
-            public void close(final String id, Map<String, String> meta) {
-                try {
-                    executor.execute(queryCloseRequest(id, options, meta), Void.class, hostHandle).get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new ArangoDBException(e);
-                }
+            public boolean batches() {
+                return batches;
             }
         }, type, result);
     }
@@ -20,14 +20,34 @@
 
 package com.arangodb.internal;
 
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.HashedWheelTimer.Timeout;
 import com.arangodb.internal.net.HostHandle;
 import com.arangodb.internal.util.ArangoSerializationFactory;
 import com.arangodb.internal.velocystream.VstCommunicationAsync;
+import com.arangodb.internal.velocystream.VstResponseFuture;
+import com.arangodb.metrics.MetricsListener;
+import com.arangodb.velocypack.VPackSlice;
 import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.Response;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.concurrent.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * @author Mark Vollmary
@@ -35,21 +55,47 @@ import java.util.concurrent.*;
  */
 public class ArangoExecutorAsync extends ArangoExecutor {
 
+    private static final ClassValue<Boolean> REFERS_TO_BODY = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return mayReferToBody(type, new HashSet<>());
+        }
+    };
+    // generic types, e.g. of a TypeToken, which implement equals and hashCode but are no classes
+    private static final ConcurrentMap<Type, Boolean> GENERIC_REFERS_TO_BODY = new ConcurrentHashMap<>();
+
     private final VstCommunicationAsync communication;
-    private final ExecutorService outgoingExecutor = Executors.newSingleThreadExecutor();
+    private final Executor completionExecutor;
+    private final MetricsListener metricsListener;
 
+    /**
+     * @param completionExecutor executor used to deserialize the responses and to complete the returned futures, if
+     *                           <code>null</code> {@link ForkJoinPool#commonPool()} is used
+     * @param metricsListener    listener notified about every completed operation, can be <code>null</code>
+     */
     public ArangoExecutorAsync(final VstCommunicationAsync communication, final ArangoSerializationFactory util,
-                               final DocumentCache documentCache) {
+                               final DocumentCache documentCache, final Executor completionExecutor,
+                               final MetricsListener metricsListener) {
         super(util, documentCache);
         this.communication = communication;
+        this.completionExecutor = completionExecutor != null ? completionExecutor : ForkJoinPool.commonPool();
+        this.metricsListener = metricsListener;
     }
 
     public <T> CompletableFuture<T> execute(final Request request, final Type type) {
-        return execute(request, (response) -> createResult(type, response));
+        return execute(request, resultDeserializer(type));
     }
 
     public <T> CompletableFuture<T> execute(final Request request, final Type type, final HostHandle hostHandle) {
-        return execute(request, (response) -> createResult(type, response), hostHandle);
+        return execute(request, resultDeserializer(type), hostHandle);
+    }
+
+    public <T> CompletableFuture<T> execute(
+            final Request request,
+            final Type type,
+            final HostHandle hostHandle,
+            final Integer timeout) {
+        return execute(request, resultDeserializer(type), hostHandle, timeout);
     }
 
     public <T> CompletableFuture<T> execute(final Request request, final ResponseDeserializer<T> responseDeserializer) {
@@ -60,10 +106,250 @@ public class ArangoExecutorAsync extends ArangoExecutor {
             final Request request,
             final ResponseDeserializer<T> responseDeserializer,
             final HostHandle hostHandle) {
+        return execute(request, responseDeserializer, hostHandle, null);
+    }
+
+    /**
+     * @param timeout time in milliseconds after which the returned future fails, <code>null</code> for the default of
+     *                the client
+     * @return future of the deserialized response. Cancelling it abandons the request.
+     */
+    public <T> CompletableFuture<T> execute(
+            final Request request,
+            final ResponseDeserializer<T> responseDeserializer,
+            final HostHandle hostHandle,
+            final Integer timeout) {
+        return send(request, responseDeserializer, () -> communication.execute(request, hostHandle, timeout));
+    }
+
+    /**
+     * Executes a read-only request, which is hedged if enabled, see {@link VstCommunicationAsync#executeHedged}.
+     *
+     * @param kind    kind of the request, whose latencies determine when it is hedged
+     * @param release releases the resources of a response which lost, <code>null</code> to abandon the request which
+     *                lost
+     */
+    public <T> CompletableFuture<T> executeHedged(
+            final Request request,
+            final ResponseDeserializer<T> responseDeserializer,
+            final HostHandle hostHandle,
+            final String kind,
+            final BiConsumer<Response, HostHandle> release) {
+        return executeHedged(request, responseDeserializer, hostHandle, kind, release, null);
+    }
+
+    /**
+     * @param timeout time in milliseconds after which the returned future fails, <code>null</code> for the default of
+     *                the client
+     */
+    public <T> CompletableFuture<T> executeHedged(
+            final Request request,
+            final ResponseDeserializer<T> responseDeserializer,
+            final HostHandle hostHandle,
+            final String kind,
+            final BiConsumer<Response, HostHandle> release,
+            final Integer timeout) {
+        return send(request, responseDeserializer,
+                () -> communication.executeHedged(request, hostHandle, kind, release, timeout));
+    }
+
+    public <T> CompletableFuture<T> executeHedged(final Request request, final Type type, final String kind) {
+        return executeHedged(request, type, kind, null);
+    }
+
+    public <T> CompletableFuture<T> executeHedged(
+            final Request request,
+            final Type type,
+            final String kind,
+            final Integer timeout) {
+        return executeHedged(request, resultDeserializer(type), null, kind, null, timeout);
+    }
+
+    /**
+     * Runs the task after the given delay, on the timer shared by the connections of the client, see
+     * {@link VstCommunicationAsync#schedule(Runnable, long, TimeUnit)}.
+     *
+     * @return handle to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        return communication.schedule(task, delay, unit);
+    }
+
+    /**
+     * Runs the task on the executor of the background tasks of the client, see
+     * {@link VstCommunicationAsync#runAsync(Runnable)}
+     */
+    public void runAsync(final Runnable task) {
+        communication.runAsync(task);
+    }
+
+    /**
+     * Fails the given future with a timeout once the deadline passed, e.g. for operations whose request is shared
+     * with other ones.
+     *
+     * @param timeout time in milliseconds, <code>null</code> for the default of the client
+     */
+    public <T> CompletableFuture<T> expire(final CompletableFuture<T> future, final Integer timeout) {
+        return communication.expire(future, timeout);
+    }
+
+    /**
+     * With pooled buffers the response is released once it has been deserialized into a type which can not refer to
+     * the response body.
+     */
+    private <T> ResponseDeserializer<T> resultDeserializer(final Type type) {
+        if (!communication.hasBufferPool() || mayReferToBody(type)) {
+            return response -> createResult(type, response);
+        }
+        return response -> {
+            try {
+                return createResult(type, response);
+            } finally {
+                communication.release(response);
+            }
+        };
+    }
+
+    /**
+     * @return whether a value of the type may be a {@link VPackSlice} or contain one, e.g. {@link
+     * com.arangodb.entity.CursorEntity}, which is a view of the response body. Type variables and wildcards may be
+     * anything, whereas {@link Object} is deserialized into maps, collections and values.
+     */
+    static boolean mayReferToBody(final Type type) {
+        return type instanceof Class ? REFERS_TO_BODY.get((Class<?>) type)
+                : GENERIC_REFERS_TO_BODY.computeIfAbsent(type, t -> mayReferToBody(t, new HashSet<>()));
+    }
+
+    private static boolean mayReferToBody(final Type type, final Set<Class<?>> visited) {
+        if (type instanceof Class) {
+            final Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                return mayReferToBody(clazz.getComponentType(), visited);
+            }
+            if (VPackSlice.class.isAssignableFrom(clazz) || Response.class.isAssignableFrom(clazz)) {
+                return true;
+            }
+            if (clazz.isPrimitive() || clazz.getName().startsWith("java.") || !visited.add(clazz)) {
+                return false;
+            }
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (final Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && mayReferToBody(field.getGenericType(), visited)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterized = (ParameterizedType) type;
+            if (mayReferToBody(parameterized.getRawType(), visited)) {
+                return true;
+            }
+            for (final Type argument : parameterized.getActualTypeArguments()) {
+                if (mayReferToBody(argument, visited)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (type instanceof GenericArrayType) {
+            return mayReferToBody(((GenericArrayType) type).getGenericComponentType(), visited);
+        }
+        return true;
+    }
+
+    private <T> CompletableFuture<T> send(
+            final Request request,
+            final ResponseDeserializer<T> responseDeserializer,
+            final Supplier<CompletableFuture<Response>> send) {
+
+        final long start = metricsListener != null ? System.nanoTime() : 0L;
+        CompletableFuture<Response> response;
+        try {
+            response = send.get();
+        } catch (final RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        final CompletableFuture<T> result = metricsListener != null
+                ? observe(request, start, response, responseDeserializer)
+                : response.thenApplyAsync(responseDeserializer::deserialize, completionExecutor);
+        // cancelling the result, or failing it e.g. on a timeout, abandons the request: the pending message is
+        // dropped and a late response is neither read into the message store nor deserialized
+        final CompletableFuture<Response> sent = response;
+        result.whenComplete((r, e) -> {
+            if (e != null && !sent.isDone()) {
+                sent.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> observe(
+            final Request request,
+            final long start,
+            final CompletableFuture<Response> response,
+            final ResponseDeserializer<T> responseDeserializer) {
+        response.whenComplete((r, e) -> {
+            if (e != null) {
+                operationFailed(request, start, response, e);
+            }
+        });
+        return response.thenApplyAsync(r -> {
+            final T result;
+            try {
+                result = responseDeserializer.deserialize(r);
+            } catch (final RuntimeException e) {
+                operationFailed(request, start, response, e);
+                throw e;
+            }
+            operationCompleted(request, start, response, r.getResponseCode(), 0);
+            return result;
+        }, completionExecutor);
+    }
+
+    private void operationFailed(
+            final Request request,
+            final long start,
+            final CompletableFuture<Response> response,
+            final Throwable e) {
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        int responseCode = 0;
+        int errorNum = 0;
+        if (cause instanceof ArangoDBException) {
+            final ArangoDBException exception = (ArangoDBException) cause;
+            responseCode = exception.getResponseCode() != null ? exception.getResponseCode() : 0;
+            errorNum = exception.getErrorNum() != null ? exception.getErrorNum() : 0;
+        }
+        operationCompleted(request, start, response, responseCode, errorNum);
+    }
+
+    private void operationCompleted(
+            final Request request,
+            final long start,
+            final CompletableFuture<Response> response,
+            final int responseCode,
+            final int errorNum) {
+        final long end = System.nanoTime();
+        long written = 0L;
+        long received = 0L;
+        if (response instanceof VstResponseFuture) {
+            written = ((VstResponseFuture) response).getWrittenNanos();
+            received = ((VstResponseFuture) response).getReceivedNanos();
+        }
+        if (received == 0L) {
+            received = end;
+        }
+        if (written == 0L) {
+            written = received;
+        }
+        metricsListener.operationCompleted(request.getRequestType(), responseCode, errorNum, written - start,
+                received - written, end - received);
+    }
 
-        return CompletableFuture.completedFuture(null)
-                .thenComposeAsync((it) -> communication.execute(request, hostHandle), outgoingExecutor)
-                .thenApplyAsync(responseDeserializer::deserialize);
+    public int getQueuedRequests() {
+        return communication.getQueuedRequests();
     }
 
     public void disconnect() throws IOException {
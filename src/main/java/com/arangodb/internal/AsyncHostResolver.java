@@ -0,0 +1,250 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.net.HostResolver;
+import com.arangodb.internal.net.HostSet;
+import com.arangodb.util.ArangoSerialization;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+
+/**
+ * Acquires the list of available hosts from <code>/_api/cluster/endpoints</code> over the asynchronous executor of
+ * the client, instead of a separate synchronous connection.
+ * <p>
+ * {@link #resolve(boolean, boolean)} never blocks: it returns the current host set and, once the interval expired,
+ * starts a refresh in the background. The refresh is dispatched to the executor of the background tasks of the
+ * client, since resolving is part of picking a host and runs while the communication holds its lock. A refresh
+ * replaces the host set as a whole, so that the host handlers never iterate a set while it is modified. Hosts no
+ * longer listed receive no further requests, but may still have requests in flight: they are closed on the next
+ * refresh or when the resolver is closed.
+ */
+public class AsyncHostResolver implements HostResolver {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHostResolver.class);
+
+	private static final int HTTP_FORBIDDEN = 403;
+
+	private final Function<HostDescription, Host> hostFactory;
+	private final long interval;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private volatile HostSet hosts;
+	private volatile long lastUpdate;
+	private volatile boolean closed;
+	// guarded by this
+	private List<Host> retired = Collections.emptyList();
+	private volatile ArangoExecutorAsync executor;
+	private volatile ArangoSerialization serialization;
+
+	/**
+	 * @param hostFactory
+	 *            creates the hosts acquired from the server
+	 * @param acquireHostListInterval
+	 *            minimum time in milliseconds between two refreshes of the host list, <code>null</code> for
+	 *            {@link ArangoDefaults#DEFAULT_ACQUIRE_HOST_LIST_INTERVAL}
+	 */
+	public AsyncHostResolver(final List<Host> hosts, final Function<HostDescription, Host> hostFactory,
+		final Integer acquireHostListInterval) {
+		super();
+		this.hosts = new HostSet(hosts);
+		this.hostFactory = hostFactory;
+		interval = acquireHostListInterval != null ? acquireHostListInterval
+				: ArangoDefaults.DEFAULT_ACQUIRE_HOST_LIST_INTERVAL;
+	}
+
+	/**
+	 * Not used, the host list is acquired over the executor passed to
+	 * {@link #init(ArangoExecutorAsync, ArangoSerialization)}.
+	 */
+	@Override
+	public void init(final ArangoExecutorSync executor, final ArangoSerialization serialization) {
+	}
+
+	public void init(final ArangoExecutorAsync executor, final ArangoSerialization serialization) {
+		this.serialization = serialization;
+		this.executor = executor;
+	}
+
+	@Override
+	public HostSet resolve(final boolean initial, final boolean closeConnections) {
+		if (!initial && !closed && executor != null && isExpired() && refreshing.compareAndSet(false, true)) {
+			lastUpdate = System.currentTimeMillis();
+			executor.runAsync(this::refresh);
+		}
+		return hosts;
+	}
+
+	/**
+	 * Stops refreshing the host list and closes the hosts removed from it. The current hosts are closed by the host
+	 * handler.
+	 */
+	public synchronized void close() {
+		closed = true;
+		close(retired);
+		retired = Collections.emptyList();
+	}
+
+	private boolean isExpired() {
+		return System.currentTimeMillis() > lastUpdate + interval;
+	}
+
+	private void refresh() {
+		CompletableFuture<Collection<String>> endpoints;
+		try {
+			endpoints = executor.execute(
+				new Request(ArangoRequestParam.SYSTEM, RequestType.GET, "/_api/cluster/endpoints"),
+				this::deserializeEndpoints);
+		} catch (final RuntimeException e) {
+			endpoints = new CompletableFuture<>();
+			endpoints.completeExceptionally(e);
+		}
+		endpoints.whenComplete((result, e) -> {
+			try {
+				if (e == null) {
+					update(result);
+				} else if (!isForbidden(e)) {
+					LOGGER.warn("Could not acquire the host list", e);
+				}
+			} finally {
+				refreshing.set(false);
+			}
+		});
+	}
+
+	private Collection<String> deserializeEndpoints(final Response response) {
+		final VPackSlice field = response.getBody().get("endpoints");
+		if (field.isNone()) {
+			return Collections.emptyList();
+		}
+		final Collection<Map<String, String>> entries = serialization.deserialize(field, Collection.class);
+		final Collection<String> endpoints = new ArrayList<>();
+		for (final Map<String, String> entry : entries) {
+			endpoints.addAll(entry.values());
+		}
+		return endpoints;
+	}
+
+	/**
+	 * A user without access to the <code>_system</code> database can not acquire the host list and keeps the
+	 * configured hosts.
+	 */
+	private static boolean isForbidden(final Throwable e) {
+		final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		return cause instanceof ArangoDBException
+				&& Integer.valueOf(HTTP_FORBIDDEN).equals(((ArangoDBException) cause).getResponseCode());
+	}
+
+	private synchronized void update(final Collection<String> endpoints) {
+		LOGGER.debug(String.format("Resolved endpoints %s", endpoints));
+		final List<Host> current = hosts.getHostsList();
+		final List<Host> next = new ArrayList<>();
+		for (final String endpoint : endpoints) {
+			final HostDescription description = parse(endpoint);
+			if (description != null) {
+				next.add(find(description, current, retired));
+			}
+		}
+		if (next.isEmpty() || closed) {
+			return;
+		}
+		hosts = new HostSet(next);
+		final List<Host> removed = new ArrayList<>();
+		for (final Host host : current) {
+			if (!next.contains(host)) {
+				removed.add(host);
+			}
+		}
+		for (final Host host : retired) {
+			if (!next.contains(host)) {
+				close(host);
+			}
+		}
+		retired = removed;
+	}
+
+	private static void close(final Collection<Host> hosts) {
+		for (final Host host : hosts) {
+			close(host);
+		}
+	}
+
+	private static void close(final Host host) {
+		LOGGER.debug(String.format("Close removed host %s", host));
+		try {
+			host.close();
+		} catch (final IOException e) {
+			LOGGER.warn(String.format("Error during closing the host %s", host), e);
+		}
+	}
+
+	/**
+	 * @return the known host of the description, a host removed by the previous refresh is reused
+	 */
+	private Host find(final HostDescription description, final List<Host> current, final List<Host> removed) {
+		for (final List<Host> known : Arrays.asList(current, removed)) {
+			for (final Host host : known) {
+				if (description.equals(host.getDescription())) {
+					return host;
+				}
+			}
+		}
+		return hostFactory.apply(description);
+	}
+
+	private static HostDescription parse(final String endpoint) {
+		if (!endpoint.matches(".*://.+:[0-9]+")) {
+			LOGGER.warn(String.format("Skip endpoint %s (format)", endpoint));
+			return null;
+		}
+		final String[] s = endpoint.replaceAll(".*://", "").split(":");
+		if (s.length == 2) {
+			return new HostDescription(s[0], Integer.valueOf(s[1]));
+		}
+		if (s.length == 4) {
+			// [::1]:port
+			return new HostDescription("127.0.0.1", Integer.valueOf(s[3]));
+		}
+		LOGGER.warn(String.format("Skip endpoint %s (missing port)", endpoint));
+		return null;
+	}
+
+}
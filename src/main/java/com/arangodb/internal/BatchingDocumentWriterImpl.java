@@ -0,0 +1,299 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.BatchingDocumentWriter;
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.entity.DocumentDeleteEntity;
+import com.arangodb.entity.DocumentUpdateEntity;
+import com.arangodb.entity.ErrorEntity;
+import com.arangodb.entity.MultiDocumentEntity;
+import com.arangodb.internal.HashedWheelTimer.Timeout;
+import com.arangodb.internal.util.ArangoSerializationFactory.Serializer;
+import com.arangodb.model.BatchingDocumentWriterOptions;
+import com.arangodb.model.DocumentCreateOptions;
+import com.arangodb.model.DocumentDeleteOptions;
+import com.arangodb.model.DocumentReplaceOptions;
+import com.arangodb.model.DocumentUpdateOptions;
+import com.arangodb.util.ArangoSerializer;
+import com.arangodb.velocypack.VPackSlice;
+
+/**
+ * Every operation is serialized in the calling thread, so that the size of the pending batch is known when the
+ * operation is added. The batch request is built from the serialized documents, the results are deserialized with the
+ * original values so that <code>returnNew</code> and <code>returnOld</code> still produce instances of the document
+ * type.
+ */
+public class BatchingDocumentWriterImpl<T> implements BatchingDocumentWriter<T> {
+
+	private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+	private static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+	private static final long DEFAULT_LINGER = 1;
+
+	private enum Operation {
+		INSERT, UPDATE, REPLACE, DELETE
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final Object body;
+		private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+		private Entry(final Object value, final Object body) {
+			this.value = value;
+			this.body = body;
+		}
+	}
+
+	private static final class Batch {
+		private final Operation operation;
+		private final List<Entry> entries;
+
+		private Batch(final Operation operation, final List<Entry> entries) {
+			this.operation = operation;
+			this.entries = entries;
+		}
+	}
+
+	private final ArangoCollectionAsyncImpl collection;
+	private final Class<T> type;
+	private final int maxBatchSize;
+	private final int maxBatchBytes;
+	private final long linger;
+	private final DocumentCreateOptions insertOptions;
+	private final DocumentUpdateOptions updateOptions;
+	private final DocumentReplaceOptions replaceOptions;
+	private final DocumentDeleteOptions deleteOptions;
+	private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+	// guarded by this
+	private Operation operation;
+	private List<Entry> entries = new ArrayList<>();
+	private long bytes;
+	private Timeout lingerTask;
+	private boolean closed;
+
+	public BatchingDocumentWriterImpl(final ArangoCollectionAsyncImpl collection, final Class<T> type,
+		final BatchingDocumentWriterOptions options) {
+		super();
+		final BatchingDocumentWriterOptions params = options != null ? options : new BatchingDocumentWriterOptions();
+		this.collection = collection;
+		this.type = type;
+		maxBatchSize = params.getMaxBatchSize() != null ? Math.max(1, params.getMaxBatchSize())
+				: DEFAULT_MAX_BATCH_SIZE;
+		maxBatchBytes = params.getMaxBatchBytes() != null ? params.getMaxBatchBytes() : DEFAULT_MAX_BATCH_BYTES;
+		linger = params.getLinger() != null ? Math.max(0, params.getLinger()) : DEFAULT_LINGER;
+		insertOptions = params.getInsertOptions() != null ? params.getInsertOptions() : new DocumentCreateOptions();
+		updateOptions = params.getUpdateOptions() != null ? params.getUpdateOptions() : new DocumentUpdateOptions();
+		replaceOptions = params.getReplaceOptions() != null ? params.getReplaceOptions()
+				: new DocumentReplaceOptions();
+		deleteOptions = params.getDeleteOptions() != null ? params.getDeleteOptions() : new DocumentDeleteOptions();
+		if (Boolean.TRUE == insertOptions.getSilent() || Boolean.TRUE == updateOptions.getSilent()
+				|| Boolean.TRUE == replaceOptions.getSilent() || Boolean.TRUE == deleteOptions.getSilent()) {
+			throw new IllegalArgumentException("The option silent is not supported by the batching writer.");
+		}
+	}
+
+	@Override
+	public CompletableFuture<DocumentCreateEntity<T>> insertDocument(final T value) {
+		return add(Operation.INSERT, value, serialize(value, false));
+	}
+
+	@Override
+	public CompletableFuture<DocumentUpdateEntity<T>> updateDocument(final T value) {
+		final Boolean serializeNull = updateOptions.getSerializeNull();
+		return add(Operation.UPDATE, value, serialize(value, serializeNull == null || serializeNull));
+	}
+
+	@Override
+	public CompletableFuture<DocumentUpdateEntity<T>> replaceDocument(final T value) {
+		return add(Operation.REPLACE, value, serialize(value, false));
+	}
+
+	@Override
+	public CompletableFuture<DocumentDeleteEntity<T>> deleteDocument(final String key) {
+		return add(Operation.DELETE, key, key);
+	}
+
+	@Override
+	public CompletableFuture<Void> flush() {
+		final Batch batch;
+		synchronized (this) {
+			batch = take();
+		}
+		send(batch);
+		return CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]));
+	}
+
+	@Override
+	public CompletableFuture<Void> close() {
+		synchronized (this) {
+			closed = true;
+		}
+		return flush();
+	}
+
+	private VPackSlice serialize(final T value, final boolean serializeNullValues) {
+		return collection.util(Serializer.CUSTOM).serialize(value,
+			new ArangoSerializer.Options().serializeNullValues(serializeNullValues).stringAsJson(true));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> CompletableFuture<R> add(final Operation op, final Object value, final Object body) {
+		final Entry entry = new Entry(value, body);
+		final int size = body instanceof VPackSlice ? ((VPackSlice) body).getByteSize() : ((String) body).length();
+		Batch previous = null;
+		Batch full = null;
+		synchronized (this) {
+			if (closed) {
+				entry.future.completeExceptionally(new ArangoDBException("The batching writer is closed."));
+				return (CompletableFuture<R>) entry.future;
+			}
+			if (operation != null && operation != op) {
+				previous = take();
+			}
+			operation = op;
+			entries.add(entry);
+			bytes += size;
+			if (entries.size() >= maxBatchSize || bytes >= maxBatchBytes) {
+				full = take();
+			} else if (lingerTask == null) {
+				lingerTask = collection.executor().schedule(this::lingerExpired, linger, TimeUnit.MILLISECONDS);
+			}
+		}
+		send(previous);
+		send(full);
+		return (CompletableFuture<R>) entry.future;
+	}
+
+	private void lingerExpired() {
+		final Batch batch;
+		synchronized (this) {
+			lingerTask = null;
+			batch = take();
+		}
+		send(batch);
+	}
+
+	private Batch take() {
+		if (entries.isEmpty()) {
+			return null;
+		}
+		final Batch batch = new Batch(operation, entries);
+		entries = new ArrayList<>();
+		operation = null;
+		bytes = 0;
+		if (lingerTask != null) {
+			lingerTask.cancel();
+			lingerTask = null;
+		}
+		return batch;
+	}
+
+	private void send(final Batch batch) {
+		if (batch == null) {
+			return;
+		}
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		inFlight.add(done);
+		final List<Object> bodies = new ArrayList<>(batch.entries.size());
+		final List<Object> values = new ArrayList<>(batch.entries.size());
+		for (final Entry entry : batch.entries) {
+			bodies.add(entry.body);
+			values.add(entry.value);
+		}
+		CompletableFuture<? extends MultiDocumentEntity<?>> response;
+		try {
+			response = execute(batch.operation, bodies, values);
+		} catch (final RuntimeException e) {
+			final CompletableFuture<MultiDocumentEntity<?>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			response = failed;
+		}
+		response.whenComplete((result, e) -> {
+			try {
+				if (e != null) {
+					final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause()
+							: e;
+					for (final Entry entry : batch.entries) {
+						entry.future.completeExceptionally(cause);
+					}
+				} else {
+					complete(batch, result.getDocumentsAndErrors());
+				}
+			} finally {
+				inFlight.remove(done);
+				done.complete(null);
+			}
+		});
+	}
+
+	private CompletableFuture<? extends MultiDocumentEntity<?>> execute(
+		final Operation op,
+		final Collection<Object> bodies,
+		final Collection<Object> values) {
+		final ArangoExecutorAsync executor = collection.executor();
+		switch (op) {
+		case INSERT:
+			return executor.execute(collection.insertDocumentsRequest(bodies, insertOptions),
+				collection.insertDocumentsResponseDeserializer(values, insertOptions));
+		case UPDATE:
+			return executor.execute(collection.updateDocumentsRequest(bodies, updateOptions),
+				collection.updateDocumentsResponseDeserializer(values, updateOptions));
+		case REPLACE:
+			return executor.execute(collection.replaceDocumentsRequest(bodies, replaceOptions),
+				collection.replaceDocumentsResponseDeserializer(values, replaceOptions));
+		default:
+			return executor.execute(collection.deleteDocumentsRequest(bodies, deleteOptions),
+				collection.deleteDocumentsResponseDeserializer(type));
+		}
+	}
+
+	private static void complete(final Batch batch, final Collection<Object> results) {
+		final Iterator<Object> iterator = results != null ? results.iterator() : null;
+		for (final Entry entry : batch.entries) {
+			if (iterator == null || !iterator.hasNext()) {
+				entry.future.completeExceptionally(
+					new ArangoDBException("The response of the batch does not contain a result for every document."));
+			} else {
+				final Object result = iterator.next();
+				if (result instanceof ErrorEntity) {
+					entry.future.completeExceptionally(new ArangoDBException((ErrorEntity) result));
+				} else {
+					entry.future.complete(result);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.CircuitBreakerState;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.metrics.MetricsListener;
+
+/**
+ * Circuit breakers of the hosts. The breaker of a host opens after a number of consecutive failures, or once a ratio
+ * of the last {@value #WINDOW} requests timed out. While it is open, no request is sent to the host. After the open
+ * time, a single request probes the host: its success closes the breaker, its failure opens it again.
+ * <p>
+ * Requests failing without response, e.g. on a closed connection or by a timeout, and responses with a server error
+ * are failures. Responses with a client error are successes, as the host is responsive. Cancelled requests are
+ * ignored.
+ */
+public class CircuitBreaker {
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	public static final double DEFAULT_TIMEOUT_RATIO = 0.5;
+	public static final int DEFAULT_OPEN_TIME = 5000;
+	static final int WINDOW = 20;
+	private static final int WINDOW_MASK = (1 << WINDOW) - 1;
+	private static final int HTTP_SERVER_ERROR = 500;
+
+	/**
+	 * Outcome of {@link CircuitBreaker#acquire(HostDescription)}
+	 */
+	public enum Permit {
+		/** the breaker is open, the request must not be sent to the host */
+		REJECTED,
+		/** the breaker is closed */
+		ACCEPTED,
+		/** the request probes whether the host recovered */
+		PROBE
+	}
+
+	private enum Outcome {
+		SUCCESS, FAILURE, TIMEOUT
+	}
+
+	private final class Breaker {
+
+		private final HostDescription host;
+		private volatile CircuitBreakerState state = CircuitBreakerState.CLOSED;
+		private int consecutiveFailures;
+		// one bit per request of the last WINDOW requests, set if it timed out
+		private int timeouts;
+		private long openedAt;
+		private boolean probing;
+
+		private Breaker(final HostDescription host) {
+			this.host = host;
+		}
+
+		private Permit acquire() {
+			if (state == CircuitBreakerState.CLOSED) {
+				return Permit.ACCEPTED;
+			}
+			synchronized (this) {
+				switch (state) {
+				case CLOSED:
+					return Permit.ACCEPTED;
+				case OPEN:
+					if (System.nanoTime() - openedAt < openNanos) {
+						return Permit.REJECTED;
+					}
+					transition(CircuitBreakerState.HALF_OPEN);
+					probing = true;
+					return Permit.PROBE;
+				default:
+					if (probing) {
+						return Permit.REJECTED;
+					}
+					probing = true;
+					return Permit.PROBE;
+				}
+			}
+		}
+
+		private synchronized void record(final Permit permit, final Outcome outcome) {
+			if (permit == Permit.PROBE) {
+				probing = false;
+				if (outcome == null) {
+					// the next request probes again
+					return;
+				}
+				if (outcome == Outcome.SUCCESS) {
+					consecutiveFailures = 0;
+					timeouts = 0;
+					transition(CircuitBreakerState.CLOSED);
+				} else {
+					open();
+				}
+				return;
+			}
+			// responses of requests sent before the breaker opened do not decide about the host
+			if (outcome == null || state != CircuitBreakerState.CLOSED) {
+				return;
+			}
+			consecutiveFailures = outcome == Outcome.SUCCESS ? 0 : consecutiveFailures + 1;
+			timeouts = (timeouts << 1 | (outcome == Outcome.TIMEOUT ? 1 : 0)) & WINDOW_MASK;
+			if (consecutiveFailures >= failureThreshold || Integer.bitCount(timeouts) >= maxTimeouts) {
+				open();
+			}
+		}
+
+		private void open() {
+			openedAt = System.nanoTime();
+			consecutiveFailures = 0;
+			timeouts = 0;
+			transition(CircuitBreakerState.OPEN);
+		}
+
+		private void transition(final CircuitBreakerState next) {
+			state = next;
+			if (metricsListener != null) {
+				metricsListener.circuitBreakerStateChanged(host.getHost() + ":" + host.getPort(), next);
+			}
+		}
+	}
+
+	private final int failureThreshold;
+	private final int maxTimeouts;
+	private final long openNanos;
+	private final MetricsListener metricsListener;
+	private final ConcurrentMap<HostDescription, Breaker> breakers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param failureThreshold
+	 *            number of consecutive failures opening the breaker of a host
+	 * @param timeoutRatio
+	 *            ratio of timed out requests among the last {@value #WINDOW} requests opening the breaker of a host
+	 * @param openTime
+	 *            time in milliseconds a breaker stays open until a request probes the host
+	 * @param metricsListener
+	 *            listener notified about the state changes, can be <code>null</code>
+	 */
+	public CircuitBreaker(final int failureThreshold, final double timeoutRatio, final int openTime,
+		final MetricsListener metricsListener) {
+		super();
+		if (failureThreshold < 1) {
+			throw new IllegalArgumentException("The failure threshold of the circuit breaker must be at least 1");
+		}
+		if (timeoutRatio <= 0 || timeoutRatio > 1) {
+			throw new IllegalArgumentException(
+					"The timeout ratio of the circuit breaker must be greater than 0 and at most 1");
+		}
+		this.failureThreshold = failureThreshold;
+		this.maxTimeouts = (int) Math.ceil(timeoutRatio * WINDOW);
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openTime);
+		this.metricsListener = metricsListener;
+	}
+
+	/**
+	 * Called before a request is sent to the given host. Every accepted request has to be reported by
+	 * {@link #requestCompleted(HostDescription, Permit, Throwable)} or
+	 * {@link #requestCancelled(HostDescription, Permit)}.
+	 */
+	public Permit acquire(final HostDescription host) {
+		return breakers.computeIfAbsent(host, Breaker::new).acquire();
+	}
+
+	/**
+	 * @param failure
+	 *            cause of the failure of the request, <code>null</code> if it succeeded
+	 */
+	public void requestCompleted(final HostDescription host, final Permit permit, final Throwable failure) {
+		breakers.get(host).record(permit, outcome(failure));
+	}
+
+	/**
+	 * Called for a request which was not sent, e.g. rejected by the client
+	 */
+	public void requestCancelled(final HostDescription host, final Permit permit) {
+		breakers.get(host).record(permit, null);
+	}
+
+	public CircuitBreakerState getState(final HostDescription host) {
+		final Breaker breaker = breakers.get(host);
+		return breaker != null ? breaker.state : CircuitBreakerState.CLOSED;
+	}
+
+	/**
+	 * @return number of hosts requests were sent to
+	 */
+	public int size() {
+		return breakers.size();
+	}
+
+	/**
+	 * @return the outcome of a request, <code>null</code> if it is ignored
+	 */
+	private static Outcome outcome(final Throwable failure) {
+		if (failure == null) {
+			return Outcome.SUCCESS;
+		}
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		if (cause instanceof CancellationException) {
+			return null;
+		}
+		if (cause instanceof ArangoDBException) {
+			final Integer responseCode = ((ArangoDBException) cause).getResponseCode();
+			if (responseCode != null) {
+				return responseCode >= HTTP_SERVER_ERROR ? Outcome.FAILURE : Outcome.SUCCESS;
+			}
+			if (cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+		}
+		return cause instanceof TimeoutException || cause instanceof SocketTimeoutException ? Outcome.TIMEOUT
+				: Outcome.FAILURE;
+	}
+
+}
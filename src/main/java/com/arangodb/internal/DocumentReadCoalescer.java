@@ -0,0 +1,221 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.ErrorEntity;
+import com.arangodb.internal.util.ArangoSerializationFactory.Serializer;
+import com.arangodb.model.DocumentReadOptions;
+import com.arangodb.velocypack.VPackBuilder;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocypack.ValueType;
+
+/**
+ * Merges the single document reads issued within a short window into one multi document read per collection. Reads
+ * are only merged when they target the same database and collection, deserialize into the same type and share the
+ * transaction and dirty read settings. Concurrent reads of the same key are sent once, but every read deserializes
+ * its own instance from the shared response, so that the callers can modify their documents independently. The window
+ * is scheduled on the timer shared by the connections of the client.
+ * <p>
+ * Every read completes exceptionally with a {@link CompletionException}, like the futures of the executor, so that the
+ * caller keeps applying the <code>catchException</code> handling of a single read. A document missing from the
+ * result of the multi document read is reported as <code>404</code>, like a single read.
+ */
+public class DocumentReadCoalescer {
+
+	public static final long DEFAULT_WINDOW = 500;
+	static final int MAX_BATCH_SIZE = 1000;
+	private static final int HTTP_NOT_FOUND = 404;
+	private static final int ERROR_ARANGO_DOCUMENT_NOT_FOUND = 1202;
+
+	private static final class Batch {
+
+		private final ArangoCollectionAsyncImpl collection;
+		private final Class<?> type;
+		private final DocumentReadOptions options;
+		// guarded by this
+		private final Map<String, List<CompletableFuture<Object>>> waiters = new LinkedHashMap<>();
+		private boolean scheduled;
+		private boolean sent;
+
+		private Batch(final ArangoCollectionAsyncImpl collection, final Class<?> type,
+			final DocumentReadOptions options) {
+			this.collection = collection;
+			this.type = type;
+			this.options = options;
+		}
+	}
+
+	private final long window;
+	private final Map<List<Object>, Batch> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * @param window
+	 *            time in microseconds a read waits for further reads of the same collection
+	 */
+	public DocumentReadCoalescer(final long window) {
+		super();
+		this.window = Math.max(0, window);
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> CompletableFuture<T> getDocument(
+		final ArangoCollectionAsyncImpl collection,
+		final String key,
+		final Class<T> type,
+		final DocumentReadOptions options) {
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+		final List<Object> batchKey = Arrays.asList(collection.db().name(), collection.name(), type,
+			options.getAllowDirtyRead(), options.getStreamTransactionId());
+		while (true) {
+			final Batch batch = pending.computeIfAbsent(batchKey, k -> new Batch(collection, type, options));
+			final boolean full;
+			final boolean schedule;
+			synchronized (batch) {
+				if (batch.sent) {
+					pending.remove(batchKey, batch);
+					continue;
+				}
+				batch.waiters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(future);
+				full = batch.waiters.size() >= MAX_BATCH_SIZE;
+				schedule = !full && !batch.scheduled;
+				batch.scheduled = true;
+			}
+			if (full) {
+				send(batchKey, batch);
+			} else if (schedule) {
+				collection.executor().schedule(() -> send(batchKey, batch), window, TimeUnit.MICROSECONDS);
+			}
+			return (CompletableFuture<T>) future;
+		}
+	}
+
+	private void send(final List<Object> batchKey, final Batch batch) {
+		pending.remove(batchKey, batch);
+		final List<String> keys;
+		synchronized (batch) {
+			if (batch.sent) {
+				return;
+			}
+			batch.sent = true;
+			keys = new ArrayList<>(batch.waiters.keySet());
+		}
+		final ArangoCollectionAsyncImpl collection = batch.collection;
+		CompletableFuture<List<Object>> response;
+		try {
+			response = collection.executor().executeHedged(collection.getDocumentsRequest(keys, batch.options),
+				r -> results(collection, r.getBody()), null, ArangoCollectionAsyncImpl.GET_DOCUMENTS,
+				null);
+		} catch (final RuntimeException e) {
+			response = new CompletableFuture<>();
+			response.completeExceptionally(e);
+		}
+		response.whenComplete((results, e) -> {
+			if (e != null) {
+				final CompletionException failure = e instanceof CompletionException ? (CompletionException) e
+						: new CompletionException(e);
+				batch.waiters.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(failure)));
+				return;
+			}
+			final Iterator<Object> iterator = results.iterator();
+			for (final String key : keys) {
+				final Object result = iterator.hasNext() ? iterator.next()
+						: new ArangoDBException("The response of the batch does not contain a result for every key.");
+				for (final CompletableFuture<Object> future : batch.waiters.get(key)) {
+					if (result instanceof ErrorEntity) {
+						future.completeExceptionally(
+							new CompletionException(new ArangoDBException((ErrorEntity) result)));
+					} else if (result instanceof ArangoDBException) {
+						future.completeExceptionally(new CompletionException((ArangoDBException) result));
+					} else {
+						deserialize(collection, batch.type, (VPackSlice) result, future);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the errors of the multi document result, and the documents as slices of the response body which are
+	 *         deserialized for every read on its own
+	 */
+	private static List<Object> results(final ArangoCollectionAsyncImpl collection, final VPackSlice body) {
+		final List<Object> results = new ArrayList<>(body.getLength());
+		final Iterator<VPackSlice> iterator = body.arrayIterator();
+		while (iterator.hasNext()) {
+			final VPackSlice next = iterator.next();
+			if (next.get("error").isTrue()) {
+				results.add(collection.util().deserialize(withResponseCode(next), ErrorEntity.class));
+			} else {
+				results.add(next);
+			}
+		}
+		return results;
+	}
+
+	private static void deserialize(
+		final ArangoCollectionAsyncImpl collection,
+		final Class<?> type,
+		final VPackSlice document,
+		final CompletableFuture<Object> future) {
+		final Object value;
+		try {
+			value = collection.util(Serializer.CUSTOM).deserialize(document, type);
+		} catch (final RuntimeException e) {
+			future.completeExceptionally(new CompletionException(e));
+			return;
+		}
+		future.complete(value);
+	}
+
+	/**
+	 * the entries of a multi document result carry no response code, a missing document is reported as 404 like the
+	 * response of a single read
+	 */
+	private static VPackSlice withResponseCode(final VPackSlice error) {
+		if (error.get("code").isInteger() || error.get("errorNum").getAsInt() != ERROR_ARANGO_DOCUMENT_NOT_FOUND) {
+			return error;
+		}
+		final VPackBuilder builder = new VPackBuilder();
+		builder.add(ValueType.OBJECT);
+		final Iterator<Map.Entry<String, VPackSlice>> fields = error.objectIterator();
+		while (fields.hasNext()) {
+			final Map.Entry<String, VPackSlice> field = fields.next();
+			builder.add(field.getKey(), field.getValue());
+		}
+		builder.add("code", HTTP_NOT_FOUND);
+		builder.close();
+		return builder.slice();
+	}
+
+}
@@ -0,0 +1,309 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer for large numbers of short lived timeouts, e.g. one per request. Timeouts are hashed into a wheel of buckets,
+ * each covering one tick, and a single daemon thread expires the bucket of the current tick. Scheduling and
+ * cancelling a timeout only allocates the timeout itself and enqueues it for the timer thread, which owns the wheel.
+ * Timeouts expire up to one tick late.
+ * <p>
+ * The tasks are executed in the timer thread and must not block.
+ */
+public class HashedWheelTimer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+	private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+	/**
+	 * Handle of a scheduled task.
+	 */
+	public interface Timeout {
+
+		/**
+		 * @return <code>true</code> if the task was cancelled, <code>false</code> if it already expired or was
+		 *         cancelled before
+		 */
+		boolean cancel();
+
+	}
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final String name;
+	private final Queue<WheelTimeout> added = new ConcurrentLinkedQueue<>();
+	private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+	private final Object lifecycle = new Object();
+	private volatile Thread worker;
+	private volatile boolean stopped;
+	private volatile long startNanos;
+
+	/**
+	 * @param name
+	 *            name of the timer thread
+	 * @param tick
+	 *            duration of a tick, the resolution of the timer
+	 * @param unit
+	 *            unit of the tick
+	 * @param ticksPerWheel
+	 *            number of buckets, rounded up to a power of two
+	 */
+	public HashedWheelTimer(final String name, final long tick, final TimeUnit unit, final int ticksPerWheel) {
+		super();
+		this.name = name;
+		this.tickNanos = Math.max(1L, unit.toNanos(tick));
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new Bucket();
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Schedules the task for execution after the given delay, starting the timer thread on first use.
+	 * 
+	 * @return handle to cancel the task
+	 */
+	public Timeout newTimeout(final Runnable task, final long delay, final TimeUnit unit) {
+		start();
+		final WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() + unit.toNanos(delay) - startNanos);
+		added.offer(timeout);
+		return timeout;
+	}
+
+	/**
+	 * @return number of timeouts neither expired nor cancelled, approximate while the timer is in use
+	 */
+	public int pendingTimeouts() {
+		int pending = 0;
+		for (final WheelTimeout timeout : added) {
+			if (timeout.state == WheelTimeout.INIT) {
+				pending++;
+			}
+		}
+		for (final Bucket bucket : wheel) {
+			pending += bucket.size;
+		}
+		return pending;
+	}
+
+	/**
+	 * Stops the timer thread, the pending timeouts never expire.
+	 */
+	public void stop() {
+		stopped = true;
+		final Thread current = worker;
+		if (current != null) {
+			LockSupport.unpark(current);
+		}
+	}
+
+	private void start() {
+		if (worker != null) {
+			return;
+		}
+		synchronized (lifecycle) {
+			if (worker == null && !stopped) {
+				startNanos = System.nanoTime();
+				final Thread thread = new Thread(this::run, name);
+				thread.setDaemon(true);
+				worker = thread;
+				thread.start();
+			}
+		}
+	}
+
+	private void run() {
+		long tick = 0;
+		while (!stopped) {
+			final long deadline = waitForTick(tick);
+			if (stopped) {
+				break;
+			}
+			removeCancelled();
+			transfer(tick);
+			wheel[(int) (tick & mask)].expire(deadline);
+			tick++;
+		}
+	}
+
+	/**
+	 * @return time of the end of the tick, relative to the start of the timer
+	 */
+	private long waitForTick(final long tick) {
+		final long deadline = tickNanos * (tick + 1);
+		while (!stopped) {
+			final long remaining = deadline - (System.nanoTime() - startNanos);
+			if (remaining <= 0) {
+				break;
+			}
+			LockSupport.parkNanos(this, remaining);
+		}
+		return deadline;
+	}
+
+	private void removeCancelled() {
+		WheelTimeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void transfer(final long tick) {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			final WheelTimeout timeout = added.poll();
+			if (timeout == null) {
+				break;
+			}
+			if (timeout.state != WheelTimeout.INIT) {
+				continue;
+			}
+			final long expiryTick = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+			// timeouts already due expire with the current tick
+			wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+		}
+	}
+
+	private final class WheelTimeout implements Timeout {
+
+		private static final int INIT = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final Runnable task;
+		private final long deadline;
+		// not private, updated through STATE
+		volatile int state = INIT;
+		// owned by the timer thread
+		private long remainingRounds;
+		private Bucket bucket;
+		private WheelTimeout next;
+		private WheelTimeout prev;
+
+		private WheelTimeout(final Runnable task, final long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+				return false;
+			}
+			cancelled.offer(this);
+			return true;
+		}
+
+		private void expire() {
+			if (!STATE.compareAndSet(this, INIT, EXPIRED)) {
+				return;
+			}
+			try {
+				task.run();
+			} catch (final Throwable t) {
+				LOGGER.warn("Timeout task failed", t);
+			}
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE = AtomicIntegerFieldUpdater
+			.newUpdater(WheelTimeout.class, "state");
+
+	/**
+	 * Doubly linked list of the timeouts of a tick, only accessed by the timer thread.
+	 */
+	private static final class Bucket {
+
+		private WheelTimeout head;
+		private WheelTimeout tail;
+		private volatile int size;
+
+		private void add(final WheelTimeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+			size++;
+		}
+
+		private void remove(final WheelTimeout timeout) {
+			final WheelTimeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (next != null) {
+				next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				head = next;
+			}
+			if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+			size--;
+		}
+
+		private void expire(final long deadline) {
+			WheelTimeout timeout = head;
+			while (timeout != null) {
+				final WheelTimeout next = timeout.next;
+				if (timeout.state != WheelTimeout.INIT) {
+					remove(timeout);
+				} else if (timeout.remainingRounds <= 0) {
+					remove(timeout);
+					if (timeout.deadline <= deadline) {
+						timeout.expire();
+					}
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+	}
+
+}
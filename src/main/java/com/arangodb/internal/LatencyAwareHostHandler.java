@@ -0,0 +1,234 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.net.AccessType;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.net.HostHandle;
+import com.arangodb.internal.net.HostHandler;
+import com.arangodb.internal.net.HostResolver;
+
+/**
+ * {@link HostHandler} routing the requests toward the fastest healthy hosts. For every host it keeps an exponentially
+ * weighted moving average of the response latency and of the error rate, fed by the communication through
+ * {@link #requestSent(HostDescription)} and {@link #requestCompleted(HostDescription, long, Throwable)}.
+ * <p>
+ * A request goes to the better of two randomly chosen hosts: a healthy host is preferred over one whose error rate
+ * exceeds {@value #MAX_ERROR_RATE}, otherwise the host with the lower average latency, weighted by its requests in
+ * flight, is chosen. Comparing two random hosts rather than always choosing the best one keeps concurrent requests
+ * from piling onto one host before its score is updated. A share of {@value #PROBE_RATIO} of the requests goes to a
+ * random host, so that the scores of slow or failing hosts stay current and a recovered host is used again. A host
+ * without a response yet is scored best and probed right away.
+ * <p>
+ * Like the other host handlers, it is accessed under the lock of the communication, except for the scores.
+ */
+public class LatencyAwareHostHandler implements HostHandler {
+
+	static final double DECAY = 0.1;
+	static final double PROBE_RATIO = 0.05;
+	static final double MAX_ERROR_RATE = 0.5;
+	private static final int HTTP_SERVER_ERROR = 500;
+
+	static final class Score {
+
+		// nanoseconds, 0 until the first response
+		private volatile double latency;
+		private volatile double errorRate;
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		synchronized void record(final long nanos, final boolean failed) {
+			errorRate += DECAY * ((failed ? 1.0 : 0.0) - errorRate);
+			if (!failed) {
+				latency = latency == 0.0 ? nanos : latency + DECAY * (nanos - latency);
+			}
+		}
+
+		double cost() {
+			return latency * (outstanding.get() + 1);
+		}
+
+		boolean isHealthy() {
+			return errorRate < MAX_ERROR_RATE;
+		}
+
+		double getLatency() {
+			return latency;
+		}
+
+		double getErrorRate() {
+			return errorRate;
+		}
+	}
+
+	private final HostResolver resolver;
+	private final Map<HostDescription, Score> scores = new ConcurrentHashMap<>();
+	private Host current;
+	private int fails;
+
+	public LatencyAwareHostHandler(final HostResolver resolver) {
+		super();
+		this.resolver = resolver;
+		resolver.resolve(true, false);
+	}
+
+	@Override
+	public Host get(final HostHandle hostHandle, final AccessType accessType) {
+		final List<Host> hosts = resolver.resolve(false, false).getHostsList();
+		final int size = hosts.size();
+		if (fails > size) {
+			return null;
+		}
+		Host host = null;
+		if (hostHandle != null && hostHandle.getHost() != null) {
+			// e.g. the following batches of a cursor go to the host of the first one
+			for (final Host candidate : hosts) {
+				if (hostHandle.getHost().equals(candidate.getDescription())) {
+					host = candidate;
+					break;
+				}
+			}
+		}
+		if (host == null) {
+			// failing over to the next host while connecting, until a connection succeeds
+			host = fails > 0 ? hosts.get((hosts.indexOf(current) + 1) % size) : choose(hosts);
+			if (hostHandle != null && hostHandle.getHost() == null) {
+				hostHandle.setHost(host.getDescription());
+			}
+		}
+		current = host;
+		return host;
+	}
+
+	private Host choose(final List<Host> hosts) {
+		final int size = hosts.size();
+		if (size == 1) {
+			return hosts.get(0);
+		}
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(size);
+		if (random.nextDouble() < PROBE_RATIO) {
+			return hosts.get(first);
+		}
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		final Host a = hosts.get(first);
+		final Host b = hosts.get(second);
+		final Score scoreA = score(a.getDescription());
+		final Score scoreB = score(b.getDescription());
+		if (scoreA.isHealthy() != scoreB.isHealthy()) {
+			return scoreA.isHealthy() ? a : b;
+		}
+		return scoreB.cost() < scoreA.cost() ? b : a;
+	}
+
+	Score score(final HostDescription host) {
+		return scores.computeIfAbsent(host, h -> new Score());
+	}
+
+	/**
+	 * Called when a request was assigned to the given host.
+	 */
+	public void requestSent(final HostDescription host) {
+		score(host).outstanding.incrementAndGet();
+	}
+
+	/**
+	 * Called when a request assigned to the given host completed. A cancelled request is not scored, an error
+	 * response below <code>500</code> is a valid answer of the host and not scored as error.
+	 * 
+	 * @param nanos
+	 *            time since the request was assigned to the host
+	 * @param failure
+	 *            cause of the failure, or <code>null</code>
+	 */
+	public void requestCompleted(final HostDescription host, final long nanos, final Throwable failure) {
+		final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+				? failure.getCause()
+				: failure;
+		if (cause instanceof CancellationException) {
+			requestCancelled(host);
+			return;
+		}
+		final Score score = score(host);
+		score.outstanding.decrementAndGet();
+		score.record(nanos, cause != null && !isClientError(cause));
+	}
+
+	/**
+	 * Called when a request assigned to the given host completed without a meaningful latency, e.g. because it was
+	 * cancelled or rejected before it was sent. It is not scored.
+	 */
+	public void requestCancelled(final HostDescription host) {
+		score(host).outstanding.decrementAndGet();
+	}
+
+	private static boolean isClientError(final Throwable e) {
+		if (!(e instanceof ArangoDBException)) {
+			return false;
+		}
+		final Integer responseCode = ((ArangoDBException) e).getResponseCode();
+		return responseCode != null && responseCode < HTTP_SERVER_ERROR;
+	}
+
+	@Override
+	public void success() {
+		fails = 0;
+	}
+
+	@Override
+	public void fail() {
+		fails++;
+	}
+
+	@Override
+	public void reset() {
+		fails = 0;
+	}
+
+	@Override
+	public void confirm() {
+	}
+
+	@Override
+	public void close() throws IOException {
+		resolver.resolve(false, false).close();
+	}
+
+	@Override
+	public void closeCurrentOnError() {
+		current.closeOnError();
+	}
+
+}
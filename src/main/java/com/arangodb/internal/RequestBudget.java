@@ -0,0 +1,77 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget of additional requests, e.g. hedged or retried requests, as a share of the requests. Every request earns
+ * credit, an additional request costs the credit of <code>1 / ratio</code> requests. Unused credit accumulates up to a
+ * burst of additional requests.
+ */
+public class RequestBudget {
+
+	private static final long CREDIT = 1000;
+
+	private final long cost;
+	private final long maxCredit;
+	private final AtomicLong credit = new AtomicLong();
+
+	/**
+	 * @param ratio
+	 *            share, greater than 0 and at most 1, of the requests which may be followed by an additional request
+	 * @param burst
+	 *            maximum number of additional requests the unused credit is accumulated for
+	 */
+	public RequestBudget(final double ratio, final int burst) {
+		super();
+		if (ratio <= 0 || ratio > 1) {
+			throw new IllegalArgumentException("The ratio of the budget must be greater than 0 and at most 1");
+		}
+		cost = Math.round(CREDIT / ratio);
+		maxCredit = burst * cost;
+	}
+
+	/**
+	 * Earns the credit of a request
+	 */
+	public void deposit() {
+		long current;
+		while ((current = credit.get()) < maxCredit
+				&& !credit.compareAndSet(current, Math.min(maxCredit, current + CREDIT))) {
+		}
+	}
+
+	/**
+	 * @return whether an additional request may be sent, consuming its credit if so
+	 */
+	public boolean tryWithdraw() {
+		long current;
+		do {
+			current = credit.get();
+			if (current < cost) {
+				return false;
+			}
+		} while (!credit.compareAndSet(current, current - cost));
+		return true;
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.arangodb.metrics.LatencyHistogram;
+
+/**
+ * Statistics deciding when a read-only request is hedged, i.e. sent once more because its response is late. For every
+ * kind of request, e.g. reading a document or running a query, it keeps a histogram of the observed latencies; a
+ * request is hedged once it is slower than the configured percentile of them.
+ * <p>
+ * No request is hedged before {@value #MIN_SAMPLES} latencies of its kind are known. The delay is updated every
+ * {@value #MIN_SAMPLES} latencies and the histogram is cleared every {@value #WINDOW} latencies, so that it follows
+ * changes of the latencies of the cluster. Independently of the percentile, at most {@value #MAX_HEDGE_RATIO} of the
+ * requests are hedged, with bursts of up to {@value #MAX_BURST} hedged requests: if the whole cluster slows down, the
+ * requests are not all sent twice.
+ */
+public class RequestHedging {
+
+	public static final double DEFAULT_PERCENTILE = 95;
+	static final int MIN_SAMPLES = 100;
+	static final int WINDOW = 10_000;
+	static final double MAX_HEDGE_RATIO = 0.1;
+	static final int MAX_BURST = 100;
+
+	private static final class Latencies {
+
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final AtomicLong samples = new AtomicLong();
+		// nanoseconds, negative until enough latencies are known
+		private volatile long delay = -1L;
+
+		private void record(final double percentile, final long nanos) {
+			histogram.recordValue(nanos);
+			final long n = samples.incrementAndGet();
+			if (n % MIN_SAMPLES == 0) {
+				delay = histogram.getValueAtPercentile(percentile);
+				if (n % WINDOW == 0) {
+					histogram.reset();
+				}
+			}
+		}
+	}
+
+	private final double percentile;
+	private final ConcurrentMap<String, Latencies> latencies = new ConcurrentHashMap<>();
+	private final RequestBudget budget = new RequestBudget(MAX_HEDGE_RATIO, MAX_BURST);
+
+	/**
+	 * @param percentile
+	 *            percentile, between <code>0</code> and <code>100</code>, of the observed latencies after which a
+	 *            request is hedged
+	 */
+	public RequestHedging(final double percentile) {
+		super();
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException("The hedging percentile must be greater than 0 and at most 100");
+		}
+		this.percentile = percentile;
+	}
+
+	/**
+	 * Called once for every hedgeable request, before it is sent.
+	 *
+	 * @param kind
+	 *            kind of the request
+	 * @return time in nanoseconds after which the request is hedged, negative to not hedge it
+	 */
+	public long requestStarted(final String kind) {
+		budget.deposit();
+		return delay(kind);
+	}
+
+	/**
+	 * @return whether a late request may be hedged without exceeding the share of hedged requests
+	 */
+	public boolean tryHedge() {
+		return budget.tryWithdraw();
+	}
+
+	/**
+	 * @param kind
+	 *            kind of the request
+	 * @param nanos
+	 *            time from sending the request until its first response. If the hedged request answered first, it is
+	 *            the time until that response, a lower bound of the latency of the late request.
+	 */
+	public void requestCompleted(final String kind, final long nanos) {
+		latencies.computeIfAbsent(kind, k -> new Latencies()).record(percentile, nanos);
+	}
+
+	/**
+	 * @return current delay in nanoseconds after which a request of the given kind is hedged, negative if requests of
+	 *         this kind are not hedged yet
+	 */
+	long delay(final String kind) {
+		final Latencies observed = latencies.get(kind);
+		return observed != null ? observed.delay : -1L;
+	}
+
+}
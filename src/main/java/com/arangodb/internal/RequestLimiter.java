@@ -0,0 +1,276 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.OverflowPolicy;
+import com.arangodb.internal.HashedWheelTimer.Timeout;
+
+/**
+ * Limits the number of requests in flight. Requests exceeding the limit wait in a bounded queue and are started, in
+ * order, as soon as earlier requests complete. Once the queue is full, further requests are rejected or wait for
+ * room in the queue, according to the {@link OverflowPolicy}. The calling thread never blocks.
+ * <p>
+ * Queued requests are started on the given executor, never by the thread completing an earlier request, which may
+ * be the thread reading the responses of a connection. A request cancelled while waiting is never started, a started
+ * request is failed along with the future returned to the caller, e.g. after a timeout.
+ */
+public class RequestLimiter {
+
+	private static final class Pending<T> {
+
+		private final Supplier<CompletableFuture<T>> task;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private volatile Timeout expiry;
+
+		private Pending(final Supplier<CompletableFuture<T>> task) {
+			this.task = task;
+		}
+	}
+
+	private final int maxInFlight;
+	private final int maxQueued;
+	private final OverflowPolicy overflowPolicy;
+	private final long timeout;
+	private final Executor executor;
+	private final HashedWheelTimer timer;
+	private final AtomicInteger totalQueued;
+	private final IntConsumer queueListener;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Semaphore queueSlots;
+	private final Queue<Pending<?>> queue = new ConcurrentLinkedQueue<>();
+	private final Queue<Pending<?>> delayed = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger drainWip = new AtomicInteger();
+
+	/**
+	 * @param maxInFlight
+	 *            maximum number of requests in flight
+	 * @param maxQueued
+	 *            maximum number of requests waiting to be started
+	 * @param overflowPolicy
+	 *            handling of requests exceeding the queue
+	 * @param timeout
+	 *            maximum time in milliseconds a request is delayed with {@link OverflowPolicy#DELAY}, <code>0</code>
+	 *            to wait indefinitely
+	 * @param executor
+	 *            starts the queued requests
+	 * @param timer
+	 *            expires the requests delayed for longer than <code>timeout</code>, can be <code>null</code> if they
+	 *            wait indefinitely
+	 * @param totalQueued
+	 *            counter of the queued requests shared by several limiters, can be <code>null</code>
+	 * @param queueListener
+	 *            receives the number of queued requests whenever it changes, can be <code>null</code>
+	 */
+	public RequestLimiter(final int maxInFlight, final int maxQueued, final OverflowPolicy overflowPolicy,
+		final long timeout, final Executor executor, final HashedWheelTimer timer, final AtomicInteger totalQueued,
+		final IntConsumer queueListener) {
+		super();
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.maxQueued = Math.max(0, maxQueued);
+		this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.REJECT;
+		this.timeout = timeout;
+		this.executor = executor;
+		this.timer = timer;
+		this.totalQueued = totalQueued;
+		this.queueListener = queueListener;
+		this.queueSlots = new Semaphore(this.maxQueued);
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public int getQueued() {
+		return queued.get();
+	}
+
+	/**
+	 * Starts the request if the limit allows it, otherwise queues it.
+	 * 
+	 * @param task
+	 *            starts the request
+	 * @return future completed with the result of the request
+	 */
+	public <T> CompletableFuture<T> execute(final Supplier<CompletableFuture<T>> task) {
+		if (queue.isEmpty() && tryAcquire()) {
+			return start(task);
+		}
+		final Pending<T> pending = new Pending<>(task);
+		if (delayed.isEmpty() && queueSlots.tryAcquire()) {
+			enqueue(pending);
+		} else if (overflowPolicy == OverflowPolicy.REJECT) {
+			pending.result.completeExceptionally(new ArangoDBException(
+				String.format("Too many requests: %s in flight and %s queued", maxInFlight, maxQueued)));
+			return pending.result;
+		} else {
+			delay(pending);
+		}
+		// a request may have completed before the pending one was visible in the queue
+		drain();
+		return pending.result;
+	}
+
+	private void enqueue(final Pending<?> pending) {
+		queue.offer(pending);
+		queueChanged(1);
+	}
+
+	/**
+	 * Lets the request wait for room in the queue, at most for the timeout.
+	 */
+	private void delay(final Pending<?> pending) {
+		if (timer != null && timeout > 0) {
+			pending.expiry = timer.newTimeout(() -> pending.result.completeExceptionally(new ArangoDBException(String
+					.format("Too many requests: %s in flight and %s queued for %s ms", maxInFlight, maxQueued, timeout))),
+				timeout, TimeUnit.MILLISECONDS);
+		}
+		delayed.offer(pending);
+		// a queued request may have been started before the delayed one was visible
+		promote();
+	}
+
+	/**
+	 * Moves delayed requests into the queue while it has room.
+	 */
+	private void promote() {
+		while (!delayed.isEmpty() && queueSlots.tryAcquire()) {
+			final Pending<?> pending = delayed.poll();
+			if (pending == null || pending.result.isDone()) {
+				queueSlots.release();
+				continue;
+			}
+			final Timeout expiry = pending.expiry;
+			if (expiry != null) {
+				expiry.cancel();
+			}
+			enqueue(pending);
+		}
+	}
+
+	private boolean tryAcquire() {
+		while (true) {
+			final int current = inFlight.get();
+			if (current >= maxInFlight) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private <T> CompletableFuture<T> start(final Supplier<CompletableFuture<T>> task) {
+		CompletableFuture<T> future;
+		try {
+			future = task.get();
+		} catch (final RuntimeException e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		future.whenComplete((r, e) -> {
+			inFlight.decrementAndGet();
+			drain();
+		});
+		return future;
+	}
+
+	/**
+	 * Starts queued requests while the limit allows it. Only one thread drains at a time, a request completing
+	 * synchronously within the loop only makes the draining thread loop again, so the stack does not grow with the
+	 * length of the queue.
+	 */
+	private void drain() {
+		if (drainWip.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			while (!queue.isEmpty() && tryAcquire()) {
+				final Pending<?> pending = queue.poll();
+				if (pending == null) {
+					inFlight.decrementAndGet();
+					continue;
+				}
+				queueSlots.release();
+				queueChanged(-1);
+				promote();
+				if (pending.result.isDone()) {
+					inFlight.decrementAndGet();
+					continue;
+				}
+				startPending(pending);
+			}
+			missed = drainWip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private <T> void startPending(final Pending<T> pending) {
+		try {
+			executor.execute(() -> {
+				if (pending.result.isDone()) {
+					inFlight.decrementAndGet();
+					drain();
+					return;
+				}
+				final CompletableFuture<T> started = start(pending.task);
+				started.whenComplete((r, e) -> {
+					if (e != null) {
+						pending.result.completeExceptionally(e);
+					} else {
+						pending.result.complete(r);
+					}
+				});
+				pending.result.whenComplete((r, e) -> {
+					if (e != null) {
+						started.completeExceptionally(e);
+					}
+				});
+			});
+		} catch (final RejectedExecutionException e) {
+			inFlight.decrementAndGet();
+			pending.result.completeExceptionally(new ArangoDBException(e));
+		}
+	}
+
+	private void queueChanged(final int delta) {
+		final int depth = queued.addAndGet(delta);
+		if (totalQueued != null) {
+			totalQueued.addAndGet(delta);
+		}
+		if (queueListener != null) {
+			queueListener.accept(depth);
+		}
+	}
+
+}
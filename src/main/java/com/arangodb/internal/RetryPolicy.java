@@ -0,0 +1,180 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.Request;
+
+/**
+ * Policy retrying requests after transient failures, on another host if possible.
+ * <p>
+ * A write-write conflict (error {@value #ERROR_CONFLICT}) is retried for every request, as the conflicting write was
+ * not applied. Requests failing without response, e.g. on a reset connection, and responses with status
+ * {@value #SERVICE_UNAVAILABLE}, e.g. from a coordinator during a rolling restart, are retried only if repeating the
+ * request is safe: reads, queries without data modification, inserts of documents with <code>_key</code> or with
+ * <code>overwrite</code>, and replacements, updates and removals of documents by key. Timed out requests are not
+ * retried, so the timeout bounds the time the request may take.
+ * <p>
+ * The delay before a retry uses decorrelated jitter: it is chosen randomly between the base delay and three times the
+ * previous delay, at most the maximum delay. The retries of a client are limited to a share of its requests, so that
+ * retries can not amplify an outage.
+ */
+public class RetryPolicy {
+
+	public static final int DEFAULT_BASE_DELAY = 10;
+	public static final int DEFAULT_MAX_DELAY = 1000;
+	public static final double DEFAULT_BUDGET = 0.1;
+	static final int MAX_BURST = 100;
+	static final int ERROR_CONFLICT = 1200;
+	static final int SERVICE_UNAVAILABLE = 503;
+	private static final String API_DOCUMENT = "/_api/document/";
+	private static final String API_CURSOR = "/_api/cursor";
+
+	private final int maxRetries;
+	private final long baseDelay;
+	private final long maxDelay;
+	private final RequestBudget budget;
+
+	/**
+	 * @param maxRetries
+	 *            maximum number of retries of a request
+	 * @param baseDelay
+	 *            minimum delay in milliseconds before a retry
+	 * @param maxDelay
+	 *            maximum delay in milliseconds before a retry
+	 * @param budget
+	 *            share, greater than 0 and at most 1, of the requests which may be retried
+	 */
+	public RetryPolicy(final int maxRetries, final int baseDelay, final int maxDelay, final double budget) {
+		super();
+		if (baseDelay < 1 || maxDelay < baseDelay) {
+			throw new IllegalArgumentException(
+					"The base delay of the retries must be positive and not greater than the maximum delay");
+		}
+		this.maxRetries = maxRetries;
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+		this.budget = new RequestBudget(budget, MAX_BURST);
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Called once for every request which may be retried, before it is sent.
+	 */
+	public void requestStarted() {
+		budget.deposit();
+	}
+
+	/**
+	 * @param failure
+	 *            failure of the request
+	 * @param retries
+	 *            number of retries of the request so far
+	 * @return whether the request is to be retried, consuming the budget if so
+	 */
+	public boolean shouldRetry(final Request request, final Throwable failure, final int retries) {
+		return retries < maxRetries && isTransient(request, failure) && budget.tryWithdraw();
+	}
+
+	/**
+	 * @param previous
+	 *            previous delay, <code>0</code> before the first retry
+	 * @return delay in milliseconds before the next retry
+	 */
+	public long nextDelay(final long previous) {
+		final long upper = Math.max(baseDelay, previous * 3);
+		return Math.min(maxDelay, ThreadLocalRandom.current().nextLong(baseDelay, upper + 1));
+	}
+
+	static boolean isTransient(final Request request, final Throwable failure) {
+		final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+				? failure.getCause()
+				: failure;
+		if (!(cause instanceof ArangoDBException)) {
+			return false;
+		}
+		final ArangoDBException exception = (ArangoDBException) cause;
+		if (exception.getErrorNum() != null && exception.getErrorNum() == ERROR_CONFLICT) {
+			return true;
+		}
+		if (exception.getResponseCode() != null) {
+			return exception.getResponseCode() == SERVICE_UNAVAILABLE && isIdempotent(request);
+		}
+		return exception.getCause() instanceof IOException && isIdempotent(request);
+	}
+
+	/**
+	 * @return whether sending the request twice has the same effect as sending it once
+	 */
+	static boolean isIdempotent(final Request request) {
+		final String path = request.getRequest();
+		switch (request.getRequestType()) {
+		case GET:
+		case HEAD:
+		case OPTIONS:
+			return true;
+		case PUT:
+		case PATCH:
+		case DELETE:
+			// by key, multi document requests require the keys as well
+			return path.startsWith(API_DOCUMENT);
+		case POST:
+			if (path.startsWith(API_DOCUMENT)) {
+				return "true".equals(request.getQueryParam().get("overwrite")) || hasKeys(request.getBody());
+			}
+			if (path.equals(API_CURSOR)) {
+				final VPackSlice query = request.getBody() != null ? request.getBody().get("query") : null;
+				return query != null && query.isString() && ArangoDatabaseAsyncImpl.isReadOnly(query.getAsString());
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	private static boolean hasKeys(final VPackSlice body) {
+		if (body == null) {
+			return false;
+		}
+		if (body.isArray()) {
+			for (int i = 0; i < body.getLength(); i++) {
+				if (!hasKey(body.get(i))) {
+					return false;
+				}
+			}
+			return body.getLength() > 0;
+		}
+		return hasKey(body);
+	}
+
+	private static boolean hasKey(final VPackSlice document) {
+		return document.isObject() && document.get("_key").isString();
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool of byte arrays used to encode request messages and to reassemble response messages. Arrays are pooled in size
+ * classes of powers of two from {@value #MIN_SIZE} to {@value #MAX_SIZE} bytes, larger arrays are allocated on demand
+ * and never pooled. Every size class is split into stripes, a thread takes and returns arrays to its own stripe first
+ * and only falls back to the other stripes if that is empty or full, so threads rarely contend for the same slots. The
+ * slots per stripe shrink with the size class, which bounds the memory retained by the pool.
+ */
+public final class BufferPool {
+
+	static final int MIN_SIZE = 1 << 10;
+	static final int MAX_SIZE = 1 << 20;
+	private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+	private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_SIZE);
+	private static final int MAX_SLOTS = 16;
+	private static final int STRIPE_BYTES = 1 << 18;
+
+	private final int stripes;
+	private final SizeClass[] classes;
+
+	public BufferPool() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	BufferPool(final int concurrency) {
+		super();
+		stripes = Integer.highestOneBit(Math.max(1, concurrency) * 2 - 1);
+		classes = new SizeClass[MAX_SHIFT - MIN_SHIFT + 1];
+		for (int i = 0; i < classes.length; i++) {
+			final int size = MIN_SIZE << i;
+			classes[i] = new SizeClass(size, Math.max(1, Math.min(MAX_SLOTS, STRIPE_BYTES / size)), stripes);
+		}
+	}
+
+	/**
+	 * @return an array of at least the given length, its content is undefined
+	 */
+	public byte[] acquire(final int length) {
+		if (length > MAX_SIZE) {
+			return new byte[length];
+		}
+		final SizeClass sizeClass = classes[index(length)];
+		final byte[] buffer = sizeClass.poll(stripe());
+		return buffer != null ? buffer : new byte[sizeClass.size];
+	}
+
+	/**
+	 * Returns the array to the pool. The caller must not use the array afterwards. Arrays which do not fit a size
+	 * class or which do not find a free slot are left to the garbage collector.
+	 */
+	public void release(final byte[] buffer) {
+		final int length = buffer.length;
+		if (length < MIN_SIZE || length > MAX_SIZE || Integer.bitCount(length) != 1) {
+			return;
+		}
+		classes[index(length)].offer(stripe(), buffer);
+	}
+
+	private static int index(final int length) {
+		final int shift = length <= MIN_SIZE ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(length - 1);
+		return shift - MIN_SHIFT;
+	}
+
+	private int stripe() {
+		return (int) Thread.currentThread().getId() & (stripes - 1);
+	}
+
+	private static final class SizeClass {
+
+		private final int size;
+		private final int slots;
+		private final AtomicReferenceArray<byte[]> buffers;
+
+		private SizeClass(final int size, final int slots, final int stripes) {
+			this.size = size;
+			this.slots = slots;
+			buffers = new AtomicReferenceArray<>(slots * stripes);
+		}
+
+		private byte[] poll(final int stripe) {
+			final int length = buffers.length();
+			final int start = stripe * slots;
+			for (int i = 0; i < length; i++) {
+				final int slot = (start + i) % length;
+				if (buffers.get(slot) != null) {
+					final byte[] buffer = buffers.getAndSet(slot, null);
+					if (buffer != null) {
+						return buffer;
+					}
+				}
+			}
+			return null;
+		}
+
+		private void offer(final int stripe, final byte[] buffer) {
+			final int length = buffers.length();
+			final int start = stripe * slots;
+			for (int i = 0; i < length; i++) {
+				final int slot = (start + i) % length;
+				if (buffers.get(slot) == null && buffers.compareAndSet(slot, null, buffer)) {
+					return;
+				}
+			}
+		}
+	}
+
+}
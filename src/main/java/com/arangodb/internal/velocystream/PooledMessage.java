@@ -0,0 +1,59 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.arangodb.internal.velocystream.internal.Message;
+import com.arangodb.velocypack.VPackSlice;
+
+/**
+ * Response message whose head and body are slices of an array of a {@link BufferPool}, which may be longer than the
+ * message. The array is returned to the pool by {@link #release()} once nothing refers to the slices anymore.
+ */
+class PooledMessage extends Message {
+
+	private final BufferPool pool;
+	private final AtomicReference<byte[]> buffer;
+
+	PooledMessage(final long id, final byte[] buffer, final int length, final BufferPool pool) {
+		this(id, buffer, length, new VPackSlice(buffer), pool);
+	}
+
+	private PooledMessage(final long id, final byte[] buffer, final int length, final VPackSlice head,
+		final BufferPool pool) {
+		super(id, head, length > head.getByteSize() ? new VPackSlice(buffer, head.getByteSize()) : null);
+		this.pool = pool;
+		this.buffer = new AtomicReference<>(buffer);
+	}
+
+	/**
+	 * Returns the array to the pool, only the first call has an effect.
+	 */
+	void release() {
+		final byte[] released = buffer.getAndSet(null);
+		if (released != null) {
+			pool.release(released);
+		}
+	}
+
+}
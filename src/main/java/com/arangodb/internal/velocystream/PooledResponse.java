@@ -0,0 +1,47 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.velocystream.Response;
+
+/**
+ * Response whose body is a slice of a {@link PooledMessage}.
+ */
+class PooledResponse extends Response {
+
+	private final PooledMessage message;
+
+	PooledResponse(final Response response, final PooledMessage message) {
+		super();
+		this.message = message;
+		setVersion(response.getVersion());
+		setType(response.getType());
+		setResponseCode(response.getResponseCode());
+		setMeta(response.getMeta());
+		setBody(response.getBody());
+	}
+
+	void release() {
+		message.release();
+	}
+
+}
@@ -21,10 +21,29 @@
 package com.arangodb.internal.velocystream;
 
 import com.arangodb.ArangoDBException;
+import com.arangodb.entity.CircuitBreakerState;
 import com.arangodb.entity.ErrorEntity;
+import com.arangodb.entity.OverflowPolicy;
+import com.arangodb.internal.ArangoDefaults;
+import com.arangodb.internal.CircuitBreaker;
+import com.arangodb.internal.CircuitBreaker.Permit;
+import com.arangodb.internal.HashedWheelTimer;
+import com.arangodb.internal.HashedWheelTimer.Timeout;
+import com.arangodb.internal.LatencyAwareHostHandler;
+import com.arangodb.internal.RequestHedging;
+import com.arangodb.internal.RequestLimiter;
+import com.arangodb.internal.RetryPolicy;
+import com.arangodb.internal.net.AccessType;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.net.HostHandle;
 import com.arangodb.internal.net.HostHandler;
+import com.arangodb.internal.net.HostResolver;
+import com.arangodb.internal.util.RequestUtils;
 import com.arangodb.internal.velocystream.internal.AuthenticationRequest;
+import com.arangodb.internal.velocystream.internal.Chunk;
 import com.arangodb.internal.velocystream.internal.Message;
+import com.arangodb.metrics.MetricsListener;
 import com.arangodb.util.ArangoSerialization;
 import com.arangodb.velocypack.exception.VPackException;
 import com.arangodb.velocypack.exception.VPackParserException;
@@ -34,8 +53,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * @author Mark Vollmary
@@ -44,6 +78,11 @@ import java.util.concurrent.ExecutionException;
 public class VstCommunicationAsync extends VstCommunication<CompletableFuture<Response>, VstConnectionAsync> {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(VstCommunicationAsync.class);
+	private static final int DEFAULT_MAX_QUEUED_REQUESTS = 10_000;
+	// fine enough for the linger of the batching writer and the window of read coalescing
+	private static final long TIMER_TICK = 1L;
+	private static final int TIMER_WHEEL_SIZE = 512;
+	private static final String TRANSACTION_ID = "x-arango-trx-id";
 
 	public static class Builder {
 
@@ -56,6 +95,20 @@ public class VstCommunicationAsync extends VstCommunication<CompletableFuture<Re
 		private SSLContext sslContext;
 		private Integer chunksize;
 		private Integer maxConnections;
+		private MetricsListener metricsListener;
+		private Integer maxInFlightRequests;
+		private Integer maxInFlightRequestsPerConnection;
+		private Integer maxQueuedRequests;
+		private OverflowPolicy overflowPolicy;
+		private Integer requestTimeout;
+		private LatencyAwareHostHandler latencyAwareHostHandler;
+		private RequestHedging requestHedging;
+		private CircuitBreaker circuitBreaker;
+		private RetryPolicy retryPolicy;
+		private BufferPool bufferPool;
+		private Executor queueExecutor;
+		private Executor completionExecutor;
+		private HostResolver hostResolver;
 
 		public Builder(final HostHandler hostHandler) {
 			super();
@@ -102,39 +155,863 @@ public class VstCommunicationAsync extends VstCommunication<CompletableFuture<Re
 			return this;
 		}
 
+		public Builder metricsListener(final MetricsListener metricsListener) {
+			this.metricsListener = metricsListener;
+			return this;
+		}
+
+		public Builder maxInFlightRequests(final Integer maxInFlightRequests) {
+			this.maxInFlightRequests = maxInFlightRequests;
+			return this;
+		}
+
+		public Builder maxInFlightRequestsPerConnection(final Integer maxInFlightRequestsPerConnection) {
+			this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+			return this;
+		}
+
+		public Builder maxQueuedRequests(final Integer maxQueuedRequests) {
+			this.maxQueuedRequests = maxQueuedRequests;
+			return this;
+		}
+
+		public Builder overflowPolicy(final OverflowPolicy overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		public Builder requestTimeout(final Integer requestTimeout) {
+			this.requestTimeout = requestTimeout;
+			return this;
+		}
+
+		/**
+		 * @param latencyAwareHostHandler
+		 *            handler of the latency aware load balancing, part of the host handler, to report the latency
+		 *            and the failures of the requests of every host to
+		 */
+		public Builder latencyAwareHostHandler(final LatencyAwareHostHandler latencyAwareHostHandler) {
+			this.latencyAwareHostHandler = latencyAwareHostHandler;
+			return this;
+		}
+
+		/**
+		 * @param requestHedging
+		 *            statistics deciding when the requests of {@link VstCommunicationAsync#executeHedged} are hedged,
+		 *            <code>null</code> to not hedge them
+		 */
+		public Builder requestHedging(final RequestHedging requestHedging) {
+			this.requestHedging = requestHedging;
+			return this;
+		}
+
+		/**
+		 * @param circuitBreaker
+		 *            circuit breakers of the hosts, <code>null</code> to always send the requests to the hosts chosen
+		 *            by the host handler
+		 */
+		public Builder circuitBreaker(final CircuitBreaker circuitBreaker) {
+			this.circuitBreaker = circuitBreaker;
+			return this;
+		}
+
+		/**
+		 * @param retryPolicy
+		 *            policy retrying the requests after transient failures, <code>null</code> to not retry them
+		 */
+		public Builder retryPolicy(final RetryPolicy retryPolicy) {
+			this.retryPolicy = retryPolicy;
+			return this;
+		}
+
+		/**
+		 * @param bufferPool
+		 *            pool the connections take the arrays of the response messages from, <code>null</code> if they
+		 *            allocate them
+		 */
+		public Builder bufferPool(final BufferPool bufferPool) {
+			this.bufferPool = bufferPool;
+			return this;
+		}
+
+		/**
+		 * @param queueExecutor
+		 *            executor starting the requests which waited for the limits of requests in flight and running the
+		 *            scheduled tasks, <code>null</code> for the common pool
+		 */
+		public Builder queueExecutor(final Executor queueExecutor) {
+			this.queueExecutor = queueExecutor;
+			return this;
+		}
+
+		/**
+		 * @param completionExecutor
+		 *            executor failing the requests which timed out, so that their callbacks do not run on the thread of
+		 *            the timer. <code>null</code> for the common pool.
+		 */
+		public Builder completionExecutor(final Executor completionExecutor) {
+			this.completionExecutor = completionExecutor;
+			return this;
+		}
+
+		/**
+		 * @param hostResolver
+		 *            resolver of the hosts of the host handler, the requests moved away from a host are sent to the
+		 *            other hosts it knows. <code>null</code> to leave the choice of the host to the host handler.
+		 */
+		public Builder hostResolver(final HostResolver hostResolver) {
+			this.hostResolver = hostResolver;
+			return this;
+		}
+
 		public VstCommunicationAsync build(final ArangoSerialization util) {
 			return new VstCommunicationAsync(hostHandler, timeout, user, password, useSsl, sslContext, util, chunksize,
-					maxConnections, connectionTtl);
+					maxConnections, connectionTtl, metricsListener, maxInFlightRequests,
+					maxInFlightRequestsPerConnection, maxQueuedRequests, overflowPolicy, requestTimeout,
+					latencyAwareHostHandler, requestHedging, circuitBreaker, retryPolicy, bufferPool,
+					queueExecutor, completionExecutor, hostResolver);
 		}
 	}
 
+	private final HostHandler hostHandler;
+	private final HostResolver hostResolver;
+	// start of the search for another host, so that the requests moved away from a host spread across the others
+	private final AtomicInteger otherHosts = new AtomicInteger();
+	private final MetricsListener metricsListener;
+	private final Integer maxInFlightRequestsPerConnection;
+	private final int maxQueuedRequests;
+	private final OverflowPolicy overflowPolicy;
+	private final long overflowTimeout;
+	private final AtomicInteger queuedRequests = new AtomicInteger();
+	private final RequestLimiter limiter;
+	private final Integer requestTimeout;
+	private final LatencyAwareHostHandler latencyAwareHostHandler;
+	private final RequestHedging requestHedging;
+	private final CircuitBreaker circuitBreaker;
+	private final RetryPolicy retryPolicy;
+	private final BufferPool bufferPool;
+	private final Executor queueExecutor;
+	private final Executor completionExecutor;
+	private volatile HashedWheelTimer timer;
+	private volatile ExecutorService connectExecutor;
+
 	private VstCommunicationAsync(final HostHandler hostHandler, final Integer timeout, final String user,
 		final String password, final Boolean useSsl, final SSLContext sslContext, final ArangoSerialization util,
-		final Integer chunksize, final Integer maxConnections, final Long connectionTtl) {
+		final Integer chunksize, final Integer maxConnections, final Long connectionTtl,
+		final MetricsListener metricsListener, final Integer maxInFlightRequests,
+		final Integer maxInFlightRequestsPerConnection, final Integer maxQueuedRequests,
+		final OverflowPolicy overflowPolicy, final Integer requestTimeout,
+		final LatencyAwareHostHandler latencyAwareHostHandler, final RequestHedging requestHedging,
+		final CircuitBreaker circuitBreaker, final RetryPolicy retryPolicy, final BufferPool bufferPool,
+		final Executor queueExecutor, final Executor completionExecutor, final HostResolver hostResolver) {
 		super(timeout, user, password, useSsl, sslContext, util, chunksize, hostHandler);
+		this.hostHandler = hostHandler;
+		this.hostResolver = hostResolver;
+		this.metricsListener = metricsListener;
+		this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+		this.maxQueuedRequests = maxQueuedRequests != null ? maxQueuedRequests : DEFAULT_MAX_QUEUED_REQUESTS;
+		this.overflowPolicy = overflowPolicy;
+		this.overflowTimeout = timeout != null ? timeout : 0L;
+		this.queueExecutor = queueExecutor != null ? queueExecutor : ForkJoinPool.commonPool();
+		this.completionExecutor = completionExecutor != null ? completionExecutor : ForkJoinPool.commonPool();
+		this.limiter = maxInFlightRequests != null ? createLimiter(maxInFlightRequests, null) : null;
+		this.requestTimeout = requestTimeout;
+		this.latencyAwareHostHandler = latencyAwareHostHandler;
+		this.requestHedging = requestHedging;
+		this.circuitBreaker = circuitBreaker;
+		this.retryPolicy = retryPolicy;
+		this.bufferPool = bufferPool;
+	}
+
+	private RequestLimiter createLimiter(final int maxInFlight, final String connection) {
+		return new RequestLimiter(maxInFlight, maxQueuedRequests, overflowPolicy, overflowTimeout, queueExecutor,
+				overflowPolicy == OverflowPolicy.DELAY && overflowTimeout > 0 ? timer() : null, queuedRequests,
+				metricsListener != null ? queued -> metricsListener.requestsQueued(connection, queued) : null);
+	}
+
+	/**
+	 * @return whether the responses may hold arrays of a buffer pool, which should be released once the responses
+	 *         have been deserialized
+	 */
+	public boolean hasBufferPool() {
+		return bufferPool != null;
+	}
+
+	/**
+	 * Returns the array holding the body of the response to the buffer pool, if it was taken from there. Neither the
+	 * response body nor anything deserialized lazily from it, e.g. a {@link com.arangodb.velocypack.VPackSlice}, may
+	 * be used afterwards.
+	 */
+	public void release(final Response response) {
+		if (response instanceof PooledResponse) {
+			((PooledResponse) response).release();
+		}
+	}
+
+	/**
+	 * @return number of requests waiting for the limit of requests in flight of the client or of a connection
+	 */
+	public int getQueuedRequests() {
+		return queuedRequests.get();
+	}
+
+	@Override
+	public CompletableFuture<Response> execute(final Request request, final HostHandle hostHandle) {
+		return execute(request, hostHandle, null);
+	}
+
+	/**
+	 * @param timeout
+	 *            time in milliseconds after which the returned future fails with a {@link TimeoutException}, including
+	 *            the time the request waits for the limits of requests in flight. <code>null</code> for the default of
+	 *            the client, <code>0</code> for no timeout. It applies to every attempt if the request is retried.
+	 */
+	public CompletableFuture<Response> execute(final Request request, final HostHandle hostHandle,
+		final Integer timeout) {
+		if (retryPolicy == null || retryPolicy.getMaxRetries() < 1
+				|| (hostHandle != null && hostHandle.getHost() != null)
+				|| request.getHeaderParam().containsKey(TRANSACTION_ID)) {
+			return attempt(request, hostHandle, timeout);
+		}
+		return new RetriedRequest(request, hostHandle, timeout).start();
+	}
+
+	private CompletableFuture<Response> attempt(final Request request, final HostHandle hostHandle,
+		final Integer timeout) {
+		final CompletableFuture<Response> response = limiter == null ? send(request, hostHandle)
+				: limiter.execute(() -> send(request, hostHandle));
+		return expire(response, timeout);
+	}
+
+	/**
+	 * Fails the given future with a {@link TimeoutException} once the deadline passed, unless it completed before. The
+	 * future is failed on the completion executor, as its dependent stages would otherwise run on the thread of the
+	 * timer and delay the deadlines of all the other requests.
+	 *
+	 * @param timeout
+	 *            time in milliseconds, <code>null</code> for the default of the client, <code>0</code> for no timeout
+	 * @return the given future
+	 */
+	public <T> CompletableFuture<T> expire(final CompletableFuture<T> future, final Integer timeout) {
+		final Integer deadline = timeout != null ? timeout : requestTimeout;
+		if (deadline == null || deadline <= 0 || future.isDone()) {
+			return future;
+		}
+		final Runnable expire = () -> future.completeExceptionally(new ArangoDBException(
+			new TimeoutException(String.format("Request timed out after %s ms", deadline))));
+		final Timeout expiry = timer().newTimeout(() -> {
+			try {
+				completionExecutor.execute(expire);
+			} catch (final RejectedExecutionException e) {
+				expire.run();
+			}
+		}, deadline, TimeUnit.MILLISECONDS);
+		future.whenComplete((r, e) -> expiry.cancel());
+		return future;
+	}
+
+	/**
+	 * Executes a read-only request which may be sent twice. With hedging enabled, the request is sent once more if no
+	 * response arrived within the configured percentile of the latencies of the same kind of request, to another host
+	 * of the resolver if there is one. The first response wins, and the other request is abandoned or, if it holds
+	 * resources on the server, released once its response arrived. A request failing without response waits for the
+	 * other one.
+	 * <p>
+	 * Requests bound to a host, e.g. the following batches of a cursor, and requests of a stream transaction are never
+	 * hedged.
+	 *
+	 * @param hostHandle
+	 *            set to the host of the winning request
+	 * @param kind
+	 *            kind of the request, whose latencies determine when it is hedged
+	 * @param release
+	 *            releases the resources of a response which lost, e.g. a cursor, sending its request to the given host.
+	 *            <code>null</code> to abandon the request which lost.
+	 */
+	public CompletableFuture<Response> executeHedged(
+		final Request request,
+		final HostHandle hostHandle,
+		final String kind,
+		final BiConsumer<Response, HostHandle> release) {
+		return executeHedged(request, hostHandle, kind, release, null);
+	}
+
+	/**
+	 * @param timeout
+	 *            time in milliseconds after which a request fails with a {@link TimeoutException}, see
+	 *            {@link #execute(Request, HostHandle, Integer)}. It applies to both requests if the request is hedged.
+	 */
+	public CompletableFuture<Response> executeHedged(
+		final Request request,
+		final HostHandle hostHandle,
+		final String kind,
+		final BiConsumer<Response, HostHandle> release,
+		final Integer timeout) {
+		if (requestHedging == null || (hostHandle != null && hostHandle.getHost() != null)
+				|| request.getHeaderParam().containsKey(TRANSACTION_ID)) {
+			return execute(request, hostHandle, timeout);
+		}
+		return new HedgedRequest(request, hostHandle, kind, release, timeout).start();
+	}
+
+	private final class HedgedRequest {
+
+		private final Request request;
+		private final HostHandle hostHandle;
+		private final String kind;
+		private final BiConsumer<Response, HostHandle> release;
+		private final Integer timeout;
+		private final CompletableFuture<Response> result = new CompletableFuture<>();
+		// requests which may still answer, the result fails once none is left
+		private final AtomicInteger pending = new AtomicInteger(1);
+		private final AtomicBoolean decided = new AtomicBoolean();
+		private final long start = System.nanoTime();
+		private volatile CompletableFuture<Response> first;
+		private volatile HostHandle firstHost;
+		private volatile CompletableFuture<Response> second;
+
+		private HedgedRequest(final Request request, final HostHandle hostHandle, final String kind,
+			final BiConsumer<Response, HostHandle> release, final Integer timeout) {
+			this.request = request;
+			this.hostHandle = hostHandle;
+			this.kind = kind;
+			this.release = release;
+			this.timeout = timeout;
+		}
+
+		private CompletableFuture<Response> start() {
+			final long delay = requestHedging.requestStarted(kind);
+			firstHost = new HostHandle();
+			first = execute(request, firstHost, timeout);
+			attempt(first, firstHost);
+			if (delay >= 0 && !result.isDone()) {
+				final Timeout hedge = schedule(this::hedge, delay, TimeUnit.NANOSECONDS);
+				result.whenComplete((r, e) -> hedge.cancel());
+			}
+			result.whenComplete((r, e) -> {
+				// cancelled or failed by the caller
+				if (e != null && decided.compareAndSet(false, true)) {
+					abandon(first);
+					abandon(second);
+				}
+			});
+			return result;
+		}
+
+		private void hedge() {
+			int current;
+			do {
+				current = pending.get();
+				if (current == 0 || decided.get()) {
+					return;
+				}
+			} while (!pending.compareAndSet(current, current + 1));
+			if (!requestHedging.tryHedge()) {
+				pending.decrementAndGet();
+				return;
+			}
+			final HostHandle secondHost = otherHost(firstHost);
+			final CompletableFuture<Response> sent;
+			try {
+				sent = execute(request, secondHost, timeout);
+			} catch (final RuntimeException e) {
+				failed(e);
+				return;
+			}
+			second = sent;
+			if (decided.get()) {
+				abandon(sent);
+			}
+			attempt(sent, secondHost);
+		}
+
+		private void attempt(final CompletableFuture<Response> attempt, final HostHandle host) {
+			attempt.whenComplete((response, e) -> {
+				if (e != null && !isReply(e)) {
+					failed(e);
+				} else if (decided.compareAndSet(false, true)) {
+					requestHedging.requestCompleted(kind, System.nanoTime() - start);
+					if (hostHandle != null) {
+						hostHandle.setHost(host.getHost());
+					}
+					abandon(attempt == first ? second : first);
+					if (e != null) {
+						result.completeExceptionally(e);
+					} else {
+						result.complete(response);
+					}
+				} else if (response != null && release != null) {
+					release.accept(response, host);
+				}
+			});
+		}
+
+		private void failed(final Throwable e) {
+			if (pending.decrementAndGet() == 0 && decided.compareAndSet(false, true)) {
+				result.completeExceptionally(e);
+			}
+		}
+
+		/**
+		 * Abandons the given request, unless its resources have to be released once it completed
+		 */
+		private void abandon(final CompletableFuture<Response> attempt) {
+			if (attempt != null && release == null) {
+				attempt.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * @return whether the request failed with a response of the server
+	 */
+	private static boolean isReply(final Throwable e) {
+		final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		return cause instanceof ArangoDBException && ((ArangoDBException) cause).getResponseCode() != null;
+	}
+
+	/**
+	 * Retries a request after transient failures as decided by the {@link RetryPolicy}, on another host if possible.
+	 * Requests bound to a host, e.g. the following batches of a cursor, and requests of a stream transaction are never
+	 * retried.
+	 */
+	private final class RetriedRequest {
+
+		private final Request request;
+		private final HostHandle hostHandle;
+		private final Integer timeout;
+		private final CompletableFuture<Response> result = new CompletableFuture<>();
+		private volatile CompletableFuture<Response> current;
+		private volatile Timeout backoff;
+		private int retries;
+		private long delay;
+
+		private RetriedRequest(final Request request, final HostHandle hostHandle, final Integer timeout) {
+			this.request = request;
+			this.hostHandle = hostHandle;
+			this.timeout = timeout;
+		}
+
+		private CompletableFuture<Response> start() {
+			retryPolicy.requestStarted();
+			final HostHandle host = hostHandle != null ? hostHandle : new HostHandle();
+			send(host, attempt(request, host, timeout));
+			result.whenComplete((r, e) -> {
+				// cancelled or failed by the caller
+				if (e != null) {
+					final Timeout pending = backoff;
+					if (pending != null) {
+						pending.cancel();
+					}
+					current.completeExceptionally(e);
+				}
+			});
+			return result;
+		}
+
+		private void send(final HostHandle host, final CompletableFuture<Response> attempt) {
+			current = attempt;
+			attempt.whenComplete((response, e) -> {
+				if (e == null) {
+					if (hostHandle != null && host != hostHandle) {
+						hostHandle.setHost(host.getHost());
+					}
+					result.complete(response);
+				} else if (result.isDone() || !retryPolicy.shouldRetry(request, e, retries)) {
+					result.completeExceptionally(e);
+				} else {
+					retries++;
+					delay = retryPolicy.nextDelay(delay);
+					LOGGER.debug(String.format("Retrying %s %s after %s ms: %s", request.getRequestType(),
+						request.getRequest(), delay, e.getMessage()));
+					backoff = schedule(() -> retry(otherHost(host)), delay, TimeUnit.MILLISECONDS);
+				}
+			});
+		}
+
+		private void retry(final HostHandle host) {
+			if (result.isDone()) {
+				return;
+			}
+			final CompletableFuture<Response> attempt;
+			try {
+				attempt = attempt(request, host, timeout);
+			} catch (final RuntimeException e) {
+				result.completeExceptionally(e);
+				return;
+			}
+			send(host, attempt);
+			if (result.isCompletedExceptionally()) {
+				attempt.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Runs the task after the given delay, on the timer shared by all the connections. It runs outside of the thread of
+	 * the timer, see {@link #runAsync(Runnable)}, as sending a request may block, e.g. on a socket write.
+	 */
+	public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+		return timer().newTimeout(() -> runAsync(task), delay, unit);
+	}
+
+	/**
+	 * Runs the task on the executor starting the queued requests, i.e. the outgoing or the completion executor of the
+	 * client, the common pool only if none is configured. The task runs in the calling thread if the executor rejects
+	 * it.
+	 */
+	public void runAsync(final Runnable task) {
+		try {
+			queueExecutor.execute(task);
+		} catch (final RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	/**
+	 * @return handle bound to another host than the one of the given handle, see {@link #otherHost(HostDescription)},
+	 *         or a handle leaving the choice to the host handler if there is no other host
+	 */
+	private HostHandle otherHost(final HostHandle hostHandle) {
+		final HostHandle other = new HostHandle();
+		if (hostHandle.getHost() == null) {
+			return other;
+		}
+		final Host host = otherHost(hostHandle.getHost());
+		if (host != null) {
+			other.setHost(host.getDescription());
+		}
+		return other;
+	}
+
+	/**
+	 * Sends the request right away if the connection of the selected host is ready, otherwise once its handshake
+	 * completed. Opening and authenticating a connection never blocks the calling thread.
+	 * <p>
+	 * A host whose circuit breaker is open is skipped in favor of another host of the resolver whose circuit breaker
+	 * admits the request. A request bound to such a host, or finding no other host, fails immediately.
+	 */
+	private CompletableFuture<Response> send(final Request request, final HostHandle hostHandle) {
+		final AccessType accessType = RequestUtils.determineAccessType(request);
+		final boolean bound = hostHandle != null && hostHandle.getHost() != null;
+		Host host;
+		Permit permit = null;
+		synchronized (this) {
+			host = host(hostHandle, accessType);
+			if (host == null) {
+				hostHandler.reset();
+			}
+		}
+		if (host == null) {
+			throw new ArangoDBException("Was not able to connect to any host");
+		}
+		if (circuitBreaker != null) {
+			permit = circuitBreaker.acquire(host.getDescription());
+			if (permit == Permit.REJECTED && !bound) {
+				final HostDescription rejected = host.getDescription();
+				for (int i = 0; i < circuitBreaker.size() && permit == Permit.REJECTED; i++) {
+					final Host other = otherHost(rejected);
+					if (other == null) {
+						break;
+					}
+					permit = circuitBreaker.acquire(other.getDescription());
+					if (permit != Permit.REJECTED) {
+						host = other;
+						if (hostHandle != null) {
+							hostHandle.setHost(other.getDescription());
+						}
+					}
+				}
+			}
+			if (permit == Permit.REJECTED) {
+				throw new ArangoDBException(String.format("The circuit breaker of %s is open", host.getDescription()));
+			}
+		}
+		return send(request, hostHandle, accessType, host, permit);
+	}
+
+	/**
+	 * @return the host the handle is bound to, if the resolver knows it, otherwise the host chosen by the host handler,
+	 *         which the handle is bound to afterwards
+	 */
+	private Host host(final HostHandle hostHandle, final AccessType accessType) {
+		final HostDescription bound = hostHandle != null ? hostHandle.getHost() : null;
+		if (bound != null && hostResolver != null) {
+			for (final Host host : hostResolver.resolve(false, false).getHostsList()) {
+				if (bound.equals(host.getDescription())) {
+					return host;
+				}
+			}
+		}
+		final Host host = hostHandler.get(hostHandle, accessType);
+		if (host != null && hostHandle != null && hostHandle.getHost() == null) {
+			hostHandle.setHost(host.getDescription());
+		}
+		return host;
+	}
+
+	/**
+	 * Chooses another host than the given one among the hosts of the resolver, skipping the hosts whose circuit
+	 * breaker is open. The host handlers of the driver keep returning their current host until it failed to connect,
+	 * so they can not be asked for another one.
+	 *
+	 * @return <code>null</code> if there is no other host
+	 */
+	private Host otherHost(final HostDescription excluded) {
+		if (hostResolver == null) {
+			return null;
+		}
+		final List<Host> hosts = hostResolver.resolve(false, false).getHostsList();
+		final int size = hosts.size();
+		final int start = size > 0 ? Math.floorMod(otherHosts.getAndIncrement(), size) : 0;
+		for (int i = 0; i < size; i++) {
+			final Host host = hosts.get((start + i) % size);
+			if (!host.getDescription().equals(excluded) && (circuitBreaker == null
+					|| circuitBreaker.getState(host.getDescription()) != CircuitBreakerState.OPEN)) {
+				return host;
+			}
+		}
+		return null;
+	}
+
+	private CompletableFuture<Response> send(
+		final Request request,
+		final HostHandle hostHandle,
+		final AccessType accessType,
+		final Host host,
+		final Permit permit) {
+		final VstConnectionAsync connection = (VstConnectionAsync) host.connection();
+		final AtomicInteger outstanding = connection.outstanding();
+		outstanding.incrementAndGet();
+		final long start = latencyAwareHostHandler != null ? System.nanoTime() : 0L;
+		if (latencyAwareHostHandler != null) {
+			latencyAwareHostHandler.requestSent(host.getDescription());
+		}
+		final boolean ready = connection.isReady();
+		final CompletableFuture<Response> response;
+		try {
+			response = ready ? execute(request, connection)
+					: afterHandshake(request, host, connection, hostHandle, accessType);
+		} catch (final RuntimeException e) {
+			// rejected by the client, e.g. by a full queue of the limiter
+			outstanding.decrementAndGet();
+			if (latencyAwareHostHandler != null) {
+				latencyAwareHostHandler.requestCancelled(host.getDescription());
+			}
+			if (circuitBreaker != null) {
+				circuitBreaker.requestCancelled(host.getDescription(), permit);
+			}
+			throw e;
+		}
+		response.whenComplete((r, e) -> {
+			outstanding.decrementAndGet();
+			if (circuitBreaker != null) {
+				circuitBreaker.requestCompleted(host.getDescription(), permit, e);
+			}
+			if (latencyAwareHostHandler == null) {
+				return;
+			}
+			if (ready || e != null) {
+				latencyAwareHostHandler.requestCompleted(host.getDescription(), System.nanoTime() - start, e);
+			} else {
+				// the time to open and authenticate the connection is no latency of the host
+				latencyAwareHostHandler.requestCancelled(host.getDescription());
+			}
+		});
+		return response;
+	}
+
+	private CompletableFuture<Response> afterHandshake(
+		final Request request,
+		final Host host,
+		final VstConnectionAsync connection,
+		final HostHandle hostHandle,
+		final AccessType accessType) {
+		final CompletableFuture<Response> response = new CompletableFuture<>();
+		connection.handshake(handshake -> handshake(handshake, host, connection, hostHandle, accessType))
+				.whenDone((established, ex) -> {
+					if (ex != null) {
+						response.completeExceptionally(ex);
+						return;
+					}
+					// cancelled or timed out while waiting for the handshake
+					if (response.isDone()) {
+						return;
+					}
+					final CompletableFuture<Response> sent = execute(request, established);
+					sent.whenComplete((r, e) -> {
+						if (e != null) {
+							response.completeExceptionally(e);
+						} else {
+							response.complete(r);
+						}
+					});
+					response.whenComplete((r, e) -> {
+						if (e != null) {
+							sent.completeExceptionally(e);
+						}
+					});
+				});
+		return response;
+	}
+
+	private VstHandshake connect(final Host host, final HostHandle hostHandle, final AccessType accessType) {
+		final VstConnectionAsync connection = (VstConnectionAsync) host.connection();
+		return connection.handshake(handshake -> handshake(handshake, host, connection, hostHandle, accessType));
+	}
+
+	/**
+	 * Opens and authenticates the connection, failing over to the next host like
+	 * {@link #connect(HostHandle, AccessType)} if the connection can not be opened.
+	 */
+	private void handshake(
+		final VstHandshake handshake,
+		final Host host,
+		final VstConnectionAsync connection,
+		final HostHandle hostHandle,
+		final AccessType accessType) {
+		connection.openAsync(connectExecutor(), timer()).thenCompose(v -> {
+			synchronized (this) {
+				hostHandler.success();
+			}
+			return user != null ? authenticateAsync(connection) : CompletableFuture.<Void> completedFuture(null);
+		}).whenComplete((v, ex) -> {
+			if (ex == null) {
+				synchronized (this) {
+					hostHandler.confirm();
+				}
+				handshake.complete(connection, null);
+				return;
+			}
+			final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+			if (!(cause instanceof IOException)) {
+				handshake.complete(null, cause);
+				return;
+			}
+			final Host next;
+			synchronized (this) {
+				hostHandler.fail();
+				if (hostHandle != null && hostHandle.getHost() != null) {
+					hostHandle.setHost(null);
+				}
+				next = host(hostHandle, accessType);
+			}
+			if (next == null) {
+				LOGGER.error(cause.getMessage(), cause);
+				handshake.complete(null, new ArangoDBException(cause));
+				return;
+			}
+			LOGGER.warn(String.format("Could not connect to %s or SSL Handshake failed. Try connecting to %s",
+				host.getDescription(), next.getDescription()));
+			connect(next, hostHandle, accessType).whenDone(handshake::complete);
+		});
+	}
+
+	private CompletableFuture<Void> authenticateAsync(final VstConnectionAsync connection) {
+		return doExecute(new AuthenticationRequest(user, password != null ? password : "", ENCRYPTION_PLAIN),
+			connection).thenAccept(this::checkError);
+	}
+
+	private ExecutorService connectExecutor() {
+		ExecutorService current = connectExecutor;
+		if (current == null) {
+			synchronized (queuedRequests) {
+				current = connectExecutor;
+				if (current == null) {
+					current = Executors.newCachedThreadPool(runnable -> {
+						final Thread thread = new Thread(runnable, "arangodb-vst-connect");
+						thread.setDaemon(true);
+						return thread;
+					});
+					connectExecutor = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private HashedWheelTimer timer() {
+		HashedWheelTimer current = timer;
+		if (current == null) {
+			synchronized (queuedRequests) {
+				current = timer;
+				if (current == null) {
+					current = new HashedWheelTimer("arangodb-request-timer", TIMER_TICK, TimeUnit.MILLISECONDS,
+							TIMER_WHEEL_SIZE);
+					timer = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	@Override
+	public void close() throws IOException {
+		final HashedWheelTimer current = timer;
+		if (current != null) {
+			current.stop();
+		}
+		final ExecutorService executor = connectExecutor;
+		if (executor != null) {
+			executor.shutdown();
+		}
+		super.close();
 	}
 
 	@Override
 	protected CompletableFuture<Response> execute(final Request request, final VstConnectionAsync connection) {
-		final CompletableFuture<Response> rfuture = new CompletableFuture<>();
+		if (maxInFlightRequestsPerConnection == null) {
+			return doExecute(request, connection);
+		}
+		return connection.limiter(() -> createLimiter(maxInFlightRequestsPerConnection, connection.getConnectionName()))
+				.execute(() -> doExecute(request, connection));
+	}
+
+	private CompletableFuture<Response> doExecute(final Request request, final VstConnectionAsync connection) {
+		final VstResponseFuture rfuture = new VstResponseFuture();
 		try {
 			final Message message = createMessage(request);
-			send(message, connection).whenComplete((m, ex) -> {
+			final Collection<Chunk> chunks = buildChunks(message);
+			if (metricsListener != null) {
+				requestSent(connection, chunks);
+			}
+			final CompletableFuture<Message> sent = send(message, chunks, connection);
+			// a request failed before its response, e.g. by a timeout, no longer waits for it
+			rfuture.whenComplete((r, e) -> {
+				if (!sent.isDone()) {
+					connection.abandon(message.getId());
+					sent.completeExceptionally(e != null ? e : new CancellationException());
+				}
+			});
+			sent.whenComplete((m, ex) -> {
+				if (metricsListener != null) {
+					responseReceived(connection, sent, m, rfuture);
+				}
+				if (rfuture.isDone()) {
+					release(m);
+					return;
+				}
 				if (m != null) {
 					try {
 						final Response response = createResponse(m);
 						if (response.getResponseCode() >= 300) {
 							if (response.getBody() != null) {
 								final ErrorEntity errorEntity = util.deserialize(response.getBody(), ErrorEntity.class);
+								release(m);
 								rfuture.completeExceptionally(new ArangoDBException(errorEntity));
 							} else {
+								release(m);
 								rfuture.completeExceptionally(new ArangoDBException(
 										String.format("Response Code: %s", response.getResponseCode()), response.getResponseCode()));
 							}
 						} else {
+							if (response.getBody() == null) {
+								release(m);
+							}
 							rfuture.complete(response);
 						}
 					} catch (final VPackParserException e) {
+						release(m);
 						LOGGER.error(e.getMessage(), e);
 						rfuture.completeExceptionally(e);
 					}
@@ -152,24 +1029,68 @@ public class VstCommunicationAsync extends VstCommunication<CompletableFuture<Re
 		return rfuture;
 	}
 
-	private CompletableFuture<Message> send(final Message message, final VstConnectionAsync connection) {
+	/**
+	 * The head of a pooled message is deserialized right away, only its body stays in the pooled array.
+	 */
+	@Override
+	protected Response createResponse(final Message message) throws VPackParserException {
+		final Response response = super.createResponse(message);
+		return message instanceof PooledMessage ? new PooledResponse(response, (PooledMessage) message) : response;
+	}
+
+	private static void release(final Message message) {
+		if (message instanceof PooledMessage) {
+			((PooledMessage) message).release();
+		}
+	}
+
+	private CompletableFuture<Message> send(
+		final Message message,
+		final Collection<Chunk> chunks,
+		final VstConnectionAsync connection) {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug(String.format("Send Message (id=%s, head=%s, body=%s)", message.getId(), message.getHead(),
 				message.getBody() != null ? message.getBody() : "{}"));
 		}
-		return connection.write(message, buildChunks(message));
+		return connection.write(message, chunks);
+	}
+
+	private void requestSent(final VstConnectionAsync connection, final Collection<Chunk> chunks) {
+		long bytes = 0;
+		for (final Chunk chunk : chunks) {
+			bytes += chunk.getContentLength() + (chunk.getMessageLength() > -1L ? ArangoDefaults.CHUNK_MAX_HEADER_SIZE
+					: ArangoDefaults.CHUNK_MIN_HEADER_SIZE);
+		}
+		metricsListener.requestSent(connection.getConnectionName(), connection.inFlight().incrementAndGet(),
+			chunks.size(), bytes);
+	}
+
+	private void responseReceived(
+		final VstConnectionAsync connection,
+		final CompletableFuture<Message> sent,
+		final Message message,
+		final VstResponseFuture rfuture) {
+		final long received = System.nanoTime();
+		rfuture.timestamps(sent instanceof VstMessageFuture ? ((VstMessageFuture) sent).writtenNanos : 0L, received);
+		long bytes = 0;
+		if (message != null) {
+			bytes = message.getHead().getByteSize() + (message.getBody() != null ? message.getBody().getByteSize() : 0);
+		}
+		metricsListener.responseReceived(connection.getConnectionName(), connection.inFlight().decrementAndGet(),
+			bytes);
 	}
 
+	/**
+	 * only used by {@link #connect(HostHandle, AccessType)} of the base class, requests are sent through
+	 * {@link #send(Request, HostHandle)} which authenticates without blocking
+	 */
 	@Override
 	protected void authenticate(final VstConnectionAsync connection) {
-		Response response;
 		try {
-			response = execute(new AuthenticationRequest(user, password != null ? password : "", ENCRYPTION_PLAIN),
-				connection).get();
+			authenticateAsync(connection).get();
 		} catch (final InterruptedException | ExecutionException e) {
 			throw new ArangoDBException(e);
 		}
-		checkError(response);
 	}
 
 }
@@ -20,13 +20,19 @@
 
 package com.arangodb.internal.velocystream;
 
+import java.io.IOException;
 import java.util.Collection;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.net.ssl.SSLContext;
 
+import com.arangodb.internal.HashedWheelTimer;
+import com.arangodb.internal.RequestLimiter;
 import com.arangodb.internal.net.HostDescription;
 import com.arangodb.internal.velocystream.internal.Chunk;
 import com.arangodb.internal.velocystream.internal.Message;
@@ -34,10 +40,17 @@ import com.arangodb.internal.velocystream.internal.MessageStore;
 import com.arangodb.internal.velocystream.internal.VstConnection;
 
 /**
+ * State shared by the VST connections of the async driver: the limiter and the handshake of the connection, the
+ * counters of its requests and the pool of the buffers its responses are reassembled in. The transports only
+ * implement opening, closing and writing, {@link VstConnectionBlocking} with a socket and a reader thread,
+ * {@link VstConnectionNio} with a non-blocking channel served by an event loop.
+ * 
  * @author Mark Vollmary
  *
  */
-public class VstConnectionAsync extends VstConnection {
+public abstract class VstConnectionAsync extends VstConnection {
+
+	protected static final byte[] PROTOCOL_HEADER = "VST/1.0\r\n\r\n".getBytes();
 
 	public static class Builder {
 
@@ -47,6 +60,14 @@ public class VstConnectionAsync extends VstConnection {
 		private Long ttl;
 		private Boolean useSsl;
 		private SSLContext sslContext;
+		private Executor writeExecutor;
+		private Boolean writeCoalescing;
+		private Integer writeCoalescingBufferSize;
+		private Long writeCoalescingLinger;
+		private WriteStatisticsCollector writeStatistics;
+		private VstEventLoopGroup eventLoopGroup;
+		private Boolean recordWriteTime;
+		private BufferPool bufferPool;
 
 		public Builder() {
 			super();
@@ -82,32 +103,212 @@ public class VstConnectionAsync extends VstConnection {
 			return this;
 		}
 
+		public Builder writeExecutor(final Executor writeExecutor) {
+			this.writeExecutor = writeExecutor;
+			return this;
+		}
+
+		public Builder writeCoalescing(final Boolean writeCoalescing) {
+			this.writeCoalescing = writeCoalescing;
+			return this;
+		}
+
+		public Builder writeCoalescingBufferSize(final Integer writeCoalescingBufferSize) {
+			this.writeCoalescingBufferSize = writeCoalescingBufferSize;
+			return this;
+		}
+
+		public Builder writeCoalescingLinger(final Long writeCoalescingLinger) {
+			this.writeCoalescingLinger = writeCoalescingLinger;
+			return this;
+		}
+
+		public Builder writeStatistics(final WriteStatisticsCollector writeStatistics) {
+			this.writeStatistics = writeStatistics;
+			return this;
+		}
+
+		public Builder eventLoopGroup(final VstEventLoopGroup eventLoopGroup) {
+			this.eventLoopGroup = eventLoopGroup;
+			return this;
+		}
+
+		public Builder recordWriteTime(final Boolean recordWriteTime) {
+			this.recordWriteTime = recordWriteTime;
+			return this;
+		}
+
+		public Builder bufferPool(final BufferPool bufferPool) {
+			this.bufferPool = bufferPool;
+			return this;
+		}
+
 		public VstConnectionAsync build() {
-			return new VstConnectionAsync(host, timeout, ttl, useSsl, sslContext, messageStore);
+			if (eventLoopGroup != null) {
+				return new VstConnectionNio(eventLoopGroup.next(), host, timeout, ttl, useSsl, sslContext, messageStore,
+						writeStatistics != null ? writeStatistics : new WriteStatisticsCollector(),
+						Boolean.TRUE == recordWriteTime, bufferPool);
+			}
+			return new VstConnectionBlocking(host, timeout, ttl, useSsl, sslContext, messageStore, writeExecutor,
+					Boolean.TRUE == writeCoalescing, writeCoalescingBufferSize, writeCoalescingLinger,
+					writeStatistics != null ? writeStatistics : new WriteStatisticsCollector(),
+					Boolean.TRUE == recordWriteTime, bufferPool);
 		}
 	}
 
-	private VstConnectionAsync(final HostDescription host, final Integer timeout, final Long ttl, final Boolean useSsl,
-		final SSLContext sslContext, final MessageStore messageStore) {
+	protected final HostDescription host;
+	protected final Long ttl;
+	protected final Boolean useSsl;
+	protected final SSLContext sslContext;
+	protected final WriteStatisticsCollector writeStatistics;
+	protected final boolean recordWriteTime;
+	protected final BufferPool bufferPool;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger outstanding = new AtomicInteger();
+	private volatile RequestLimiter limiter;
+	private final Object handshakeLock = new Object();
+	private volatile VstHandshake handshake;
+
+	protected VstConnectionAsync(final HostDescription host, final Integer timeout, final Long ttl,
+		final Boolean useSsl, final SSLContext sslContext, final MessageStore messageStore,
+		final WriteStatisticsCollector writeStatistics, final boolean recordWriteTime, final BufferPool bufferPool) {
 		super(host, timeout, ttl, useSsl, sslContext, messageStore);
+		this.host = host;
+		this.ttl = ttl;
+		this.useSsl = useSsl;
+		this.sslContext = sslContext;
+		this.writeStatistics = writeStatistics;
+		this.recordWriteTime = recordWriteTime;
+		this.bufferPool = bufferPool;
 	}
 
-	public synchronized CompletableFuture<Message> write(final Message message, final Collection<Chunk> chunks) {
-		final CompletableFuture<Message> future = new CompletableFuture<>();
-		final FutureTask<Message> task = new FutureTask<>(new Callable<Message>() {
-			@Override
-			public Message call() throws Exception {
-				try {
-					future.complete(messageStore.get(message.getId()));
-				} catch (final Exception e) {
-					future.completeExceptionally(e);
+	/**
+	 * @return array of at least the given length to reassemble a response message in, taken from the buffer pool if
+	 *         one is configured
+	 */
+	byte[] allocate(final int length) {
+		return bufferPool != null ? bufferPool.acquire(length) : new byte[length];
+	}
+
+	/**
+	 * @return the response message held by the first <code>length</code> bytes of the array
+	 */
+	Message createMessage(final long messageId, final byte[] buffer, final int length) {
+		return bufferPool != null ? new PooledMessage(messageId, buffer, length, bufferPool)
+				: new Message(messageId, buffer);
+	}
+
+	/**
+	 * @return number of requests waiting for a response, maintained by the communication when metrics are enabled
+	 */
+	AtomicInteger inFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return number of requests assigned to this connection and not yet completed, including the requests waiting
+	 *         for the handshake or for the limiter of the connection
+	 */
+	AtomicInteger outstanding() {
+		return outstanding;
+	}
+
+	/**
+	 * @return limiter of the requests in flight on this connection, created by the given factory on first use
+	 */
+	RequestLimiter limiter(final Supplier<RequestLimiter> factory) {
+		RequestLimiter current = limiter;
+		if (current == null) {
+			synchronized (inFlight) {
+				current = limiter;
+				if (current == null) {
+					current = factory.get();
+					limiter = current;
 				}
-				return null;
 			}
-		});
-		messageStore.storeMessage(message.getId(), task);
-		super.writeIntern(message, chunks);
-		return future;
+		}
+		return current;
+	}
+
+	/**
+	 * Forgets the request with the given message id, e.g. after it timed out. A response received later is dropped.
+	 */
+	void abandon(final long messageId) {
+		if (messageStore instanceof VstMessageStore) {
+			((VstMessageStore) messageStore).remove(messageId);
+		} else {
+			messageStore.cancel(messageId);
+		}
+	}
+
+	/**
+	 * @return whether the connection is open and its handshake succeeded, so that requests can be sent right away
+	 */
+	boolean isReady() {
+		final VstHandshake current = handshake;
+		return current != null && current.isEstablished(this) && isOpen();
 	}
 
+	/**
+	 * @param start
+	 *            opens and authenticates the connection, invoked with a new handshake unless one is in progress or the
+	 *            connection is ready
+	 * @return the handshake in progress, or the one which established the open connection
+	 */
+	VstHandshake handshake(final Consumer<VstHandshake> start) {
+		final VstHandshake created;
+		synchronized (handshakeLock) {
+			final VstHandshake current = handshake;
+			if (current != null && (!current.isDone() || current.isEstablished(this) && isOpen())) {
+				return current;
+			}
+			created = new VstHandshake();
+			handshake = created;
+		}
+		try {
+			start.accept(created);
+		} catch (final RuntimeException e) {
+			created.complete(null, e);
+		}
+		return created;
+	}
+
+	/**
+	 * Opens the connection without blocking the calling thread.
+	 * 
+	 * @param executor
+	 *            runs the blocking {@link #open()}
+	 * @param timer
+	 *            timer for the connect timeout of transports which do not block
+	 * @return future completed once the connection is open
+	 */
+	CompletableFuture<Void> openAsync(final Executor executor, final HashedWheelTimer timer) {
+		if (isOpen()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return CompletableFuture.runAsync(() -> {
+			try {
+				open();
+			} catch (final IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	@Override
+	public abstract boolean isOpen();
+
+	@Override
+	public abstract void open() throws IOException;
+
+	@Override
+	public abstract void close();
+
+	/**
+	 * Sends the message without blocking the calling thread.
+	 * 
+	 * @return future completed with the response to the message
+	 */
+	public abstract CompletableFuture<Message> write(final Message message, final Collection<Chunk> chunks);
+
 }
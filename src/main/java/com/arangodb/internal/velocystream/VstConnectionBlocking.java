@@ -0,0 +1,491 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.ArangoDefaults;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.velocystream.internal.Chunk;
+import com.arangodb.internal.velocystream.internal.Message;
+import com.arangodb.internal.velocystream.internal.MessageStore;
+import com.arangodb.velocypack.VPackSlice;
+
+/**
+ * VST connection writing to a blocking socket, whose responses are read by a thread of the connection.
+ * 
+ * @author Mark Vollmary
+ *
+ */
+public class VstConnectionBlocking extends VstConnectionAsync {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VstConnectionBlocking.class);
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Executor writeExecutor;
+	private final boolean writeCoalescing;
+	private final int bufferSize;
+	private final long lingerNanos;
+
+	private final Queue<PendingWrite> sendQueue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger sendWip = new AtomicInteger();
+	// only accessed by the current writer, handed over through sendWip
+	private final List<PendingWrite> batch = new ArrayList<>();
+	private final ByteBuffer chunkHead = ByteBuffer.allocate(ArangoDefaults.CHUNK_MAX_HEADER_SIZE)
+			.order(ByteOrder.LITTLE_ENDIAN);
+	// only accessed by the thread reading the socket
+	private final ByteBuffer chunkHeadIn = ByteBuffer.allocate(ArangoDefaults.CHUNK_MAX_HEADER_SIZE)
+			.order(ByteOrder.LITTLE_ENDIAN);
+
+	private Socket socket;
+	private volatile OutputStream outputStream;
+	private InputStream inputStream;
+	private ExecutorService executor;
+	// drains the send queue unless a write executor is configured
+	private volatile ExecutorService writer;
+
+	VstConnectionBlocking(final HostDescription host, final Integer timeout, final Long ttl, final Boolean useSsl,
+		final SSLContext sslContext, final MessageStore messageStore, final Executor writeExecutor,
+		final boolean writeCoalescing, final Integer writeCoalescingBufferSize, final Long writeCoalescingLinger,
+		final WriteStatisticsCollector writeStatistics, final boolean recordWriteTime, final BufferPool bufferPool) {
+		super(host, timeout, ttl, useSsl, sslContext, messageStore, writeStatistics, recordWriteTime, bufferPool);
+		this.writeExecutor = writeExecutor;
+		this.writeCoalescing = writeCoalescing;
+		this.bufferSize = writeCoalescing && writeCoalescingBufferSize != null
+				? Math.max(writeCoalescingBufferSize, ArangoDefaults.CHUNK_MAX_HEADER_SIZE)
+				: DEFAULT_BUFFER_SIZE;
+		this.lingerNanos = writeCoalescing && writeCoalescingLinger != null
+				? TimeUnit.MICROSECONDS.toNanos(writeCoalescingLinger)
+				: 0L;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return socket != null && socket.isConnected() && !socket.isClosed();
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		if (isOpen()) {
+			return;
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("Open connection to %s", host));
+		}
+		if (Boolean.TRUE == useSsl) {
+			socket = sslContext != null ? sslContext.getSocketFactory().createSocket()
+					: SSLSocketFactory.getDefault().createSocket();
+		} else {
+			socket = SocketFactory.getDefault().createSocket();
+		}
+		socket.connect(new InetSocketAddress(host.getHost(), host.getPort()),
+			timeout != null ? timeout : ArangoDefaults.DEFAULT_TIMEOUT);
+		socket.setKeepAlive(true);
+		socket.setTcpNoDelay(true);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("Connected to %s", socket));
+		}
+		inputStream = socket.getInputStream();
+		if (Boolean.TRUE == useSsl) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(String.format("Start Handshake on %s", socket));
+			}
+			((SSLSocket) socket).startHandshake();
+		}
+		final OutputStream out = new BufferedOutputStream(new CountingOutputStream(socket.getOutputStream()),
+				bufferSize);
+		out.write(PROTOCOL_HEADER);
+		out.flush();
+		outputStream = out;
+		if (writeExecutor == null) {
+			writer = Executors.newSingleThreadExecutor();
+		}
+		executor = Executors.newSingleThreadExecutor();
+		final Socket readSocket = socket;
+		executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				read(readSocket);
+				return null;
+			}
+		});
+	}
+
+	private void read(final Socket readSocket) {
+		LOGGER.debug("Start Callable for " + getConnectionName());
+		final Long ttlTime = ttl != null ? System.currentTimeMillis() + ttl : null;
+		final Map<Long, ByteBuffer> messages = new HashMap<>();
+		while (true) {
+			if (ttlTime != null && System.currentTimeMillis() > ttlTime && messageStore.isEmpty()) {
+				closed(readSocket, null);
+				break;
+			}
+			if (!isOpen()) {
+				closed(readSocket, new IOException("The socket is closed."));
+				break;
+			}
+			try {
+				readContent(readChunk(), messages);
+			} catch (final Exception e) {
+				closed(readSocket, e);
+				break;
+			}
+		}
+		LOGGER.debug("Stop Callable for " + getConnectionName());
+	}
+
+	/**
+	 * Reads the content of the chunk straight into the buffer of its message and hands the message over to the
+	 * message store as soon as it is complete.
+	 */
+	private void readContent(final Chunk chunk, final Map<Long, ByteBuffer> messages) throws IOException {
+		final long messageId = chunk.getMessageId();
+		final int contentLength = chunk.getContentLength();
+		ByteBuffer message = messages.get(messageId);
+		if (message == null) {
+			if (!chunk.isFirstChunk()) {
+				messageStore.cancel(messageId);
+				readBytesIntoBuffer(new byte[contentLength], 0, contentLength);
+				return;
+			}
+			final int length = (int) (chunk.getMessageLength() > 0 ? chunk.getMessageLength() : contentLength);
+			message = ByteBuffer.wrap(allocate(length), 0, length);
+			messages.put(messageId, message);
+		}
+		final int position = message.position();
+		readBytesIntoBuffer(message.array(), position, contentLength);
+		((Buffer) message).position(position + contentLength);
+		if (!message.hasRemaining()) {
+			messages.remove(messageId);
+			messageStore.consume(createMessage(messageId, message.array(), message.limit()));
+		}
+	}
+
+	/**
+	 * Closes the socket read by the calling thread, unless the connection has been reopened meanwhile, and fails the
+	 * pending messages. The lock keeps the connection from being reopened before the messages of the closed socket
+	 * have been failed, and new requests see the connection closed before any of them completes.
+	 */
+	private synchronized void closed(final Socket readSocket, final Exception e) {
+		if (socket != readSocket) {
+			return;
+		}
+		closeSocket();
+		if (e != null) {
+			messageStore.clear(e);
+		} else {
+			messageStore.clear();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		messageStore.clear();
+		closeSocket();
+	}
+
+	private void closeSocket() {
+		if (executor != null && !executor.isShutdown()) {
+			executor.shutdown();
+		}
+		final ExecutorService currentWriter = writer;
+		if (currentWriter != null) {
+			// queued drains still run and fail their messages on the closed socket
+			currentWriter.shutdown();
+		}
+		if (socket != null && !socket.isClosed()) {
+			try {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(String.format("Close connection %s", socket));
+				}
+				socket.close();
+			} catch (final IOException e) {
+				throw new ArangoDBException(e);
+			}
+		}
+	}
+
+	@Override
+	protected Chunk readChunk() throws IOException {
+		final ByteBuffer chunkHeadBuffer = readBytes(ArangoDefaults.CHUNK_MIN_HEADER_SIZE);
+		final int length = chunkHeadBuffer.getInt();
+		final int chunkX = chunkHeadBuffer.getInt();
+		final long messageId = chunkHeadBuffer.getLong();
+		final long messageLength;
+		final int contentLength;
+		if ((1 == (chunkX & 0x1)) && ((chunkX >> 1) > 1)) {
+			messageLength = readBytes(ArangoDefaults.LONG_BYTES).getLong();
+			contentLength = length - ArangoDefaults.CHUNK_MAX_HEADER_SIZE;
+		} else {
+			messageLength = -1L;
+			contentLength = length - ArangoDefaults.CHUNK_MIN_HEADER_SIZE;
+		}
+		final Chunk chunk = new Chunk(messageId, chunkX, messageLength, 0, contentLength);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("Received chunk %s:%s from message %s", chunk.getChunk(),
+				chunk.isFirstChunk() ? 1 : 0, chunk.getMessageId()));
+		}
+		return chunk;
+	}
+
+	private ByteBuffer readBytes(final int len) throws IOException {
+		((Buffer) chunkHeadIn).clear();
+		readBytesIntoBuffer(chunkHeadIn.array(), 0, len);
+		((Buffer) chunkHeadIn).limit(len);
+		return chunkHeadIn;
+	}
+
+	@Override
+	protected void readBytesIntoBuffer(final byte[] buf, final int off, final int len) throws IOException {
+		for (int readed = 0; readed < len;) {
+			final int read = inputStream.read(buf, off + readed, len - readed);
+			if (read == -1) {
+				throw new IOException("Reached the end of the stream.");
+			}
+			readed += read;
+		}
+	}
+
+	/**
+	 * Enqueues the message in the send queue of this connection. Any thread can enqueue without locking, the queue is
+	 * drained to the socket by a single writer at a time: the <code>writeExecutor</code> if one is configured,
+	 * otherwise the writer thread of the connection. The calling thread neither writes to the socket nor lingers,
+	 * unless the connection is not open and the messages fail right away.
+	 */
+	@Override
+	public CompletableFuture<Message> write(final Message message, final Collection<Chunk> chunks) {
+		final VstMessageFuture future = new VstMessageFuture();
+		final FutureTask<Message> task = new FutureTask<Message>(new Callable<Message>() {
+			@Override
+			public Message call() throws Exception {
+				try {
+					future.complete(messageStore.get(message.getId()));
+				} catch (final Exception e) {
+					future.completeExceptionally(e);
+				}
+				return null;
+			}
+		}) {
+			@Override
+			protected void done() {
+				// cancelled when the connection is closed
+				if (isCancelled()) {
+					future.completeExceptionally(new ArangoDBException(new IOException("The connection is closed.")));
+				}
+			}
+		};
+		messageStore.storeMessage(message.getId(), task);
+		sendQueue.offer(new PendingWrite(message, chunks, future));
+		if (sendWip.getAndIncrement() == 0) {
+			final Executor drainer = writeExecutor != null ? writeExecutor : writer;
+			if (drainer != null) {
+				try {
+					drainer.execute(this::drainSendQueue);
+				} catch (final RejectedExecutionException e) {
+					drainSendQueue();
+				}
+			} else {
+				drainSendQueue();
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Writes all the queued messages into the buffered output stream and flushes it once the queue is empty. Without
+	 * write coalescing every message is flushed on its own. With write coalescing the stream pushes its buffer to the
+	 * socket whenever it is full, so the byte budget bounds the size of a single socket write, and the writer waits
+	 * up to the linger time for further messages before flushing an incomplete buffer.
+	 */
+	private void drainSendQueue() {
+		int missed = 1;
+		do {
+			boolean lingered = false;
+			while (true) {
+				final PendingWrite pending = sendQueue.poll();
+				if (pending == null) {
+					if (!lingered && lingerNanos > 0 && !batch.isEmpty()) {
+						lingered = true;
+						LockSupport.parkNanos(lingerNanos);
+						continue;
+					}
+					break;
+				}
+				batch.add(pending);
+				writeMessage(pending);
+				if (!writeCoalescing) {
+					flush();
+				}
+			}
+			flush();
+			missed = sendWip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void writeMessage(final PendingWrite pending) {
+		final Message message = pending.message;
+		try {
+			final OutputStream out = outputStream;
+			if (out == null) {
+				throw new IOException("The socket is not open.");
+			}
+			final VPackSlice head = message.getHead();
+			final int headLength = head.getByteSize();
+			for (final Chunk chunk : pending.chunks) {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(String.format("Send chunk %s:%s from message %s", chunk.getChunk(),
+						chunk.isFirstChunk() ? 1 : 0, chunk.getMessageId()));
+				}
+				writeChunkHead(out, chunk);
+				final int contentOffset = chunk.getContentOffset();
+				final int contentLength = chunk.getContentLength();
+				int written = 0;
+				if (contentOffset < headLength) {
+					written = Math.min(contentLength, headLength - contentOffset);
+					out.write(head.getBuffer(), head.getStart() + contentOffset, written);
+				}
+				if (written < contentLength) {
+					final VPackSlice body = message.getBody();
+					out.write(body.getBuffer(), body.getStart() + contentOffset + written - headLength,
+						contentLength - written);
+				}
+			}
+			writeStatistics.messageWritten(pending.chunks.size());
+		} catch (final IOException e) {
+			LOGGER.error("Error on Connection " + getConnectionName());
+			failBatch(e);
+		}
+	}
+
+	private void writeChunkHead(final OutputStream out, final Chunk chunk) throws IOException {
+		final long messageLength = chunk.getMessageLength();
+		final int headLength = messageLength > -1L ? ArangoDefaults.CHUNK_MAX_HEADER_SIZE
+				: ArangoDefaults.CHUNK_MIN_HEADER_SIZE;
+		((Buffer) chunkHead).clear();
+		chunkHead.putInt(chunk.getContentLength() + headLength);
+		chunkHead.putInt(chunk.getChunkX());
+		chunkHead.putLong(chunk.getMessageId());
+		if (messageLength > -1L) {
+			chunkHead.putLong(messageLength);
+		}
+		out.write(chunkHead.array(), 0, headLength);
+	}
+
+	private void flush() {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			final OutputStream out = outputStream;
+			if (out != null) {
+				out.flush();
+				writeStatistics.flushed();
+				if (recordWriteTime) {
+					final long now = System.nanoTime();
+					for (final PendingWrite pending : batch) {
+						pending.future.writtenNanos = now;
+					}
+				}
+			}
+			batch.clear();
+		} catch (final IOException e) {
+			LOGGER.error("Error on Connection " + getConnectionName());
+			failBatch(e);
+		}
+	}
+
+	/**
+	 * the bytes of the messages in the current batch may not have reached the socket, so none of them can be expected
+	 * to get a response
+	 */
+	private void failBatch(final IOException e) {
+		final ArangoDBException exception = new ArangoDBException(e);
+		for (final PendingWrite pending : batch) {
+			pending.future.completeExceptionally(exception);
+			messageStore.cancel(pending.message.getId());
+		}
+		batch.clear();
+	}
+
+	private static final class PendingWrite {
+
+		private final Message message;
+		private final Collection<Chunk> chunks;
+		private final VstMessageFuture future;
+
+		private PendingWrite(final Message message, final Collection<Chunk> chunks, final VstMessageFuture future) {
+			this.message = message;
+			this.chunks = chunks;
+			this.future = future;
+		}
+	}
+
+	private final class CountingOutputStream extends FilterOutputStream {
+
+		private CountingOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			out.write(b, off, len);
+			writeStatistics.socketWritten(len);
+		}
+
+	}
+
+}
@@ -20,12 +20,9 @@
 
 package com.arangodb.internal.velocystream;
 
-import javax.net.ssl.SSLContext;
-
 import com.arangodb.internal.net.Connection;
 import com.arangodb.internal.net.ConnectionFactory;
 import com.arangodb.internal.net.HostDescription;
-import com.arangodb.internal.velocystream.internal.MessageStore;
 
 /**
  * @author Mark Vollmary
@@ -35,16 +32,14 @@ public class VstConnectionFactoryAsync implements ConnectionFactory {
 
 	private final VstConnectionAsync.Builder builder;
 
-	public VstConnectionFactoryAsync(final HostDescription host, final Integer timeout, final Long connectionTtl,
-		final Boolean useSsl, final SSLContext sslContext) {
+	public VstConnectionFactoryAsync(final VstConnectionAsync.Builder builder) {
 		super();
-		builder = new VstConnectionAsync.Builder().timeout(timeout).ttl(connectionTtl).useSsl(useSsl)
-				.sslContext(sslContext);
+		this.builder = builder;
 	}
 
 	@Override
 	public Connection create(final HostDescription host) {
-		return builder.messageStore(new MessageStore()).host(host).build();
+		return builder.messageStore(new VstMessageStore()).host(host).build();
 	}
 
 }
@@ -0,0 +1,775 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.ArangoDefaults;
+import com.arangodb.internal.HashedWheelTimer;
+import com.arangodb.internal.HashedWheelTimer.Timeout;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.velocystream.internal.Chunk;
+import com.arangodb.internal.velocystream.internal.Message;
+import com.arangodb.internal.velocystream.internal.MessageStore;
+import com.arangodb.velocypack.VPackSlice;
+
+/**
+ * Non-blocking VST connection served by a {@link VstEventLoop}. Requests are encoded by the calling thread and
+ * handed over to the event loop, which writes all the queued requests with a single gathering write and completes the
+ * responses as soon as their last chunk has been read.
+ */
+public class VstConnectionNio extends VstConnectionAsync {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VstConnectionNio.class);
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_GATHER = 64;
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final VstEventLoop loop;
+
+	private volatile Session session;
+	private volatile Long ttlTime;
+
+	VstConnectionNio(final VstEventLoop loop, final HostDescription host, final Integer timeout, final Long ttl,
+		final Boolean useSsl, final SSLContext sslContext, final MessageStore messageStore,
+		final WriteStatisticsCollector writeStatistics, final boolean recordWriteTime, final BufferPool bufferPool) {
+		super(host, timeout, ttl, useSsl, sslContext, messageStore, writeStatistics, recordWriteTime, bufferPool);
+		this.loop = loop;
+	}
+
+	@Override
+	public boolean isOpen() {
+		final Session s = session;
+		if (s == null || !s.isOpen()) {
+			return false;
+		}
+		final Long ttlTime = this.ttlTime;
+		if (ttlTime != null && System.currentTimeMillis() > ttlTime && s.pending.isEmpty()) {
+			close();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Connects without blocking, the event loop completes the returned future once the channel is established.
+	 */
+	@Override
+	synchronized CompletableFuture<Void> openAsync(final Executor executor, final HashedWheelTimer timer) {
+		if (isOpen()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("Open connection to %s", host));
+		}
+		final Session s;
+		try {
+			s = new Session(new InetSocketAddress(host.getHost(), host.getPort()),
+					Boolean.TRUE == useSsl ? createEngine() : null);
+		} catch (final IOException e) {
+			final CompletableFuture<Void> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+		session = s;
+		s.connect();
+		final int connectTimeout = timeout != null ? timeout : ArangoDefaults.DEFAULT_TIMEOUT;
+		if (connectTimeout > 0) {
+			final Timeout expiry = timer.newTimeout(() -> s.close(new SocketTimeoutException("connect timed out")),
+				connectTimeout, TimeUnit.MILLISECONDS);
+			s.ready.whenComplete((v, e) -> expiry.cancel());
+		}
+		return s.ready.thenRun(() -> ttlTime = ttl != null ? System.currentTimeMillis() + ttl : null);
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		if (isOpen()) {
+			return;
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("Open connection to %s", host));
+		}
+		final Session s = new Session(new InetSocketAddress(host.getHost(), host.getPort()),
+				Boolean.TRUE == useSsl ? createEngine() : null);
+		session = s;
+		s.connect();
+		final int connectTimeout = timeout != null ? timeout : ArangoDefaults.DEFAULT_TIMEOUT;
+		try {
+			if (connectTimeout > 0) {
+				s.ready.get(connectTimeout, TimeUnit.MILLISECONDS);
+			} else {
+				s.ready.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			s.close(e);
+			throw new InterruptedIOException("Interrupted while connecting to " + host);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		} catch (final TimeoutException e) {
+			final SocketTimeoutException timeoutException = new SocketTimeoutException("connect timed out");
+			s.close(timeoutException);
+			throw timeoutException;
+		}
+		ttlTime = ttl != null ? System.currentTimeMillis() + ttl : null;
+	}
+
+	private SSLEngine createEngine() throws IOException {
+		final SSLContext context;
+		try {
+			context = sslContext != null ? sslContext : SSLContext.getDefault();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final SSLEngine engine = context.createSSLEngine(host.getHost(), host.getPort());
+		engine.setUseClientMode(true);
+		return engine;
+	}
+
+	@Override
+	public synchronized void close() {
+		final Session s = session;
+		if (s != null) {
+			s.close(new IOException("The connection is closed."));
+		}
+	}
+
+	@Override
+	void abandon(final long messageId) {
+		final Session s = session;
+		if (s != null) {
+			s.pending.remove(messageId);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Message> write(final Message message, final Collection<Chunk> chunks) {
+		final VstMessageFuture future = new VstMessageFuture();
+		final Session s = session;
+		if (s == null) {
+			future.completeExceptionally(new ArangoDBException(new IOException("The socket is not open.")));
+			return future;
+		}
+		s.enqueue(message.getId(), encode(message, chunks), future);
+		return future;
+	}
+
+	private ByteBuffer encode(final Message message, final Collection<Chunk> chunks) {
+		int size = 0;
+		for (final Chunk chunk : chunks) {
+			size += chunkHeadLength(chunk) + chunk.getContentLength();
+		}
+		final ByteBuffer buffer = (bufferPool != null ? ByteBuffer.wrap(bufferPool.acquire(size), 0, size)
+				: ByteBuffer.allocate(size)).order(ByteOrder.LITTLE_ENDIAN);
+		final VPackSlice head = message.getHead();
+		final int headLength = head.getByteSize();
+		for (final Chunk chunk : chunks) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(String.format("Send chunk %s:%s from message %s", chunk.getChunk(),
+					chunk.isFirstChunk() ? 1 : 0, chunk.getMessageId()));
+			}
+			final int chunkHeadLength = chunkHeadLength(chunk);
+			buffer.putInt(chunk.getContentLength() + chunkHeadLength);
+			buffer.putInt(chunk.getChunkX());
+			buffer.putLong(chunk.getMessageId());
+			if (chunkHeadLength == ArangoDefaults.CHUNK_MAX_HEADER_SIZE) {
+				buffer.putLong(chunk.getMessageLength());
+			}
+			final int contentOffset = chunk.getContentOffset();
+			final int contentLength = chunk.getContentLength();
+			int written = 0;
+			if (contentOffset < headLength) {
+				written = Math.min(contentLength, headLength - contentOffset);
+				buffer.put(head.getBuffer(), head.getStart() + contentOffset, written);
+			}
+			if (written < contentLength) {
+				final VPackSlice body = message.getBody();
+				buffer.put(body.getBuffer(), body.getStart() + contentOffset + written - headLength,
+					contentLength - written);
+			}
+		}
+		((Buffer) buffer).flip();
+		writeStatistics.messageWritten(chunks.size());
+		return buffer;
+	}
+
+	private static int chunkHeadLength(final Chunk chunk) {
+		return chunk.getMessageLength() > -1L ? ArangoDefaults.CHUNK_MAX_HEADER_SIZE
+				: ArangoDefaults.CHUNK_MIN_HEADER_SIZE;
+	}
+
+	private static ByteBuffer enlarge(final ByteBuffer buffer, final int capacity) {
+		final ByteBuffer enlarged = ByteBuffer.allocate(capacity).order(buffer.order());
+		((Buffer) buffer).flip();
+		enlarged.put(buffer);
+		return enlarged;
+	}
+
+	/**
+	 * State of a single socket channel. Everything but the send queue and the pending responses is confined to the
+	 * event loop thread. A connection reopened after a failure or after its ttl gets a new session, so late events of
+	 * the old channel can not interfere with the new one.
+	 */
+	private final class Session implements VstEventLoop.Handler {
+
+		private final InetSocketAddress address;
+		private final SocketChannel channel;
+		private final SSLEngine engine;
+		private final CompletableFuture<Void> ready = new CompletableFuture<>();
+		private final Map<Long, CompletableFuture<Message>> pending = new ConcurrentHashMap<>();
+		private final Queue<ByteBuffer> sendQueue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger sendWip = new AtomicInteger();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private volatile Exception closeCause;
+
+		// confined to the event loop
+		private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+		private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+		private final Map<Long, ByteBuffer> messages = new HashMap<>();
+		private SelectionKey key;
+		private boolean established;
+		private boolean writeInterest;
+		private ByteBuffer in;
+		private ByteBuffer netIn;
+		private ByteBuffer netOut;
+		// message whose current chunk is read straight from the channel, null while reading into the read buffer
+		private ByteBuffer direct;
+		private long directMessageId;
+		private int directLimit;
+
+		private Session(final InetSocketAddress address, final SSLEngine engine) throws IOException {
+			this.address = address;
+			this.engine = engine;
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			in = ByteBuffer.allocate(
+				engine != null ? Math.max(READ_BUFFER_SIZE, engine.getSession().getApplicationBufferSize())
+						: READ_BUFFER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (engine != null) {
+				netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+				netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+				((Buffer) netOut).limit(0);
+			}
+		}
+
+		private boolean isOpen() {
+			return ready.isDone() && !ready.isCompletedExceptionally() && !closed.get() && channel.isOpen();
+		}
+
+		private void connect() {
+			try {
+				loop.execute(() -> {
+					try {
+						key = channel.register(loop.selector(), SelectionKey.OP_CONNECT, this);
+						if (channel.connect(address)) {
+							connected();
+						}
+					} catch (final IOException | RuntimeException e) {
+						close(e);
+					}
+				});
+			} catch (final RejectedExecutionException e) {
+				close(e);
+			}
+		}
+
+		private void enqueue(final long messageId, final ByteBuffer buffer, final CompletableFuture<Message> future) {
+			pending.put(messageId, future);
+			if (closed.get()) {
+				if (pending.remove(messageId) != null) {
+					future.completeExceptionally(new ArangoDBException(closeCause));
+				}
+				return;
+			}
+			sendQueue.offer(buffer);
+			if (sendWip.getAndIncrement() == 0) {
+				try {
+					loop.execute(this::drainSendQueue);
+				} catch (final RejectedExecutionException e) {
+					close(e);
+					releaseQueued();
+				}
+			}
+		}
+
+		private void drainSendQueue() {
+			int missed = 1;
+			do {
+				boolean added = false;
+				long now = 0L;
+				ByteBuffer buffer;
+				while ((buffer = sendQueue.poll()) != null) {
+					if (closed.get()) {
+						release(buffer);
+						continue;
+					}
+					outbound.add(buffer);
+					added = true;
+					if (recordWriteTime) {
+						now = now != 0L ? now : System.nanoTime();
+						markWritten(buffer, now);
+					}
+				}
+				if (added && !closed.get()) {
+					try {
+						flush();
+						writeStatistics.flushed();
+					} catch (final IOException | RuntimeException e) {
+						close(e);
+					}
+				}
+				missed = sendWip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * the encoded message starts with the header of its first chunk, which holds the message id after the length
+		 * and chunkX fields
+		 */
+		private void markWritten(final ByteBuffer buffer, final long now) {
+			final CompletableFuture<Message> future = pending.get(buffer.getLong(ArangoDefaults.INTEGER_BYTES * 2));
+			if (future instanceof VstMessageFuture) {
+				((VstMessageFuture) future).writtenNanos = now;
+			}
+		}
+
+		@Override
+		public void handle(final SelectionKey key) {
+			try {
+				if (key.isConnectable()) {
+					if (channel.finishConnect()) {
+						connected();
+					}
+					return;
+				}
+				if (key.isReadable()) {
+					read();
+				}
+				if (key.isValid() && key.isWritable()) {
+					if (established) {
+						flush();
+					} else {
+						processTls();
+					}
+				}
+			} catch (final IOException | RuntimeException e) {
+				close(e);
+			}
+		}
+
+		private void connected() throws IOException {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(String.format("Connected to %s", channel));
+			}
+			key.interestOps(SelectionKey.OP_READ);
+			if (engine != null) {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(String.format("Start Handshake on %s", channel));
+				}
+				engine.beginHandshake();
+				processTls();
+			} else {
+				established();
+			}
+		}
+
+		private void established() throws IOException {
+			established = true;
+			outbound.addFirst(ByteBuffer.wrap(PROTOCOL_HEADER));
+			flush();
+			ready.complete(null);
+		}
+
+		private void read() throws IOException {
+			if (direct != null) {
+				readDirect();
+				return;
+			}
+			final int read = channel.read(engine != null ? netIn : in);
+			if (read == -1) {
+				throw new IOException("Reached the end of the stream.");
+			}
+			if (engine != null) {
+				processTls();
+			}
+			parse();
+		}
+
+		/**
+		 * Reads the rest of the current chunk from the channel straight into the buffer of its message.
+		 */
+		private void readDirect() throws IOException {
+			if (channel.read(direct) == -1) {
+				throw new IOException("Reached the end of the stream.");
+			}
+			if (!direct.hasRemaining()) {
+				final ByteBuffer message = direct;
+				direct = null;
+				((Buffer) message).limit(directLimit);
+				chunkRead(directMessageId, message);
+			}
+		}
+
+		/**
+		 * Splits the received bytes into chunks and copies their content into the buffer of their message. The
+		 * message is completed as soon as its buffer is full. Without TLS, the part of a chunk which has not been
+		 * received yet is read straight into the buffer of its message, so the content of large responses is copied
+		 * only once from the socket.
+		 */
+		private void parse() {
+			((Buffer) in).flip();
+			int required = 0;
+			while (in.remaining() >= ArangoDefaults.CHUNK_MIN_HEADER_SIZE) {
+				final int start = in.position();
+				final int length = in.getInt(start);
+				final int chunkX = in.getInt(start + ArangoDefaults.INTEGER_BYTES);
+				final long messageId = in.getLong(start + 2 * ArangoDefaults.INTEGER_BYTES);
+				final boolean firstChunk = 1 == (chunkX & 0x1);
+				final int headLength = firstChunk && ((chunkX >> 1) > 1) ? ArangoDefaults.CHUNK_MAX_HEADER_SIZE
+						: ArangoDefaults.CHUNK_MIN_HEADER_SIZE;
+				final boolean received = in.remaining() >= length;
+				if (!received && (engine != null || in.remaining() < headLength)) {
+					required = engine != null ? length : headLength;
+					break;
+				}
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(String.format("Received chunk %s:%s from message %s", chunkX >> 1, chunkX & 0x1,
+						messageId));
+				}
+				ByteBuffer message = messages.remove(messageId);
+				if (message == null) {
+					if (!firstChunk) {
+						if (!received) {
+							required = length;
+							break;
+						}
+						((Buffer) in).position(start + length);
+						continue;
+					}
+					final long messageLength = headLength == ArangoDefaults.CHUNK_MAX_HEADER_SIZE
+							? in.getLong(start + ArangoDefaults.CHUNK_MIN_HEADER_SIZE)
+							: -1L;
+					final int capacity = messageLength > 0 ? (int) messageLength : length - headLength;
+					message = ByteBuffer.wrap(allocate(capacity), 0, capacity);
+				}
+				final int end = Math.min(start + length, in.limit());
+				final ByteBuffer content = in.duplicate();
+				((Buffer) content).position(start + headLength).limit(end);
+				message.put(content);
+				((Buffer) in).position(end);
+				if (end < start + length) {
+					direct = message;
+					directMessageId = messageId;
+					directLimit = message.limit();
+					((Buffer) message).limit(message.position() + start + length - end);
+					break;
+				}
+				chunkRead(messageId, message);
+			}
+			in.compact();
+			if (required > in.capacity()) {
+				in = enlarge(in, required);
+			}
+		}
+
+		private void chunkRead(final long messageId, final ByteBuffer message) {
+			if (message.hasRemaining()) {
+				messages.put(messageId, message);
+			} else {
+				complete(messageId, message);
+			}
+		}
+
+		private void complete(final long messageId, final ByteBuffer buffer) {
+			final CompletableFuture<Message> future = pending.remove(messageId);
+			if (future == null) {
+				if (bufferPool != null) {
+					bufferPool.release(buffer.array());
+				}
+				return;
+			}
+			try {
+				final Message message = createMessage(messageId, buffer.array(), buffer.limit());
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(String.format("Received Message (id=%s, head=%s, body=%s)", message.getId(),
+						message.getHead(), message.getBody() != null ? message.getBody() : "{}"));
+				}
+				future.complete(message);
+			} catch (final RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+		private void flush() throws IOException {
+			if (!established) {
+				return;
+			}
+			if (engine != null) {
+				flushTls();
+				return;
+			}
+			while (!outbound.isEmpty()) {
+				final int length = gather();
+				final long written = channel.write(gather, 0, length);
+				releaseGather(length);
+				writeStatistics.socketWritten((int) written);
+				if (written == 0) {
+					setWriteInterest(true);
+					return;
+				}
+			}
+			setWriteInterest(false);
+		}
+
+		private void flushTls() throws IOException {
+			while (writeNetOut() && !outbound.isEmpty()) {
+				final int length = gather();
+				((Buffer) netOut).clear();
+				final SSLEngineResult result = engine.wrap(gather, 0, length, netOut);
+				((Buffer) netOut).flip();
+				releaseGather(length);
+				switch (result.getStatus()) {
+				case BUFFER_OVERFLOW:
+					netOut = ByteBuffer.allocate(netOut.capacity() + engine.getSession().getPacketBufferSize());
+					((Buffer) netOut).limit(0);
+					break;
+				case CLOSED:
+					throw new IOException("The SSL engine is closed.");
+				default:
+					break;
+				}
+			}
+		}
+
+		private int gather() {
+			int length = 0;
+			for (final Iterator<ByteBuffer> iterator = outbound.iterator(); iterator.hasNext()
+					&& length < MAX_GATHER;) {
+				gather[length++] = iterator.next();
+			}
+			return length;
+		}
+
+		private void releaseGather(final int length) {
+			Arrays.fill(gather, 0, length, null);
+			while (!outbound.isEmpty() && !outbound.peekFirst().hasRemaining()) {
+				release(outbound.pollFirst());
+			}
+		}
+
+		private void release(final ByteBuffer buffer) {
+			// the protocol header is the only outbound buffer not encoded by this connection
+			if (bufferPool != null && buffer.array() != PROTOCOL_HEADER) {
+				bufferPool.release(buffer.array());
+			}
+		}
+
+		/**
+		 * Returns the buffers of the requests which have not been written to the pool. The outbound buffers are
+		 * confined to the event loop, they are only released by another thread once the event loop is shut down.
+		 */
+		private void releaseQueued() {
+			if (bufferPool == null) {
+				return;
+			}
+			ByteBuffer buffer;
+			while ((buffer = sendQueue.poll()) != null) {
+				release(buffer);
+			}
+			if (loop.inEventLoop()) {
+				releaseOutbound();
+			} else {
+				try {
+					loop.execute(this::releaseOutbound);
+				} catch (final RejectedExecutionException e) {
+					releaseOutbound();
+				}
+			}
+		}
+
+		private void releaseOutbound() {
+			ByteBuffer buffer;
+			while ((buffer = outbound.pollFirst()) != null) {
+				release(buffer);
+			}
+		}
+
+		private boolean writeNetOut() throws IOException {
+			while (netOut.hasRemaining()) {
+				final int written = channel.write(netOut);
+				writeStatistics.socketWritten(written);
+				if (written == 0) {
+					setWriteInterest(true);
+					return false;
+				}
+			}
+			setWriteInterest(false);
+			return true;
+		}
+
+		private void setWriteInterest(final boolean writeInterest) {
+			if (this.writeInterest != writeInterest) {
+				this.writeInterest = writeInterest;
+				key.interestOps(writeInterest ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+			}
+		}
+
+		/**
+		 * Drives the {@link SSLEngine} with the bytes received so far: runs the handshake until the engine needs more
+		 * data from the server, then decrypts the application data into the read buffer.
+		 */
+		private void processTls() throws IOException {
+			while (true) {
+				final HandshakeStatus handshakeStatus = engine.getHandshakeStatus();
+				if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+					Runnable task;
+					while ((task = engine.getDelegatedTask()) != null) {
+						task.run();
+					}
+					continue;
+				}
+				if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
+					if (!wrapHandshake()) {
+						return;
+					}
+					continue;
+				}
+				if (handshakeStatus == HandshakeStatus.NOT_HANDSHAKING && !established) {
+					if (!writeNetOut()) {
+						return;
+					}
+					established();
+				}
+				((Buffer) netIn).flip();
+				final SSLEngineResult result;
+				try {
+					result = engine.unwrap(netIn, in);
+				} finally {
+					netIn.compact();
+				}
+				switch (result.getStatus()) {
+				case BUFFER_UNDERFLOW:
+					if (netIn.position() < netIn.capacity()) {
+						return;
+					}
+					netIn = enlarge(netIn, netIn.capacity() + engine.getSession().getPacketBufferSize());
+					break;
+				case BUFFER_OVERFLOW:
+					in = enlarge(in, in.capacity() + engine.getSession().getApplicationBufferSize());
+					break;
+				case CLOSED:
+					throw new IOException("The SSL engine is closed.");
+				default:
+					if (result.bytesConsumed() == 0 && result.bytesProduced() == 0
+							&& result.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING) {
+						return;
+					}
+					break;
+				}
+			}
+		}
+
+		private boolean wrapHandshake() throws IOException {
+			if (!writeNetOut()) {
+				return false;
+			}
+			((Buffer) netOut).clear();
+			final SSLEngineResult result = engine.wrap(EMPTY, netOut);
+			((Buffer) netOut).flip();
+			if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+				throw new IOException("The SSL engine is closed.");
+			}
+			return writeNetOut();
+		}
+
+		@Override
+		public void close(final Exception e) {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			closeCause = e;
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(String.format("Close connection %s", channel));
+			}
+			try {
+				channel.close();
+			} catch (final IOException ex) {
+				LOGGER.error(ex.getMessage(), ex);
+			}
+			ready.completeExceptionally(e);
+			if (!pending.isEmpty()) {
+				LOGGER.error(e.getMessage(), e);
+			}
+			final ArangoDBException exception = new ArangoDBException(e);
+			for (final Iterator<CompletableFuture<Message>> iterator = pending.values().iterator(); iterator
+					.hasNext();) {
+				final CompletableFuture<Message> future = iterator.next();
+				iterator.remove();
+				future.completeExceptionally(exception);
+			}
+			releaseQueued();
+		}
+
+	}
+
+}
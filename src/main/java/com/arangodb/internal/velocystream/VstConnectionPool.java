@@ -0,0 +1,117 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.arangodb.internal.net.Connection;
+import com.arangodb.internal.net.ConnectionFactory;
+import com.arangodb.internal.net.ConnectionPool;
+import com.arangodb.internal.net.HostDescription;
+
+/**
+ * Opens up to <code>maxConnections</code> connections to a host, like the round robin pool of the driver, and sends
+ * every request on the less loaded of two randomly chosen connections. Comparing two random connections keeps the
+ * selection constant time and, unlike always choosing the least loaded connection, keeps concurrent callers from
+ * piling onto the same connection before its load is updated.
+ * <p>
+ * The load of a connection is the number of requests assigned to it and not yet completed, see
+ * {@link VstConnectionAsync#outstanding()}, so a connection busy with a large response is avoided by the requests
+ * issued meanwhile. Once all connections are created, choosing one takes no lock.
+ */
+public class VstConnectionPool implements ConnectionPool {
+
+	private static final VstConnectionAsync[] EMPTY = new VstConnectionAsync[0];
+
+	private final HostDescription host;
+	private final int maxConnections;
+	private final ConnectionFactory factory;
+	// copied on write
+	private volatile VstConnectionAsync[] connections = EMPTY;
+
+	public VstConnectionPool(final HostDescription host, final int maxConnections, final ConnectionFactory factory) {
+		super();
+		this.host = host;
+		this.maxConnections = Math.max(1, maxConnections);
+		this.factory = factory;
+	}
+
+	@Override
+	public Connection createConnection(final HostDescription host) {
+		return factory.create(host);
+	}
+
+	@Override
+	public Connection connection() {
+		final VstConnectionAsync[] current = connections;
+		if (current.length < maxConnections) {
+			return addConnection();
+		}
+		return select(current);
+	}
+
+	private synchronized Connection addConnection() {
+		final VstConnectionAsync[] current = connections;
+		if (current.length >= maxConnections) {
+			return select(current);
+		}
+		final VstConnectionAsync connection = (VstConnectionAsync) createConnection(host);
+		final VstConnectionAsync[] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = connection;
+		connections = next;
+		return connection;
+	}
+
+	static VstConnectionAsync select(final VstConnectionAsync[] connections) {
+		final int size = connections.length;
+		if (size == 1) {
+			return connections[0];
+		}
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		final VstConnectionAsync a = connections[first];
+		final VstConnectionAsync b = connections[second];
+		return b.outstanding().get() < a.outstanding().get() ? b : a;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		final VstConnectionAsync[] current = connections;
+		connections = EMPTY;
+		for (final VstConnectionAsync connection : current) {
+			connection.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "VstConnectionPool [host=" + host + ", maxConnections=" + maxConnections + ", connections="
+				+ connections.length + "]";
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.ArangoDBException;
+
+/**
+ * Single thread owning a {@link Selector}. Every channel registered on the loop is only ever touched by the loop
+ * thread, other threads hand over work through {@link #execute(Runnable)}.
+ */
+class VstEventLoop implements Executor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VstEventLoop.class);
+
+	/**
+	 * callback of a channel registered on the loop, invoked in the loop thread
+	 */
+	interface Handler {
+
+		void handle(SelectionKey key);
+
+		void close(Exception e);
+
+	}
+
+	private final Selector selector;
+	private final Thread thread;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean wakeup = new AtomicBoolean();
+	private volatile boolean running = true;
+
+	VstEventLoop(final String name) {
+		try {
+			selector = Selector.open();
+		} catch (final IOException e) {
+			throw new ArangoDBException(e);
+		}
+		thread = new Thread(this::run, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	Selector selector() {
+		return selector;
+	}
+
+	boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	@Override
+	public void execute(final Runnable task) {
+		if (!running) {
+			throw new RejectedExecutionException("The event loop is shut down.");
+		}
+		tasks.offer(task);
+		if (!inEventLoop() && wakeup.compareAndSet(false, true)) {
+			selector.wakeup();
+		}
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				selector.select();
+				wakeup.set(false);
+				processSelectedKeys();
+				runTasks();
+			} catch (final Throwable e) {
+				LOGGER.error(e.getMessage(), e);
+			}
+		}
+		closeChannels();
+	}
+
+	private void processSelectedKeys() {
+		final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			final SelectionKey key = keys.next();
+			keys.remove();
+			final Handler handler = (Handler) key.attachment();
+			try {
+				handler.handle(key);
+			} catch (final CancelledKeyException e) {
+				handler.close(e);
+			}
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (final Throwable e) {
+				LOGGER.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	private void closeChannels() {
+		runTasks();
+		final IOException closed = new IOException("The event loop is shut down.");
+		for (final SelectionKey key : selector.keys()) {
+			((Handler) key.attachment()).close(closed);
+		}
+		try {
+			selector.close();
+		} catch (final IOException e) {
+			LOGGER.error(e.getMessage(), e);
+		}
+	}
+
+	void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+}
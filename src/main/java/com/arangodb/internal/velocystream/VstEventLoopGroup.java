@@ -0,0 +1,55 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of {@link VstEventLoop}s shared by all the connections of an <code>ArangoDBAsync</code> instance. Every
+ * connection is bound to one loop, picked round robin when it is created.
+ */
+public class VstEventLoopGroup {
+
+	private static final AtomicInteger GROUP_ID = new AtomicInteger();
+
+	private final VstEventLoop[] loops;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public VstEventLoopGroup(final int threads) {
+		super();
+		final int groupId = GROUP_ID.incrementAndGet();
+		loops = new VstEventLoop[Math.max(1, threads)];
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new VstEventLoop("arangodb-vst-" + groupId + "-" + i);
+		}
+	}
+
+	VstEventLoop next() {
+		return loops[Math.abs(next.getAndIncrement() % loops.length)];
+	}
+
+	public void shutdown() {
+		for (final VstEventLoop loop : loops) {
+			loop.shutdown();
+		}
+	}
+
+}
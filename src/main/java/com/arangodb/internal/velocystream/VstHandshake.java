@@ -0,0 +1,92 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opening and authentication of a {@link VstConnectionAsync}. Requests issued in the meantime wait, in order, and are
+ * sent once the handshake completed on the connection it resolved to, which is a connection to another host after a
+ * failover.
+ */
+final class VstHandshake {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VstHandshake.class);
+
+	// null once completed
+	private List<BiConsumer<VstConnectionAsync, Throwable>> waiting = new ArrayList<>();
+	private volatile VstConnectionAsync connection;
+	private Throwable failure;
+
+	/**
+	 * @return whether the handshake succeeded on the given connection
+	 */
+	boolean isEstablished(final VstConnectionAsync connection) {
+		return this.connection == connection;
+	}
+
+	synchronized boolean isDone() {
+		return waiting == null;
+	}
+
+	/**
+	 * Runs the action once the handshake completed, immediately if it already has.
+	 * 
+	 * @param action
+	 *            receives the connection to send requests on, or the failure of the handshake
+	 */
+	void whenDone(final BiConsumer<VstConnectionAsync, Throwable> action) {
+		synchronized (this) {
+			if (waiting != null) {
+				waiting.add(action);
+				return;
+			}
+		}
+		action.accept(connection, failure);
+	}
+
+	void complete(final VstConnectionAsync connection, final Throwable failure) {
+		final VstConnectionAsync established = failure == null ? connection : null;
+		final List<BiConsumer<VstConnectionAsync, Throwable>> actions;
+		synchronized (this) {
+			if (waiting == null) {
+				return;
+			}
+			actions = waiting;
+			waiting = null;
+			this.failure = failure;
+			this.connection = established;
+		}
+		for (final BiConsumer<VstConnectionAsync, Throwable> action : actions) {
+			try {
+				action.accept(established, failure);
+			} catch (final RuntimeException e) {
+				LOGGER.error(e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.arangodb.internal.velocystream.internal.Message;
+
+/**
+ * Future of the response message of a request, which also records when the writer of the connection handed the
+ * request over to the socket.
+ */
+class VstMessageFuture extends CompletableFuture<Message> {
+
+	volatile long writtenNanos;
+
+}
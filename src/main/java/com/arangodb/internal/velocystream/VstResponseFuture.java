@@ -0,0 +1,56 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.arangodb.velocystream.Response;
+
+/**
+ * Future of a response, carrying the timestamps of the request on the connection when metrics are enabled. The
+ * timestamps are set before the future is completed and are <code>0</code> if they were not recorded.
+ */
+public class VstResponseFuture extends CompletableFuture<Response> {
+
+	private volatile long writtenNanos;
+	private volatile long receivedNanos;
+
+	void timestamps(final long writtenNanos, final long receivedNanos) {
+		this.writtenNanos = writtenNanos;
+		this.receivedNanos = receivedNanos;
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} when the request was written to the socket
+	 */
+	public long getWrittenNanos() {
+		return writtenNanos;
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} when the response message was complete
+	 */
+	public long getReceivedNanos() {
+		return receivedNanos;
+	}
+
+}
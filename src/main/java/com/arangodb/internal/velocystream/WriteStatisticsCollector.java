@@ -0,0 +1,56 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.arangodb.metrics.WriteStatistics;
+
+/**
+ * Counters shared by the writers of all {@link VstConnectionAsync} created by the same driver instance.
+ */
+public class WriteStatisticsCollector {
+
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder chunks = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder socketWrites = new LongAdder();
+
+	void messageWritten(final int chunkCount) {
+		messages.increment();
+		chunks.add(chunkCount);
+	}
+
+	void flushed() {
+		flushes.increment();
+	}
+
+	void socketWritten(final int length) {
+		socketWrites.increment();
+		bytes.add(length);
+	}
+
+	public WriteStatistics snapshot() {
+		return new WriteStatistics(messages.sum(), chunks.sum(), bytes.sum(), flushes.sum(), socketWrites.sum());
+	}
+
+}
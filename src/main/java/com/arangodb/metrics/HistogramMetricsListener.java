@@ -0,0 +1,166 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.arangodb.velocystream.RequestType;
+
+/**
+ * {@link MetricsListener} recording the latencies in {@link LatencyHistogram}s and the traffic in counters.
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+	private final LatencyHistogram queueLatency = new LatencyHistogram();
+	private final LatencyHistogram networkLatency = new LatencyHistogram();
+	private final LatencyHistogram deserializationLatency = new LatencyHistogram();
+	private final LatencyHistogram totalLatency = new LatencyHistogram();
+	private final LongAdder chunksWritten = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> queued = new ConcurrentHashMap<>();
+	private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+
+	public HistogramMetricsListener() {
+		super();
+	}
+
+	@Override
+	public void requestSent(final String connection, final int inFlight, final int chunks, final long bytes) {
+		this.inFlight.computeIfAbsent(connection, c -> new AtomicInteger()).set(inFlight);
+		chunksWritten.add(chunks);
+		bytesWritten.add(bytes);
+	}
+
+	@Override
+	public void responseReceived(final String connection, final int inFlight, final long bytes) {
+		this.inFlight.computeIfAbsent(connection, c -> new AtomicInteger()).set(inFlight);
+		bytesRead.add(bytes);
+	}
+
+	@Override
+	public void requestsQueued(final String connection, final int queued) {
+		this.queued.computeIfAbsent(connection != null ? connection : "", c -> new AtomicInteger()).set(queued);
+	}
+
+	@Override
+	public void operationCompleted(
+		final RequestType requestType,
+		final int responseCode,
+		final int errorNum,
+		final long queueNanos,
+		final long networkNanos,
+		final long deserializationNanos) {
+		queueLatency.recordValue(queueNanos);
+		networkLatency.recordValue(networkNanos);
+		deserializationLatency.recordValue(deserializationNanos);
+		totalLatency.recordValue(queueNanos + networkNanos + deserializationNanos);
+		if (errorNum != 0 || responseCode == 0 || responseCode >= 300) {
+			errors.computeIfAbsent(errorNum != 0 ? errorNum : responseCode, e -> new LongAdder()).increment();
+		}
+	}
+
+	/**
+	 * @return time from the call of an operation until its request was written to the socket
+	 */
+	public LatencyHistogram getQueueLatency() {
+		return queueLatency;
+	}
+
+	/**
+	 * @return time from writing a request until its response arrived
+	 */
+	public LatencyHistogram getNetworkLatency() {
+		return networkLatency;
+	}
+
+	/**
+	 * @return time from the arrival of a response until its result was deserialized
+	 */
+	public LatencyHistogram getDeserializationLatency() {
+		return deserializationLatency;
+	}
+
+	/**
+	 * @return time from the call of an operation until its result was deserialized
+	 */
+	public LatencyHistogram getTotalLatency() {
+		return totalLatency;
+	}
+
+	/**
+	 * @return number of chunks written
+	 */
+	public long getChunksWritten() {
+		return chunksWritten.sum();
+	}
+
+	/**
+	 * @return number of bytes written, including the chunk headers
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * @return number of bytes of the received response messages
+	 */
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	/**
+	 * @return number of requests waiting for a response, by connection
+	 */
+	public Map<String, Integer> getInFlight() {
+		final Map<String, Integer> snapshot = new HashMap<>();
+		inFlight.forEach((connection, count) -> snapshot.put(connection, count.get()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * @return number of requests waiting for the limit of requests in flight, by connection, the empty name standing
+	 *         for the limit of the client
+	 */
+	public Map<String, Integer> getQueued() {
+		final Map<String, Integer> snapshot = new HashMap<>();
+		queued.forEach((connection, count) -> snapshot.put(connection, count.get()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * @return number of failed operations, by ArangoDB error number, or by response code if the server reported no
+	 *         error number, <code>0</code> counting the operations failed without response
+	 */
+	public Map<Integer, Long> getErrors() {
+		final Map<Integer, Long> snapshot = new HashMap<>();
+		errors.forEach((error, count) -> snapshot.put(error, count.sum()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+}
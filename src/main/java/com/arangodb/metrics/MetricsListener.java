@@ -0,0 +1,117 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.metrics;
+
+import com.arangodb.entity.CircuitBreakerState;
+import com.arangodb.velocystream.RequestType;
+
+/**
+ * Receives the measurements of the driver. All the methods are invoked synchronously in the threads performing the
+ * requests, the connection writers and the completion executor, so implementations have to be thread safe and must
+ * not block. Durations are in nanoseconds.
+ * 
+ * @see com.arangodb.ArangoDBAsync.Builder#metricsListener(MetricsListener)
+ * @see HistogramMetricsListener
+ */
+public interface MetricsListener {
+
+	/**
+	 * Invoked when a request is handed over to a connection.
+	 * 
+	 * @param connection
+	 *            name of the connection
+	 * @param inFlight
+	 *            number of requests of the connection waiting for a response, including this one
+	 * @param chunks
+	 *            number of VelocyStream chunks of the request
+	 * @param bytes
+	 *            size of the request on the wire, including the chunk headers
+	 */
+	default void requestSent(final String connection, final int inFlight, final int chunks, final long bytes) {
+	}
+
+	/**
+	 * Invoked when the response of a request arrived or the request failed on the connection.
+	 * 
+	 * @param connection
+	 *            name of the connection
+	 * @param inFlight
+	 *            number of requests of the connection still waiting for a response
+	 * @param bytes
+	 *            size of the response message, <code>0</code> if the request failed without response
+	 */
+	default void responseReceived(final String connection, final int inFlight, final long bytes) {
+	}
+
+	/**
+	 * Invoked whenever the number of requests waiting for the limit of requests in flight changes.
+	 * 
+	 * @param connection
+	 *            name of the connection, <code>null</code> for the limit of the client
+	 * @param queued
+	 *            number of requests waiting
+	 * @see com.arangodb.ArangoDBAsync.Builder#maxInFlightRequests(Integer)
+	 * @see com.arangodb.ArangoDBAsync.Builder#maxInFlightRequestsPerConnection(Integer)
+	 */
+	default void requestsQueued(final String connection, final int queued) {
+	}
+
+	/**
+	 * Invoked when the circuit breaker of a host changes its state.
+	 * 
+	 * @param host
+	 *            host and port of the host
+	 * @param state
+	 *            new state of the circuit breaker
+	 * @see com.arangodb.ArangoDBAsync.Builder#circuitBreaker(Boolean)
+	 */
+	default void circuitBreakerStateChanged(final String host, final CircuitBreakerState state) {
+	}
+
+	/**
+	 * Invoked once the result of an operation is deserialized or the operation failed.
+	 * 
+	 * @param requestType
+	 *            type of the request
+	 * @param responseCode
+	 *            response code of the server, <code>0</code> if no response was received
+	 * @param errorNum
+	 *            ArangoDB error number, <code>0</code> if the server did not report an error
+	 * @param queueNanos
+	 *            time from the call of the operation until the request was written to the socket, covering the
+	 *            connection setup, the serialization and the wait in the send queue
+	 * @param networkNanos
+	 *            time from writing the request until the complete response arrived
+	 * @param deserializationNanos
+	 *            time from the arrival of the response until the result was deserialized, including the hand-over to
+	 *            the completion executor
+	 */
+	default void operationCompleted(
+		final RequestType requestType,
+		final int responseCode,
+		final int errorNum,
+		final long queueNanos,
+		final long networkNanos,
+		final long deserializationNanos) {
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.metrics;
+
+/**
+ * Snapshot of the counters of the VelocyStream writers of all connections.
+ * 
+ * @see com.arangodb.ArangoDBAsync#getWriteStatistics()
+ */
+public class WriteStatistics {
+
+	private final long messages;
+	private final long chunks;
+	private final long bytes;
+	private final long flushes;
+	private final long socketWrites;
+
+	public WriteStatistics(final long messages, final long chunks, final long bytes, final long flushes,
+		final long socketWrites) {
+		super();
+		this.messages = messages;
+		this.chunks = chunks;
+		this.bytes = bytes;
+		this.flushes = flushes;
+		this.socketWrites = socketWrites;
+	}
+
+	/**
+	 * @return number of messages written
+	 */
+	public long getMessages() {
+		return messages;
+	}
+
+	/**
+	 * @return number of chunks written
+	 */
+	public long getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * @return number of bytes written, including the chunk headers
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return number of flushes, each flush ends a batch of messages taken from the send queue
+	 */
+	public long getFlushes() {
+		return flushes;
+	}
+
+	/**
+	 * @return number of write calls performed on the sockets
+	 */
+	public long getSocketWrites() {
+		return socketWrites;
+	}
+
+	/**
+	 * @return average number of messages written per flush
+	 */
+	public double getMessagesPerFlush() {
+		return flushes > 0 ? (double) messages / flushes : 0;
+	}
+
+	/**
+	 * @return average number of bytes per write call on the sockets
+	 */
+	public double getBytesPerSocketWrite() {
+		return socketWrites > 0 ? (double) bytes / socketWrites : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "WriteStatistics [messages=" + messages + ", chunks=" + chunks + ", bytes=" + bytes + ", flushes="
+				+ flushes + ", socketWrites=" + socketWrites + "]";
+	}
+
+}
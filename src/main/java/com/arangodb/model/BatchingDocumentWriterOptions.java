@@ -0,0 +1,141 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.model;
+
+/**
+ * Options of a {@link com.arangodb.BatchingDocumentWriter}. A pending batch is sent as soon as it reaches
+ * {@link #maxBatchSize(Integer)} operations or {@link #maxBatchBytes(Integer)} bytes, or when its first operation has
+ * waited for {@link #linger(Long)} milliseconds.
+ */
+public class BatchingDocumentWriterOptions {
+
+	private Integer maxBatchSize;
+	private Integer maxBatchBytes;
+	private Long linger;
+	private DocumentCreateOptions insertOptions;
+	private DocumentUpdateOptions updateOptions;
+	private DocumentReplaceOptions replaceOptions;
+	private DocumentDeleteOptions deleteOptions;
+
+	public BatchingDocumentWriterOptions() {
+		super();
+	}
+
+	public Integer getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize
+	 *            maximum number of operations sent in one request (default: 1000)
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions maxBatchSize(final Integer maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+		return this;
+	}
+
+	public Integer getMaxBatchBytes() {
+		return maxBatchBytes;
+	}
+
+	/**
+	 * @param maxBatchBytes
+	 *            maximum size in bytes of the serialized documents sent in one request (default: 1048576)
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions maxBatchBytes(final Integer maxBatchBytes) {
+		this.maxBatchBytes = maxBatchBytes;
+		return this;
+	}
+
+	public Long getLinger() {
+		return linger;
+	}
+
+	/**
+	 * @param linger
+	 *            time in milliseconds an operation waits for further operations before its batch is sent (default: 1)
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions linger(final Long linger) {
+		this.linger = linger;
+		return this;
+	}
+
+	public DocumentCreateOptions getInsertOptions() {
+		return insertOptions;
+	}
+
+	/**
+	 * @param insertOptions
+	 *            options of the batched insert requests, <code>silent</code> is not supported
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions insertOptions(final DocumentCreateOptions insertOptions) {
+		this.insertOptions = insertOptions;
+		return this;
+	}
+
+	public DocumentUpdateOptions getUpdateOptions() {
+		return updateOptions;
+	}
+
+	/**
+	 * @param updateOptions
+	 *            options of the batched update requests, <code>silent</code> is not supported
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions updateOptions(final DocumentUpdateOptions updateOptions) {
+		this.updateOptions = updateOptions;
+		return this;
+	}
+
+	public DocumentReplaceOptions getReplaceOptions() {
+		return replaceOptions;
+	}
+
+	/**
+	 * @param replaceOptions
+	 *            options of the batched replace requests, <code>silent</code> is not supported
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions replaceOptions(final DocumentReplaceOptions replaceOptions) {
+		this.replaceOptions = replaceOptions;
+		return this;
+	}
+
+	public DocumentDeleteOptions getDeleteOptions() {
+		return deleteOptions;
+	}
+
+	/**
+	 * @param deleteOptions
+	 *            options of the batched delete requests, <code>silent</code> is not supported
+	 * @return options
+	 */
+	public BatchingDocumentWriterOptions deleteOptions(final DocumentDeleteOptions deleteOptions) {
+		this.deleteOptions = deleteOptions;
+		return this;
+	}
+
+}
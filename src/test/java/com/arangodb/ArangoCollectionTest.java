@@ -23,6 +23,7 @@ package com.arangodb;
 import com.arangodb.entity.*;
 import com.arangodb.model.*;
 import com.arangodb.model.DocumentImportOptions.OnDuplicate;
+import com.arangodb.velocypack.VPackSlice;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -214,6 +215,37 @@ public class ArangoCollectionTest extends BaseTest {
         db.collection(COLLECTION_NAME).getDocument("no/no", BaseDocument.class);
     }
 
+    @Test
+    public void getDocumentReadCoalescing() throws InterruptedException, ExecutionException {
+        db.collection(COLLECTION_NAME)
+                .insertDocuments(Arrays.asList(new BaseDocument("1"), new BaseDocument("2"), new BaseDocument("3")))
+                .get();
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder().readCoalescing(true).build();
+        try {
+            final ArangoCollectionAsync collection = arangoDB.db(TEST_DB).collection(COLLECTION_NAME);
+            final List<CompletableFuture<BaseDocument>> reads = new ArrayList<>();
+            for (int i = 0; i < 9; i++) {
+                reads.add(collection.getDocument(String.valueOf(i % 3 + 1), BaseDocument.class));
+            }
+            final CompletableFuture<BaseDocument> notFound = collection.getDocument("no", BaseDocument.class);
+            final CompletableFuture<BaseDocument> notFoundFail = collection.getDocument("no", BaseDocument.class,
+                    new DocumentReadOptions().catchException(false));
+            for (int i = 0; i < reads.size(); i++) {
+                assertThat(reads.get(i).get().getKey(), is(String.valueOf(i % 3 + 1)));
+            }
+            assertThat(notFound.get(), is(nullValue()));
+            try {
+                notFoundFail.get();
+                fail();
+            } catch (final ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+                assertThat(((ArangoDBException) e.getCause()).getResponseCode(), is(404));
+            }
+        } finally {
+            arangoDB.shutdown();
+        }
+    }
+
     @Test
     public void getDocuments() throws InterruptedException, ExecutionException {
         final Collection<BaseDocument> values = new ArrayList<>();
@@ -231,6 +263,30 @@ public class ArangoCollectionTest extends BaseTest {
         }
     }
 
+    @Test
+    public void getDocumentRaw() throws InterruptedException, ExecutionException {
+        final BaseDocument doc = new BaseDocument();
+        doc.addAttribute("a", "test");
+        final DocumentCreateEntity<BaseDocument> createResult = db.collection(COLLECTION_NAME).insertDocument(doc)
+                .get();
+        final VPackSlice readResult = db.collection(COLLECTION_NAME).getDocumentRaw(createResult.getKey()).get();
+        assertThat(readResult.get("_key").getAsString(), is(createResult.getKey()));
+        assertThat(readResult.get("a").getAsString(), is("test"));
+        assertThat(db.collection(COLLECTION_NAME).getDocumentRaw("no").get(), is(nullValue()));
+    }
+
+    @Test
+    public void getDocumentsRaw() throws InterruptedException, ExecutionException {
+        db.collection(COLLECTION_NAME).insertDocuments(Arrays.asList(new BaseDocument("1"), new BaseDocument("2")))
+                .get();
+        final VPackSlice documents = db.collection(COLLECTION_NAME)
+                .getDocumentsRaw(Arrays.asList("1", "no", "2")).get();
+        assertThat(documents.size(), is(3));
+        assertThat(documents.get(0).get("_id").getAsString(), is(COLLECTION_NAME + "/1"));
+        assertThat(documents.get(1).get("error").getAsBoolean(), is(true));
+        assertThat(documents.get(2).get("_id").getAsString(), is(COLLECTION_NAME + "/2"));
+    }
+
     @Test
     public void getDocumentsNotFound() throws InterruptedException, ExecutionException {
         final MultiDocumentEntity<BaseDocument> readResult = db.collection(COLLECTION_NAME)
@@ -1219,6 +1275,57 @@ public class ArangoCollectionTest extends BaseTest {
                 .get();
     }
 
+    @Test
+    public void batchingWriter() throws InterruptedException, ExecutionException {
+        final BatchingDocumentWriter<BaseDocument> writer = db.collection(COLLECTION_NAME)
+                .batchingWriter(BaseDocument.class, new BatchingDocumentWriterOptions().maxBatchSize(10)
+                        .insertOptions(new DocumentCreateOptions().returnNew(true)));
+        final List<CompletableFuture<DocumentCreateEntity<BaseDocument>>> inserts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final BaseDocument value = new BaseDocument("batch" + i);
+            value.addAttribute("i", i);
+            inserts.add(writer.insertDocument(value));
+        }
+        final CompletableFuture<DocumentCreateEntity<BaseDocument>> duplicate = writer
+                .insertDocument(new BaseDocument("batch0"));
+        final BaseDocument update = new BaseDocument("batch1");
+        update.addAttribute("updated", true);
+        final CompletableFuture<DocumentUpdateEntity<BaseDocument>> updated = writer.updateDocument(update);
+        final CompletableFuture<DocumentDeleteEntity<BaseDocument>> deleted = writer.deleteDocument("batch2");
+        writer.close().get();
+
+        for (int i = 0; i < inserts.size(); i++) {
+            final DocumentCreateEntity<BaseDocument> doc = inserts.get(i).get();
+            assertThat(doc.getKey(), is("batch" + i));
+            assertThat(doc.getNew().getAttribute("i"), is((long) i));
+        }
+        try {
+            duplicate.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+            assertThat(((ArangoDBException) e.getCause()).getErrorNum(), is(1210));
+        }
+        assertThat(updated.get().getKey(), is("batch1"));
+        assertThat(deleted.get().getKey(), is("batch2"));
+        assertThat(db.collection(COLLECTION_NAME).count().get().getCount(), is(24L));
+        assertThat(db.collection(COLLECTION_NAME).getDocument("batch1", BaseDocument.class).get()
+                .getAttribute("updated"), is(true));
+    }
+
+    @Test
+    public void batchingWriterClosed() throws InterruptedException {
+        final BatchingDocumentWriter<BaseDocument> writer = db.collection(COLLECTION_NAME)
+                .batchingWriter(BaseDocument.class, null);
+        writer.close();
+        try {
+            writer.insertDocument(new BaseDocument()).get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+    }
+
     @Test
     public void insertDocumentsOne() throws InterruptedException, ExecutionException {
         final Collection<BaseDocument> values = new ArrayList<>();
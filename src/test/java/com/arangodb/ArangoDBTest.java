@@ -21,6 +21,7 @@
 package com.arangodb;
 
 import com.arangodb.entity.*;
+import com.arangodb.metrics.HistogramMetricsListener;
 import com.arangodb.model.LogOptions;
 import com.arangodb.model.LogOptions.SortOrder;
 import com.arangodb.model.UserCreateOptions;
@@ -61,6 +62,29 @@ public class ArangoDBTest {
                 .get();
     }
 
+    @Test
+    public void metricsListener() throws InterruptedException, ExecutionException {
+        final HistogramMetricsListener metrics = new HistogramMetricsListener();
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder().metricsListener(metrics).build();
+        for (int i = 0; i < 10; i++) {
+            arangoDB.getVersion().get();
+        }
+        try {
+            arangoDB.db("no").getInfo().get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+        arangoDB.shutdown();
+        assertThat(metrics.getTotalLatency().getCount(), is(greaterThanOrEqualTo(11L)));
+        assertThat(metrics.getNetworkLatency().getMax(), is(greaterThan(0L)));
+        assertThat(metrics.getChunksWritten(), is(greaterThanOrEqualTo(11L)));
+        assertThat(metrics.getBytesWritten(), is(greaterThan(0L)));
+        assertThat(metrics.getBytesRead(), is(greaterThan(0L)));
+        assertThat(metrics.getInFlight().values(), everyItem(is(0)));
+        assertThat(metrics.getErrors(), hasEntry(1228, 1L));
+    }
+
     @Test(timeout = 2000)
     public void nestedGetVersion() {
         final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder().build();
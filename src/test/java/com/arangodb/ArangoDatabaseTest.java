@@ -31,12 +31,15 @@ import com.arangodb.velocypack.VPackSlice;
 import com.arangodb.velocypack.exception.VPackException;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -509,6 +512,25 @@ public class ArangoDatabaseTest extends BaseTest {
         }
     }
 
+    @Test
+    public void queryRaw() throws InterruptedException, ExecutionException {
+        try {
+            db.createCollection(COLLECTION_NAME, null).get();
+            for (int i = 0; i < 10; i++) {
+                db.collection(COLLECTION_NAME).insertDocument(new BaseDocument(), null).get();
+            }
+            final ArangoCursorAsync<VPackSlice> cursor = db.queryRaw("for i in db_test return i._id", null,
+                    new AqlQueryOptions().batchSize(4)).get();
+            final List<VPackSlice> batches = cursor.streamRemaining().collect(Collectors.toList());
+            assertThat(batches.size(), is(3));
+            assertThat(batches.get(0).size(), is(4));
+            assertThat(batches.get(2).size(), is(2));
+            assertThat(batches.get(0).get(0).getAsString(), startsWith(COLLECTION_NAME + "/"));
+        } finally {
+            db.collection(COLLECTION_NAME).drop().get();
+        }
+    }
+
     @Test
     public void queryStreamWithBatchSize() throws InterruptedException, ExecutionException {
         try {
@@ -527,6 +549,172 @@ public class ArangoDatabaseTest extends BaseTest {
         }
     }
 
+    @Test
+    public void queryNextBatch() throws InterruptedException, ExecutionException {
+        final ArangoCursorAsync<Integer> cursor = db.query("for i in 1..10 return i", null,
+                new AqlQueryOptions().batchSize(4), Integer.class).get();
+        final List<Integer> first = cursor.nextBatch().get();
+        assertThat(first, contains(1, 2, 3, 4));
+        assertThat(cursor.nextBatch().get(), contains(5, 6, 7, 8));
+        assertThat(cursor.nextBatch().get(), contains(9, 10));
+        assertThat(cursor.hasNext(), is(false));
+        assertThat(cursor.nextBatch().get(), is(empty()));
+    }
+
+    @Test
+    public void queryNextBatchAfterNext() throws InterruptedException, ExecutionException {
+        final ArangoCursorAsync<Integer> cursor = db.query("for i in 1..10 return i", null,
+                new AqlQueryOptions().batchSize(4), Integer.class).get();
+        assertThat(cursor.next(), is(1));
+        assertThat(cursor.nextBatch().get(), contains(2, 3, 4));
+        assertThat(cursor.next(), is(5));
+    }
+
+    @Test
+    public void queryForEachAsync() throws InterruptedException, ExecutionException {
+        final ArangoCursorAsync<Integer> cursor = db.query("for i in 1..10 return i", null,
+                new AqlQueryOptions().batchSize(3), Integer.class).get();
+        final List<Integer> result = new ArrayList<>();
+        cursor.forEachAsync(result::add).get();
+        assertThat(result, contains(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        assertThat(cursor.hasNext(), is(false));
+    }
+
+    @Test
+    public void queryWithPrefetch() throws InterruptedException, ExecutionException {
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder().cursorPrefetch(2).build();
+        try {
+            final ArangoCursorAsync<Integer> cursor = arangoDB.db().query("for i in 1..10 return i", null,
+                    new AqlQueryOptions().batchSize(2), Integer.class).get();
+            assertThat(cursor.next(), is(1));
+            assertThat(cursor.nextBatch().get(), contains(2));
+            assertThat(cursor.nextBatch().get(), contains(3, 4));
+            assertThat(cursor.asListRemaining(), contains(5, 6, 7, 8, 9, 10));
+        } finally {
+            arangoDB.shutdown();
+        }
+    }
+
+    @Test
+    public void queryCloseWithPrefetch() throws InterruptedException, ExecutionException {
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder().cursorPrefetch(2).build();
+        try {
+            final ArangoCursorAsync<Integer> cursor = arangoDB.db().query("for i in 1..10 return i", null,
+                    new AqlQueryOptions().batchSize(2), Integer.class).get();
+            cursor.closeAsync().get();
+            assertThat(cursor.nextBatch().get(), contains(1, 2));
+            try {
+                cursor.nextBatch().get();
+                fail();
+            } catch (final ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+            }
+        } finally {
+            arangoDB.shutdown();
+        }
+    }
+
+    @Test
+    public void queryPublisher() throws InterruptedException, ExecutionException {
+        final List<Integer> result = new ArrayList<>();
+        final CompletableFuture<List<Integer>> done = new CompletableFuture<>();
+        db.queryPublisher("for i in 1..10 return i", null, new AqlQueryOptions().batchSize(3), Integer.class)
+                .subscribe(new Subscriber<Integer>() {
+                    private Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(final Subscription s) {
+                        subscription = s;
+                        s.request(1);
+                    }
+
+                    @Override
+                    public void onNext(final Integer t) {
+                        result.add(t);
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onError(final Throwable t) {
+                        done.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        done.complete(result);
+                    }
+                });
+        assertThat(done.get(), contains(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+    }
+
+    @Test
+    public void queryPublisherCancel() throws InterruptedException, ExecutionException {
+        final List<Integer> result = new ArrayList<>();
+        final CompletableFuture<List<Integer>> done = new CompletableFuture<>();
+        db.queryPublisher("for i in 1..10 return i", null, new AqlQueryOptions().batchSize(2), Integer.class)
+                .subscribe(new Subscriber<Integer>() {
+                    private Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(final Subscription s) {
+                        subscription = s;
+                        s.request(3);
+                    }
+
+                    @Override
+                    public void onNext(final Integer t) {
+                        result.add(t);
+                        if (result.size() == 3) {
+                            subscription.cancel();
+                            done.complete(result);
+                        }
+                    }
+
+                    @Override
+                    public void onError(final Throwable t) {
+                        done.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        done.complete(result);
+                    }
+                });
+        assertThat(done.get(), contains(1, 2, 3));
+    }
+
+    @Test
+    public void queryPublisherError() throws InterruptedException {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        db.queryPublisher("for i in no_collection return i", null, null, Integer.class)
+                .subscribe(new Subscriber<Integer>() {
+                    @Override
+                    public void onSubscribe(final Subscription s) {
+                        s.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(final Integer t) {
+                    }
+
+                    @Override
+                    public void onError(final Throwable t) {
+                        done.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        done.complete(null);
+                    }
+                });
+        try {
+            done.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+    }
+
     /**
      * ignored. takes to long
      */
@@ -721,6 +909,20 @@ public class ArangoDatabaseTest extends BaseTest {
 
     }
 
+    @Test
+    public void queryCloseAsync() throws InterruptedException, ExecutionException {
+        final ArangoCursorAsync<Integer> cursor = db.query("for i in 1..2 return i", null,
+                new AqlQueryOptions().batchSize(1), Integer.class).get();
+        cursor.closeAsync().get();
+        assertThat(cursor.nextBatch().get(), contains(1));
+        try {
+            cursor.nextBatch().get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+    }
+
     @Test
     public void explainQuery() throws InterruptedException, ExecutionException {
         arangoDB.db().explainQuery("for i in 1..1 return i", null, null)
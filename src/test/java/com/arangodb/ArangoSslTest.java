@@ -77,6 +77,26 @@ public class ArangoSslTest {
 		assertThat(version, is(notNullValue()));
 	}
 
+	@Test
+	@Ignore
+	public void connectWithNio() throws Exception {
+		final KeyStore ks = KeyStore.getInstance(KeyStore.getDefaultType());
+		ks.load(this.getClass().getResourceAsStream(SSL_TRUSTSTORE), SSL_TRUSTSTORE_PASSWORD.toCharArray());
+
+		final TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		tmf.init(ks);
+
+		final SSLContext sc = SSLContext.getInstance("TLS");
+		sc.init(null, tmf.getTrustManagers(), null);
+
+		final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder()
+				.loadProperties(ArangoSslTest.class.getResourceAsStream("/arangodb-ssl.properties")).useSsl(true)
+				.sslContext(sc).useNio(true).build();
+		final ArangoDBVersion version = arangoDB.getVersion().get();
+		assertThat(version, is(notNullValue()));
+		arangoDB.shutdown();
+	}
+
 	@Test
 	@Ignore
 	public void connectWithoutValidSslContext() throws Exception {
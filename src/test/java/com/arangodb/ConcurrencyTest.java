@@ -22,17 +22,22 @@ package com.arangodb;
 
 
 import com.arangodb.entity.ArangoDBVersion;
-import com.arangodb.internal.ArangoExecutorAsync;
+import com.arangodb.internal.velocystream.VstConnectionBlocking;
+import com.arangodb.metrics.WriteStatistics;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Michele Rastelli
  */
@@ -46,12 +51,14 @@ public class ConcurrencyTest {
     }
 
     /**
-     * FIXME:   make the user executor configurable in com.arangodb.internal.ArangoExecutorAsync::execute
-     * (eg. this test passes using a CachedThreadPool)
+     * blocking callbacks must not be limited by the parallelism of the completion executor
      */
-    @Ignore
     @Test(timeout = 2000)
     public void executorLimit() {
+        final ExecutorService completionExecutor = Executors.newCachedThreadPool();
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder()
+                .completionExecutor(completionExecutor)
+                .build();
         List<CompletableFuture<ArangoDBVersion>> futures = IntStream.range(0, 20)
                 .mapToObj(i -> arangoDB.getVersion()
                         .whenComplete((dbVersion, ex) -> {
@@ -71,13 +78,64 @@ public class ConcurrencyTest {
                 e.printStackTrace();
             }
         });
+        arangoDB.shutdown();
+        completionExecutor.shutdown();
+    }
+
+    @Test
+    public void directCompletionExecutor() throws ExecutionException, InterruptedException {
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder()
+                .completionExecutor(Runnable::run)
+                .build();
+        final String thread = arangoDB.getVersion()
+                .thenApply(version -> Thread.currentThread().getName())
+                .get();
+        assertThat(thread, is(notNullValue()));
+        assertThat(thread, not(startsWith("ForkJoinPool.commonPool")));
+        arangoDB.shutdown();
+    }
+
+    /**
+     * requests queued while the outgoing executor is busy should be flushed together
+     */
+    @Test
+    public void writeCoalescing() throws ExecutionException, InterruptedException {
+        final ExecutorService outgoingExecutor = Executors.newSingleThreadExecutor();
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder()
+                .outgoingExecutor(outgoingExecutor)
+                .writeCoalescing(true)
+                .build();
+        final CompletableFuture<?>[] futures = IntStream.range(0, 1_000)
+                .mapToObj(i -> arangoDB.getVersion())
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture.allOf(futures).get();
+        final WriteStatistics statistics = arangoDB.getWriteStatistics();
+        assertThat(statistics.getMessages(), is(greaterThanOrEqualTo(1_000L)));
+        assertThat(statistics.getFlushes(), is(lessThan(statistics.getMessages())));
+        arangoDB.shutdown();
+        outgoingExecutor.shutdown();
     }
 
+    @Test
+    public void nioTransport() throws ExecutionException, InterruptedException {
+        final ArangoDBAsync arangoDB = new ArangoDBAsync.Builder()
+                .useNio(true)
+                .nioThreads(2)
+                .maxConnections(4)
+                .build();
+        final List<CompletableFuture<ArangoDBVersion>> futures = IntStream.range(0, 10_000)
+                .mapToObj(i -> arangoDB.getVersion())
+                .collect(Collectors.toList());
+        for (final CompletableFuture<ArangoDBVersion> future : futures) {
+            assertThat(future.get().getVersion(), is(notNullValue()));
+        }
+        assertThat(arangoDB.getWriteStatistics().getFlushes(), is(lessThan(10_000L)));
+        arangoDB.shutdown();
+    }
 
     /**
-     * outgoing requests should be queued in the {@link ArangoExecutorAsync} outgoingExecutor
+     * outgoing requests should be queued in the send queue of the {@link VstConnectionBlocking}
      */
-    @Ignore
     @Test(timeout = 1000)
     public void outgoingRequestsParallelismTest() {
         for (int i = 0; i < 50_000; i++) {
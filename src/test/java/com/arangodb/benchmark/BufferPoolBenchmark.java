@@ -0,0 +1,112 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoCollectionAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.RequestType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of a document of {@value #DOCUMENT_SIZE} bytes, with and without pooled buffers. The read document
+ * is deserialized into a projection of its key only, so that the measured allocations are dominated by the transport
+ * rather than by the deserialization. Run with the gc profiler to compare the allocation rate:
+ * <code>-prof gc</code>. The allocations of the in-process server are included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BufferPoolBenchmark {
+
+    private static final int DOCUMENT_SIZE = 64 * 1024;
+
+    @Param({"false", "true"})
+    private boolean pooledBuffers;
+
+    @Param({"false", "true"})
+    private boolean useNio;
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+    private ArangoCollectionAsync collection;
+    private VPackSlice document;
+
+    public static class Projection {
+        private String _key;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        final Map<String, Object> value = new LinkedHashMap<>();
+        value.put("_key", "key");
+        value.put("value", String.join("", Collections.nCopies(DOCUMENT_SIZE, "x")));
+        document = LoopbackVstServer.toSlice(value);
+        final Map<String, Object> created = new LinkedHashMap<>();
+        created.put("_key", "key");
+        created.put("_id", "bench/key");
+        created.put("_rev", "1");
+        final Reply read = Reply.ok(document);
+        final Reply write = Reply.of(202, created);
+        server = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/document/bench/", request -> read)
+                .route(RequestType.POST, "/_api/document/bench", request -> write)
+                .start();
+        arangoDB = server.clientBuilder().pooledBuffers(pooledBuffers).useNio(useNio).build();
+        collection = arangoDB.db().collection("bench");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        arangoDB.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public Projection getDocument() throws ExecutionException, InterruptedException {
+        return collection.getDocument("key", Projection.class).get();
+    }
+
+    @Benchmark
+    public DocumentCreateEntity<VPackSlice> insertDocument() throws ExecutionException, InterruptedException {
+        return collection.insertDocument(document).get();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BufferPoolBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
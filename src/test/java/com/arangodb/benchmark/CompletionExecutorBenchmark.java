@@ -0,0 +1,126 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.ArangoDBVersion;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.*;
+
+/**
+ * Throughput of {@link ArangoDBAsync#getVersion()} with the different completion executors, while the
+ * {@link ForkJoinPool#commonPool()} is kept busy by CPU bound tasks of the application.
+ * <p>
+ * Requires an ArangoDB server reachable with the settings in <code>arangodb.properties</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompletionExecutorBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"commonPool", "cachedThreadPool", "direct"})
+    private String completionExecutor;
+
+    @Param({"false", "true"})
+    private boolean saturatedCommonPool;
+
+    private ArangoDBAsync arangoDB;
+    private ExecutorService executor;
+    private Thread loadGenerator;
+
+    @Setup
+    public void setup() {
+        final ArangoDBAsync.Builder builder = new ArangoDBAsync.Builder();
+        switch (completionExecutor) {
+            case "cachedThreadPool":
+                executor = Executors.newCachedThreadPool();
+                builder.completionExecutor(executor);
+                break;
+            case "direct":
+                builder.completionExecutor(Runnable::run);
+                break;
+            default:
+                break;
+        }
+        arangoDB = builder.build();
+        if (saturatedCommonPool) {
+            loadGenerator = new Thread(CompletionExecutorBenchmark::saturateCommonPool, "common-pool-load");
+            loadGenerator.setDaemon(true);
+            loadGenerator.start();
+        }
+    }
+
+    /**
+     * keeps the queues of the common pool filled with short CPU bound tasks, submitted from outside the pool like an
+     * application would do
+     */
+    private static void saturateCommonPool() {
+        final Semaphore outstanding = new Semaphore(4 * ForkJoinPool.getCommonPoolParallelism());
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                outstanding.acquire();
+                ForkJoinPool.commonPool().execute(() -> {
+                    Blackhole.consumeCPU(100_000);
+                    outstanding.release();
+                });
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (loadGenerator != null) {
+            loadGenerator.interrupt();
+            loadGenerator.join();
+        }
+        arangoDB.shutdown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void getVersion(final Blackhole bh) {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            futures[i] = arangoDB.getVersion().thenApply(ArangoDBVersion::getVersion);
+        }
+        bh.consume(CompletableFuture.allOf(futures).join());
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompletionExecutorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
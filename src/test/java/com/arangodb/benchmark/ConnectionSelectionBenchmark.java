@@ -0,0 +1,110 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.ConnectionSelectionStrategy;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of small reads sent on {@value #CONNECTIONS} connections, while one connection at a time is
+ * busy with a slow request, e.g. a large cursor batch. The server handles the requests of a connection in order, so
+ * a small read sent on the busy connection waits for the slow request.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionSelectionBenchmark {
+
+    private static final int CONNECTIONS = 4;
+
+    @Param({"ROUND_ROBIN", "LEAST_OUTSTANDING"})
+    private ConnectionSelectionStrategy strategy;
+
+    @Param({"20"})
+    private long slowMillis;
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+    private volatile boolean running;
+    private Thread slowRequests;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/slow", request -> {
+                    Thread.sleep(slowMillis);
+                    return Reply.ok(Collections.emptyMap());
+                })
+                .route(RequestType.GET, "/_api/fast", request -> Reply.ok(Collections.emptyMap()))
+                .start();
+        arangoDB = server.clientBuilder().maxConnections(CONNECTIONS).connectionSelectionStrategy(strategy).build();
+        running = true;
+        slowRequests = new Thread(() -> {
+            while (running) {
+                try {
+                    arangoDB.execute(new Request("_system", RequestType.GET, "/_api/slow")).get();
+                } catch (final InterruptedException e) {
+                    return;
+                } catch (final ExecutionException e) {
+                    // shutting down
+                }
+            }
+        });
+        slowRequests.setDaemon(true);
+        slowRequests.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        running = false;
+        slowRequests.join();
+        arangoDB.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public Response read() throws ExecutionException, InterruptedException {
+        return arangoDB.execute(new Request("_system", RequestType.GET, "/_api/fast")).get();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConnectionSelectionBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.internal.velocystream.InMemoryVstConnection;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.RequestType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to iterate over a cursor of {@value #BATCHES} batches of documents, answered by an
+ * {@link InMemoryVstConnection}, either through its blocking iterator or through
+ * {@link ArangoCursorAsync#forEachAsync(java.util.function.Consumer)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CursorIterationBenchmark {
+
+    private static final int BATCHES = 10;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ArangoDBAsync arangoDB;
+
+    @Setup
+    public void setup() {
+        final List<BaseDocument> batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            final BaseDocument doc = new BaseDocument("key" + i);
+            doc.addAttribute("name", "name" + i);
+            doc.addAttribute("value", i);
+            batch.add(doc);
+        }
+        final Reply first = Reply.of(201, cursorBatch(batch, 1));
+        final List<Reply> next = new ArrayList<>();
+        for (int i = 2; i <= BATCHES; i++) {
+            next.add(Reply.ok(cursorBatch(batch, i)));
+        }
+        // the batches are served in order, the benchmark consumes a single cursor at a time
+        final int[] served = {0};
+        arangoDB = InMemoryVstConnection.client(request -> {
+            if (request.getRequestType() == RequestType.POST) {
+                served[0] = 0;
+                return first;
+            }
+            return next.get(served[0]++);
+        });
+    }
+
+    private static Map<String, Object> cursorBatch(final List<BaseDocument> batch, final int index) {
+        final Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("id", "1");
+        cursor.put("result", batch);
+        cursor.put("hasMore", index < BATCHES);
+        cursor.put("error", false);
+        return cursor;
+    }
+
+    @TearDown
+    public void tearDown() {
+        arangoDB.shutdown();
+    }
+
+    @Benchmark
+    public void iterate(final Blackhole bh) {
+        final ArangoCursorAsync<BaseDocument> cursor = arangoDB.db()
+                .query("for d in benchmark return d", BaseDocument.class).join();
+        cursor.forEachRemaining(bh::consume);
+    }
+
+    @Benchmark
+    public void forEachAsync(final Blackhole bh) {
+        final ArangoCursorAsync<BaseDocument> cursor = arangoDB.db()
+                .query("for d in benchmark return d", BaseDocument.class).join();
+        cursor.forEachAsync(bh::consume).join();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CursorIterationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.RequestType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Time to consume a cursor of {@value #BATCHES} batches served with a simulated network latency, while the consumer
+ * spends some CPU time on every element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CursorPrefetchBenchmark {
+
+    private static final int BATCHES = 20;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"0", "1", "4"})
+    private int prefetch;
+
+    @Param({"1000"})
+    private long latencyMicros;
+
+    @Param({"2000"})
+    private long tokensPerElement;
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+
+    @Setup
+    public void setup() throws IOException {
+        final List<Integer> batch = IntStream.range(0, BATCH_SIZE).boxed().collect(Collectors.toList());
+        final AtomicLong ids = new AtomicLong();
+        final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+        server = new LoopbackVstServer()
+                .latency(() -> latencyMicros)
+                .route(RequestType.POST, "/_api/cursor", request -> {
+                    final String id = String.valueOf(ids.incrementAndGet());
+                    cursors.put(id, new AtomicInteger(1));
+                    return Reply.of(201, cursorBatch(id, batch, true));
+                })
+                .route(RequestType.PUT, "/_api/cursor/", request -> {
+                    final String id = request.getRequest().substring("/_api/cursor/".length());
+                    final boolean hasMore = cursors.get(id).incrementAndGet() < BATCHES;
+                    if (!hasMore) {
+                        cursors.remove(id);
+                    }
+                    return Reply.ok(cursorBatch(id, batch, hasMore));
+                })
+                .start();
+        arangoDB = server.clientBuilder().cursorPrefetch(prefetch).build();
+    }
+
+    private static Map<String, Object> cursorBatch(final String id, final List<Integer> batch, final boolean hasMore) {
+        final Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("id", id);
+        cursor.put("result", batch);
+        cursor.put("hasMore", hasMore);
+        cursor.put("error", false);
+        return cursor;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        arangoDB.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public void consumeCursor(final Blackhole bh) throws ExecutionException, InterruptedException {
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 1..2000 return i", Integer.class).get();
+        cursor.forEachAsync(e -> {
+            Blackhole.consumeCPU(tokensPerElement);
+            bh.consume(e);
+        }).get();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CursorPrefetchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
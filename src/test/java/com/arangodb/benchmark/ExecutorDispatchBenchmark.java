@@ -0,0 +1,93 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.ArangoDBVersion;
+import com.arangodb.internal.velocystream.InMemoryVstConnection;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of dispatching a request through {@link com.arangodb.internal.ArangoExecutorAsync}: connection lookup,
+ * message building, response decoding and deserialization of the result or of the error. The requests are answered
+ * by an {@link InMemoryVstConnection} and the futures are completed in the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorDispatchBenchmark {
+
+    private ArangoDBAsync arangoDB;
+    private ArangoDBAsync failing;
+    private Request request;
+
+    @Setup
+    public void setup() {
+        final Map<String, Object> version = new LinkedHashMap<>();
+        version.put("server", "arango");
+        version.put("version", "3.6.0");
+        version.put("license", "community");
+        arangoDB = InMemoryVstConnection.client(InMemoryVstConnection.replying(Reply.ok(version)));
+        failing = InMemoryVstConnection.client(InMemoryVstConnection.replying(
+                Reply.error(503, 503, "service unavailable")));
+        request = new Request("_system", RequestType.GET, "/_api/version");
+    }
+
+    @TearDown
+    public void tearDown() {
+        arangoDB.shutdown();
+        failing.shutdown();
+    }
+
+    @Benchmark
+    public Response execute() {
+        return arangoDB.execute(request).join();
+    }
+
+    @Benchmark
+    public ArangoDBVersion getVersion() {
+        return arangoDB.getVersion().join();
+    }
+
+    @Benchmark
+    public Throwable getVersionError() {
+        return failing.getVersion().handle((r, e) -> e).join();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExecutorDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.internal.velocystream.VstCommunicationBenchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the driver hot paths, which need no ArangoDB server, together with the GC profiler reporting
+ * the allocation rate and the bytes allocated per operation ({@code gc.alloc.rate.norm}). Further JMH command line
+ * options can be passed as arguments, e.g. {@code -wi 1 -i 3}:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.arangodb.benchmark.HotPathBenchmarks
+ * </pre>
+ */
+public class HotPathBenchmarks {
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args))
+                .include(VstCommunicationBenchmark.class.getSimpleName())
+                .include(ExecutorDispatchBenchmark.class.getSimpleName())
+                .include(CursorIterationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+
+}
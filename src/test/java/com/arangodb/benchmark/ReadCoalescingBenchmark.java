@@ -0,0 +1,120 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.benchmark;
+
+import com.arangodb.ArangoCollectionAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.RequestType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@value #READS} concurrent single document reads, each of them served with a simulated network
+ * latency, with and without read coalescing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadCoalescingBenchmark {
+
+    private static final int READS = 200;
+    private static final int KEYS = 50;
+
+    @Param({"false", "true"})
+    private boolean readCoalescing;
+
+    @Param({"200"})
+    private long latencyMicros;
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+    private ArangoCollectionAsync collection;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new LoopbackVstServer()
+                .latency(() -> latencyMicros)
+                .route(RequestType.GET, "/_api/document/bench/", request -> {
+                    final String path = request.getRequest();
+                    return Reply.ok(document(path.substring(path.lastIndexOf('/') + 1)));
+                })
+                .route(RequestType.PUT, "/_api/document/bench", request -> {
+                    final List<Map<String, Object>> documents = new ArrayList<>();
+                    final Iterator<VPackSlice> keys = request.getBody().arrayIterator();
+                    while (keys.hasNext()) {
+                        documents.add(document(keys.next().getAsString()));
+                    }
+                    return Reply.ok(documents);
+                })
+                .start();
+        arangoDB = server.clientBuilder().readCoalescing(readCoalescing).build();
+        collection = arangoDB.db().collection("bench");
+    }
+
+    private static Map<String, Object> document(final String key) {
+        final Map<String, Object> document = new LinkedHashMap<>();
+        document.put("_key", key);
+        document.put("_id", "bench/" + key);
+        document.put("_rev", "1");
+        document.put("value", key);
+        return document;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        arangoDB.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public List<BaseDocument> getDocument() throws ExecutionException, InterruptedException {
+        final List<CompletableFuture<BaseDocument>> reads = new ArrayList<>(READS);
+        for (int i = 0; i < READS; i++) {
+            reads.add(collection.getDocument(String.valueOf(i % KEYS), BaseDocument.class));
+        }
+        final List<BaseDocument> documents = new ArrayList<>(READS);
+        for (final CompletableFuture<BaseDocument> read : reads) {
+            documents.add(read.get());
+        }
+        return documents;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReadCoalescingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
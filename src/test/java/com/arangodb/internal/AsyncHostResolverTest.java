@@ -0,0 +1,133 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.LoadBalancingStrategy;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.RequestType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class AsyncHostResolverTest {
+
+    private final AtomicLong firstRequests = new AtomicLong();
+    private final AtomicLong secondRequests = new AtomicLong();
+    private LoopbackVstServer first;
+    private LoopbackVstServer second;
+    private ArangoDBAsync arangoDB;
+
+    @After
+    public void teardown() throws IOException {
+        if (arangoDB != null) {
+            arangoDB.shutdown();
+        }
+        for (final LoopbackVstServer server : Arrays.asList(first, second)) {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static LoopbackVstServer server(final AtomicLong versionRequests, final Supplier<Reply> endpoints)
+            throws IOException {
+        return new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/cluster/endpoints", request -> endpoints.get())
+                .route(RequestType.GET, "/_api/version", request -> {
+                    versionRequests.incrementAndGet();
+                    return Reply.ok(Collections.singletonMap("version", "3.7"));
+                })
+                .start();
+    }
+
+    private static Reply endpoints(final LoopbackVstServer... servers) {
+        final List<Map<String, String>> endpoints = Arrays.stream(servers)
+                .map(s -> Collections.singletonMap("endpoint", "tcp://127.0.0.1:" + s.getPort()))
+                .collect(Collectors.toList());
+        return Reply.ok(Collections.singletonMap("endpoints", endpoints));
+    }
+
+    private void startServers(final Supplier<Reply> endpoints) throws IOException {
+        second = server(secondRequests, endpoints);
+        first = server(firstRequests, endpoints);
+        arangoDB = first.clientBuilder().acquireHostList(true)
+                .loadBalancingStrategy(LoadBalancingStrategy.ROUND_ROBIN).build();
+    }
+
+    /**
+     * Sends requests until the condition holds, the host list is acquired in the background.
+     */
+    private void sendUntil(final BooleanSupplier condition) throws ExecutionException, InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        do {
+            assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+        } while (!condition.getAsBoolean() && System.nanoTime() < deadline);
+    }
+
+    @Test
+    public void addAcquiredHosts() throws IOException, ExecutionException, InterruptedException {
+        startServers(() -> endpoints(first, second));
+        sendUntil(() -> secondRequests.get() > 0);
+        assertThat(secondRequests.get(), is(greaterThan(0L)));
+        assertThat(firstRequests.get(), is(greaterThan(0L)));
+        assertThat(second.getConnectionCount(), is(1L));
+    }
+
+    @Test
+    public void removeHostsNoLongerListed() throws IOException, ExecutionException, InterruptedException {
+        startServers(() -> endpoints(second));
+        sendUntil(() -> secondRequests.get() > 0);
+        final long sent = firstRequests.get();
+        for (int i = 0; i < 10; i++) {
+            arangoDB.getVersion().get();
+        }
+        assertThat(firstRequests.get(), is(sent));
+        assertThat(secondRequests.get(), is(greaterThanOrEqualTo(10L)));
+    }
+
+    @Test
+    public void keepHostsWhenForbidden() throws IOException, ExecutionException, InterruptedException {
+        startServers(() -> Reply.error(403, 11, "forbidden"));
+        for (int i = 0; i < 10; i++) {
+            assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+        }
+        assertThat(firstRequests.get(), is(10L));
+        assertThat(secondRequests.get(), is(0L));
+    }
+
+}
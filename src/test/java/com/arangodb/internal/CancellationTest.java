@@ -0,0 +1,139 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.metrics.MetricsListener;
+import com.arangodb.model.AqlQueryOptions;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class CancellationTest {
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+
+    @After
+    public void teardown() throws IOException {
+        if (arangoDB != null) {
+            arangoDB.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void cancelRequest() throws IOException, ExecutionException, InterruptedException {
+        final Queue<Long> received = new ConcurrentLinkedQueue<>();
+        server = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+        arangoDB = server.clientBuilder().metricsListener(new MetricsListener() {
+            @Override
+            public void responseReceived(final String connection, final int inFlight, final long bytes) {
+                received.add(bytes);
+            }
+        }).build();
+        // opens the connection
+        arangoDB.getVersion().get();
+        received.clear();
+
+        server.latency(() -> TimeUnit.MILLISECONDS.toMicros(200));
+        final CompletableFuture<Response> response = arangoDB
+                .execute(new Request("_system", RequestType.GET, "/_api/version"));
+        response.cancel(false);
+        // the request is abandoned at once, without a response
+        assertThat(received, contains(0L));
+
+        // the late response is dropped
+        Thread.sleep(400);
+        assertThat(received, contains(0L));
+        server.latency(() -> 0L);
+        assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+    }
+
+    @Test
+    public void cancelQuery() throws IOException, InterruptedException {
+        final List<Integer> results = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> results).start();
+        arangoDB = server.clientBuilder().build();
+        server.latency(() -> TimeUnit.MILLISECONDS.toMicros(100));
+        final CompletableFuture<ArangoCursorAsync<Integer>> cursor = arangoDB.db()
+                .query("for i in 0..99 return i", new AqlQueryOptions().batchSize(10), Integer.class);
+        cursor.cancel(false);
+        // the cursor created by the query is released once the first batch arrived
+        await(() -> server.getRequestCount() >= 2 && server.getOpenCursors() == 0);
+        assertThat(server.getOpenCursors(), is(0));
+    }
+
+    @Test
+    public void cancelForEach() throws IOException, ExecutionException, InterruptedException {
+        final List<Integer> results = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> results).start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 0..99 return i", new AqlQueryOptions().batchSize(10), Integer.class).get();
+        server.latency(() -> TimeUnit.MILLISECONDS.toMicros(50));
+        final AtomicReference<CompletableFuture<Void>> done = new AtomicReference<>();
+        final AtomicInteger consumed = new AtomicInteger();
+        // the second batch is consumed after the response arrived, once forEachAsync has returned
+        done.set(cursor.forEachAsync(e -> {
+            if (consumed.incrementAndGet() == 15) {
+                done.get().cancel(false);
+            }
+        }));
+        await(() -> server.getOpenCursors() == 0);
+        assertThat(server.getOpenCursors(), is(0));
+        assertThat(consumed.get(), is(20));
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
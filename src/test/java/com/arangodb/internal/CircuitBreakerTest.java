@@ -0,0 +1,230 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.CircuitBreakerState;
+import com.arangodb.entity.LoadBalancingStrategy;
+import com.arangodb.internal.CircuitBreaker.Permit;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.metrics.MetricsListener;
+import com.arangodb.velocystream.RequestType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final HostDescription HOST = new HostDescription("127.0.0.1", 8529);
+
+    private final List<CircuitBreakerState> states = new CopyOnWriteArrayList<>();
+    private final MetricsListener listener = new MetricsListener() {
+        @Override
+        public void circuitBreakerStateChanged(final String host, final CircuitBreakerState state) {
+            assertThat(host, is("127.0.0.1:8529"));
+            states.add(state);
+        }
+    };
+
+    private static void record(final CircuitBreaker breaker, final Throwable failure) {
+        breaker.requestCompleted(HOST, breaker.acquire(HOST), failure);
+    }
+
+    private static ArangoDBException connectionClosed() {
+        return new ArangoDBException(new IOException("The connection is closed."));
+    }
+
+    @Test
+    public void openOnConsecutiveFailures() {
+        final CircuitBreaker breaker = new CircuitBreaker(3, 0.5, 5000, listener);
+        record(breaker, connectionClosed());
+        record(breaker, connectionClosed());
+        record(breaker, null);
+        record(breaker, connectionClosed());
+        record(breaker, new ArangoDBException("unavailable", 503));
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.CLOSED));
+        record(breaker, connectionClosed());
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.OPEN));
+        assertThat(breaker.acquire(HOST), is(Permit.REJECTED));
+        assertThat(states, contains(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void openOnTimeoutRatio() {
+        final CircuitBreaker breaker = new CircuitBreaker(3, 0.25, 5000, listener);
+        for (int i = 0; i < 4; i++) {
+            record(breaker, null);
+            record(breaker, new ArangoDBException(new TimeoutException()));
+        }
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.CLOSED));
+        record(breaker, new ArangoDBException(new TimeoutException()));
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void timeoutRatioOfLastRequests() {
+        final CircuitBreaker breaker = new CircuitBreaker(10, 0.25, 5000, listener);
+        for (int i = 0; i < 4; i++) {
+            record(breaker, new ArangoDBException(new TimeoutException()));
+        }
+        for (int i = 0; i < CircuitBreaker.WINDOW; i++) {
+            record(breaker, null);
+        }
+        record(breaker, new ArangoDBException(new TimeoutException()));
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.CLOSED));
+        // a burst straddling a multiple of the window size
+        for (int i = 0; i < CircuitBreaker.WINDOW - 7; i++) {
+            record(breaker, null);
+        }
+        for (int i = 0; i < 4; i++) {
+            record(breaker, new ArangoDBException(new TimeoutException()));
+        }
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void ignoreClientErrorsAndCancellations() {
+        final CircuitBreaker breaker = new CircuitBreaker(1, 0.5, 5000, listener);
+        record(breaker, new ArangoDBException("not found", 404));
+        record(breaker, new CancellationException());
+        breaker.requestCancelled(HOST, breaker.acquire(HOST));
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.CLOSED));
+        assertThat(states, is(empty()));
+    }
+
+    @Test
+    public void probeAfterOpenTime() throws InterruptedException {
+        final CircuitBreaker breaker = new CircuitBreaker(1, 0.5, 50, listener);
+        record(breaker, connectionClosed());
+        assertThat(breaker.acquire(HOST), is(Permit.REJECTED));
+        Thread.sleep(100);
+        final Permit probe = breaker.acquire(HOST);
+        assertThat(probe, is(Permit.PROBE));
+        assertThat(breaker.acquire(HOST), is(Permit.REJECTED));
+        breaker.requestCompleted(HOST, probe, connectionClosed());
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.OPEN));
+        Thread.sleep(100);
+        breaker.requestCompleted(HOST, breaker.acquire(HOST), null);
+        assertThat(breaker.getState(HOST), is(CircuitBreakerState.CLOSED));
+        assertThat(breaker.acquire(HOST), is(Permit.ACCEPTED));
+        assertThat(states, contains(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN,
+                CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN, CircuitBreakerState.CLOSED));
+    }
+
+    @Test
+    public void rerouteAroundFailingHost() throws IOException, ExecutionException, InterruptedException {
+        try (LoopbackVstServer healthy = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+             LoopbackVstServer failing = new LoopbackVstServer()
+                     .route(RequestType.GET, "/_api/version", request -> Reply.error(503, 503, "unavailable"))
+                     .start()) {
+            final ArangoDBAsync arangoDB = healthy.clientBuilder().host("127.0.0.1", failing.getPort())
+                    .loadBalancingStrategy(LoadBalancingStrategy.ROUND_ROBIN).circuitBreaker(true)
+                    .circuitBreakerFailureThreshold(2).build();
+            try {
+                int failed = 0;
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        arangoDB.getVersion().get();
+                    } catch (final ExecutionException e) {
+                        failed++;
+                    }
+                }
+                // a request may be sent while the breaker records the previous failure
+                assertThat(failed, is(both(greaterThanOrEqualTo(2)).and(lessThanOrEqualTo(3))));
+                assertThat(failing.getRequestCount(), is((long) failed));
+                assertThat(healthy.getRequestCount(), is(20L - failed));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void rerouteWithDefaultStrategy() throws IOException, InterruptedException {
+        try (LoopbackVstServer healthy = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+             LoopbackVstServer failing = new LoopbackVstServer()
+                     .route(RequestType.GET, "/_api/version", request -> Reply.error(503, 503, "unavailable"))
+                     .start()) {
+            // the fallback host handler keeps sending to the first host, which fails
+            final ArangoDBAsync arangoDB = failing.clientBuilder().host("127.0.0.1", healthy.getPort())
+                    .circuitBreaker(true).circuitBreakerFailureThreshold(2).build();
+            try {
+                int failed = 0;
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        arangoDB.getVersion().get();
+                    } catch (final ExecutionException e) {
+                        failed++;
+                    }
+                }
+                assertThat(failed, is(both(greaterThanOrEqualTo(2)).and(lessThanOrEqualTo(3))));
+                assertThat(failing.getRequestCount(), is((long) failed));
+                assertThat(healthy.getRequestCount(), is(20L - failed));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void failFastWithoutHealthyHost() throws IOException, InterruptedException {
+        try (LoopbackVstServer failing = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.error(503, 503, "unavailable"))
+                .start()) {
+            final ArangoDBAsync arangoDB = failing.clientBuilder().circuitBreaker(true)
+                    .circuitBreakerFailureThreshold(2).build();
+            try {
+                for (int i = 0; i < 5; i++) {
+                    try {
+                        arangoDB.getVersion().get();
+                        fail();
+                    } catch (final ExecutionException e) {
+                        assertThat(e.getCause(), is(instanceOf(ArangoDBException.class)));
+                        if (i == 4) {
+                            assertThat(e.getCause().getMessage(), containsString("circuit breaker"));
+                        }
+                    }
+                }
+                assertThat(failing.getRequestCount(), is(both(greaterThanOrEqualTo(2L)).and(lessThanOrEqualTo(3L))));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+}
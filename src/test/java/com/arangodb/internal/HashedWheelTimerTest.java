@@ -0,0 +1,86 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(1);
+        final AtomicLong elapsed = new AtomicLong();
+        final long start = System.nanoTime();
+        // longer than a round of the wheel
+        timer.newTimeout(() -> {
+            elapsed.set(System.nanoTime() - start);
+            expired.countDown();
+        }, 200, TimeUnit.MILLISECONDS);
+        assertThat(expired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed.get()), is(greaterThanOrEqualTo(200L)));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        final AtomicInteger expired = new AtomicInteger();
+        final HashedWheelTimer.Timeout timeout = timer.newTimeout(expired::incrementAndGet, 50,
+                TimeUnit.MILLISECONDS);
+        assertThat(timeout.cancel(), is(true));
+        assertThat(timeout.cancel(), is(false));
+        Thread.sleep(150);
+        assertThat(expired.get(), is(0));
+        assertThat(timer.pendingTimeouts(), is(0));
+    }
+
+    @Test
+    public void manyTimeouts() throws InterruptedException {
+        final int count = 200_000;
+        final CountDownLatch expired = new CountDownLatch(count / 2);
+        for (int i = 0; i < count; i++) {
+            final HashedWheelTimer.Timeout timeout = timer.newTimeout(expired::countDown, 100 + i % 100,
+                    TimeUnit.MILLISECONDS);
+            if (i % 2 == 1) {
+                timeout.cancel();
+            }
+        }
+        assertThat(expired.await(10, TimeUnit.SECONDS), is(true));
+        Thread.sleep(50);
+        assertThat(expired.getCount(), is(0L));
+        assertThat(timer.pendingTimeouts(), is(0));
+    }
+
+}
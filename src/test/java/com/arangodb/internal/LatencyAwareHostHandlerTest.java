@@ -0,0 +1,157 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.ArangoDBException;
+import com.arangodb.internal.net.AccessType;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.net.HostHandle;
+import com.arangodb.internal.net.HostImpl;
+import com.arangodb.internal.net.SimpleHostResolver;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.RequestType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class LatencyAwareHostHandlerTest {
+
+    private static final int SELECTIONS = 10_000;
+
+    private final List<Host> hosts = IntStream.range(0, 3)
+            .mapToObj(i -> new HostImpl(null, new HostDescription("127.0.0.1", 8529 + i)))
+            .collect(Collectors.toList());
+    private final LatencyAwareHostHandler handler = new LatencyAwareHostHandler(new SimpleHostResolver(hosts));
+
+    private void record(final int host, final long millis, final Throwable failure) {
+        for (int i = 0; i < 10; i++) {
+            handler.requestSent(hosts.get(host).getDescription());
+            handler.requestCompleted(hosts.get(host).getDescription(), TimeUnit.MILLISECONDS.toNanos(millis), failure);
+        }
+    }
+
+    private Map<Host, Integer> select() {
+        final Map<Host, Integer> selected = new HashMap<>();
+        for (int i = 0; i < SELECTIONS; i++) {
+            selected.merge(handler.get(null, AccessType.READ), 1, Integer::sum);
+        }
+        return selected;
+    }
+
+    @Test
+    public void preferFastHosts() {
+        record(0, 1, null);
+        record(1, 10, null);
+        record(2, 10, null);
+        final Map<Host, Integer> selected = select();
+        assertThat(selected.get(hosts.get(0)), is(greaterThan(SELECTIONS / 2)));
+        // the slower hosts are still probed
+        assertThat(selected.get(hosts.get(1)), is(greaterThan(0)));
+        assertThat(selected.get(hosts.get(2)), is(greaterThan(0)));
+    }
+
+    @Test
+    public void avoidFailingHosts() {
+        record(0, 1, new ArangoDBException(new IOException("The connection is closed.")));
+        record(1, 10, null);
+        record(2, 10, null);
+        final Map<Host, Integer> selected = select();
+        assertThat(selected.get(hosts.get(0)), is(both(greaterThan(0)).and(lessThan(SELECTIONS / 10))));
+    }
+
+    @Test
+    public void notScoreClientErrorsAndCancellations() {
+        record(0, 1, new ArangoDBException("not found", 404));
+        record(1, 1, new CancellationException());
+        assertThat(handler.score(hosts.get(0).getDescription()).getErrorRate(), is(0.0));
+        assertThat(handler.score(hosts.get(0).getDescription()).getLatency(),
+                is((double) TimeUnit.MILLISECONDS.toNanos(1)));
+        assertThat(handler.score(hosts.get(1).getDescription()).getLatency(), is(0.0));
+    }
+
+    @Test
+    public void keepHostOfHandle() {
+        record(0, 1, null);
+        record(1, 10, null);
+        final HostHandle hostHandle = new HostHandle().setHost(hosts.get(1).getDescription());
+        for (int i = 0; i < 100; i++) {
+            assertThat(handler.get(hostHandle, AccessType.READ), is(hosts.get(1)));
+        }
+    }
+
+    @Test
+    public void failover() {
+        final Host first = handler.get(null, AccessType.WRITE);
+        handler.fail();
+        final Host second = handler.get(null, AccessType.WRITE);
+        assertThat(second, is(not(first)));
+        handler.fail();
+        assertThat(handler.get(null, AccessType.WRITE), is(not(anyOf(is(first), is(second)))));
+        handler.fail();
+        handler.fail();
+        assertThat(handler.get(null, AccessType.WRITE), is(nullValue()));
+        handler.reset();
+        assertThat(handler.get(null, AccessType.WRITE), is(notNullValue()));
+    }
+
+    @Test
+    public void routeAroundSlowServer() throws IOException, ExecutionException, InterruptedException {
+        final LoopbackVstServer fast = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+        final LoopbackVstServer slow = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .latency(() -> TimeUnit.MILLISECONDS.toMicros(10))
+                .start();
+        final ArangoDBAsync arangoDB = fast.clientBuilder().host("127.0.0.1", slow.getPort())
+                .latencyAwareLoadBalancing(true).build();
+        try {
+            for (int i = 0; i < 300; i++) {
+                arangoDB.getVersion().get();
+            }
+            assertThat(slow.getRequestCount(), is(both(greaterThan(0L)).and(lessThan(50L))));
+            assertThat(fast.getRequestCount(), is(300L - slow.getRequestCount()));
+        } finally {
+            arangoDB.shutdown();
+            for (final LoopbackVstServer server : Arrays.asList(fast, slow)) {
+                server.close();
+            }
+        }
+    }
+
+}
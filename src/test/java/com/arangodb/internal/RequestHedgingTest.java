@@ -0,0 +1,195 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.entity.LoadBalancingStrategy;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.model.AqlQueryOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class RequestHedgingTest {
+
+    private static final long SLOW_MICROS = TimeUnit.MILLISECONDS.toMicros(300);
+    private static final long MAX_HEDGED_MILLIS = 150;
+
+    private final AtomicBoolean slow = new AtomicBoolean();
+    private LoopbackVstServer fast;
+    private LoopbackVstServer slowServer;
+    private ArangoDBAsync arangoDB;
+
+    @Before
+    public void setup() throws IOException {
+        fast = server();
+        slowServer = server().latency(() -> slow.get() ? SLOW_MICROS : 0L);
+        arangoDB = fast.clientBuilder().host("127.0.0.1", slowServer.getPort())
+                .loadBalancingStrategy(LoadBalancingStrategy.ROUND_ROBIN).hedgedReads(true).build();
+    }
+
+    private static LoopbackVstServer server() throws IOException {
+        final LoopbackVstServer server = new LoopbackVstServer().collection("c")
+                .cursors(request -> IntStream.range(0, 10).boxed().collect(Collectors.toList())).start();
+        final Map<String, Object> document = new HashMap<>();
+        document.put("_key", "k");
+        document.put("_id", "c/k");
+        document.put("_rev", "1");
+        server.documents("c").put("k", document);
+        return server;
+    }
+
+    @After
+    public void teardown() throws IOException {
+        slow.set(false);
+        arangoDB.shutdown();
+        fast.close();
+        slowServer.close();
+    }
+
+    @Test
+    public void notHedgeBeforeEnoughLatencies() {
+        final RequestHedging hedging = new RequestHedging(95);
+        for (int i = 1; i < RequestHedging.MIN_SAMPLES; i++) {
+            hedging.requestCompleted("a", i);
+        }
+        assertThat(hedging.requestStarted("a"), is(lessThan(0L)));
+        hedging.requestCompleted("a", RequestHedging.MIN_SAMPLES);
+        assertThat(hedging.requestStarted("a"), is(greaterThanOrEqualTo(0L)));
+        assertThat(hedging.requestStarted("b"), is(lessThan(0L)));
+    }
+
+    @Test
+    public void hedgeAfterPercentile() {
+        final RequestHedging hedging = new RequestHedging(90);
+        for (int i = 1; i <= RequestHedging.MIN_SAMPLES * 10; i++) {
+            hedging.requestCompleted("a", TimeUnit.MILLISECONDS.toNanos(i % 100 + 1));
+        }
+        assertThat((double) hedging.requestStarted("a"),
+                is(closeTo(TimeUnit.MILLISECONDS.toNanos(90), TimeUnit.MILLISECONDS.toNanos(6))));
+    }
+
+    @Test
+    public void limitHedgedRequests() {
+        final RequestHedging hedging = new RequestHedging(95);
+        assertThat(hedging.tryHedge(), is(false));
+        for (int i = 0; i < 100; i++) {
+            hedging.requestStarted("a");
+        }
+        int hedged = 0;
+        while (hedging.tryHedge()) {
+            hedged++;
+        }
+        assertThat(hedged, is((int) (100 * RequestHedging.MAX_HEDGE_RATIO)));
+        for (int i = 0; i < 100_000; i++) {
+            hedging.requestStarted("a");
+        }
+        hedged = 0;
+        while (hedging.tryHedge()) {
+            hedged++;
+        }
+        assertThat(hedged, is(RequestHedging.MAX_BURST));
+    }
+
+    @Test
+    public void hedgeSlowDocumentReads() throws ExecutionException, InterruptedException {
+        for (int i = 0; i < 2 * RequestHedging.MIN_SAMPLES; i++) {
+            arangoDB.db().collection("c").getDocument("k", BaseDocument.class).get();
+        }
+        slow.set(true);
+        final long fastRequests = fast.getRequestCount();
+        for (int i = 0; i < 6; i++) {
+            final long start = System.nanoTime();
+            final BaseDocument document = arangoDB.db().collection("c").getDocument("k", BaseDocument.class).get();
+            assertThat(document.getKey(), is("k"));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(MAX_HEDGED_MILLIS)));
+        }
+        // every read is answered by the fast server, either directly or hedged
+        assertThat(fast.getRequestCount() - fastRequests, is(6L));
+    }
+
+    @Test
+    public void hedgeOnAnotherHostWithDefaultStrategy() throws ExecutionException, InterruptedException {
+        // the fallback host handler sends every first request to the slow server
+        final ArangoDBAsync fallback = slowServer.clientBuilder().host("127.0.0.1", fast.getPort())
+                .hedgedReads(true).build();
+        try {
+            for (int i = 0; i < 2 * RequestHedging.MIN_SAMPLES; i++) {
+                fallback.db().collection("c").getDocument("k", BaseDocument.class).get();
+            }
+            slow.set(true);
+            final long fastRequests = fast.getRequestCount();
+            for (int i = 0; i < 6; i++) {
+                final long start = System.nanoTime();
+                final BaseDocument document = fallback.db().collection("c").getDocument("k", BaseDocument.class)
+                        .get();
+                assertThat(document.getKey(), is("k"));
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        is(lessThan(MAX_HEDGED_MILLIS)));
+            }
+            assertThat(fast.getRequestCount() - fastRequests, is(6L));
+        } finally {
+            fallback.shutdown();
+        }
+    }
+
+    @Test
+    public void releaseCursorOfLosingQuery() throws ExecutionException, InterruptedException {
+        for (int i = 0; i < 2 * RequestHedging.MIN_SAMPLES; i++) {
+            arangoDB.db().query("FOR i IN 0..9 RETURN i", null, new AqlQueryOptions().batchSize(10), Integer.class)
+                    .get();
+        }
+        slow.set(true);
+        for (int i = 0; i < 4; i++) {
+            final long start = System.nanoTime();
+            final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                    .query("FOR i IN 0..9 RETURN i", null, new AqlQueryOptions().batchSize(2), Integer.class).get();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(MAX_HEDGED_MILLIS)));
+            // the following batches are read from the host of the winning query
+            final List<Integer> results = new ArrayList<>();
+            cursor.forEachAsync(results::add).get();
+            assertThat(results, contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((fast.getOpenCursors() > 0 || slowServer.getOpenCursors() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(fast.getOpenCursors(), is(0));
+        assertThat(slowServer.getOpenCursors(), is(0));
+    }
+
+}
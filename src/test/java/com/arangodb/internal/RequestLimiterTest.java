@@ -0,0 +1,199 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestLimiterTest {
+
+    @Test
+    public void limitInFlight() throws ExecutionException, InterruptedException {
+        final AtomicInteger total = new AtomicInteger();
+        final List<Integer> depths = new ArrayList<>();
+        final RequestLimiter limiter = new RequestLimiter(2, 10, OverflowPolicy.REJECT, 0L, Runnable::run,
+                null, total, depths::add);
+        final List<CompletableFuture<Integer>> requests = new ArrayList<>();
+        final List<CompletableFuture<Integer>> results = new ArrayList<>();
+        final List<Integer> started = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int n = i;
+            final CompletableFuture<Integer> request = new CompletableFuture<>();
+            requests.add(request);
+            results.add(limiter.execute(() -> {
+                started.add(n);
+                return request;
+            }));
+        }
+        assertThat(started, contains(0, 1));
+        assertThat(limiter.getInFlight(), is(2));
+        assertThat(limiter.getQueued(), is(3));
+        assertThat(total.get(), is(3));
+
+        requests.get(1).complete(1);
+        assertThat(started, contains(0, 1, 2));
+        requests.get(0).complete(0);
+        requests.get(2).complete(2);
+        assertThat(started, contains(0, 1, 2, 3, 4));
+        requests.get(3).complete(3);
+        requests.get(4).completeExceptionally(new ArangoDBException("failed"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(results.get(i).get(), is(i));
+        }
+        assertThat(results.get(4).isCompletedExceptionally(), is(true));
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getQueued(), is(0));
+        assertThat(total.get(), is(0));
+        assertThat(depths, contains(1, 2, 3, 2, 1, 0));
+    }
+
+    @Test
+    public void reject() throws InterruptedException {
+        final RequestLimiter limiter = new RequestLimiter(1, 1, OverflowPolicy.REJECT, 0L, Runnable::run,
+                null, null, null);
+        limiter.execute(CompletableFuture::new);
+        limiter.execute(CompletableFuture::new);
+        try {
+            limiter.execute(CompletableFuture::new).get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+        assertThat(limiter.getQueued(), is(1));
+    }
+
+    @Test
+    public void delay() throws InterruptedException, ExecutionException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10L, TimeUnit.MILLISECONDS, 64);
+        try {
+            final RequestLimiter limiter = new RequestLimiter(1, 1, OverflowPolicy.DELAY, 100L, Runnable::run, timer,
+                    null, null);
+            final CompletableFuture<Void> first = new CompletableFuture<>();
+            limiter.execute(() -> first);
+            limiter.execute(() -> CompletableFuture.completedFuture(null));
+            final CompletableFuture<Void> delayed = limiter.execute(() -> CompletableFuture.completedFuture(null));
+            assertThat(delayed.isDone(), is(false));
+            assertThat(limiter.getQueued(), is(1));
+            first.complete(null);
+            delayed.get();
+
+            limiter.execute(CompletableFuture::new);
+            limiter.execute(CompletableFuture::new);
+            final long start = System.nanoTime();
+            final CompletableFuture<Void> expired = limiter.execute(CompletableFuture::new);
+            assertThat(expired.isDone(), is(false));
+            try {
+                expired.get();
+                fail();
+            } catch (final ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+                assertThat(System.nanoTime() - start, is(greaterThanOrEqualTo(100_000_000L)));
+            }
+            assertThat(limiter.getQueued(), is(1));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void startQueuedOnExecutor() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final RequestLimiter limiter = new RequestLimiter(1, 10, OverflowPolicy.REJECT, 0L, tasks::add, null, null,
+                null);
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        limiter.execute(() -> first);
+        final AtomicInteger started = new AtomicInteger();
+        final CompletableFuture<Integer> result = limiter.execute(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(1);
+        });
+        first.complete(null);
+        assertThat(started.get(), is(0));
+        assertThat(tasks.size(), is(1));
+        assertThat(limiter.getInFlight(), is(1));
+        tasks.get(0).run();
+        assertThat(result.join(), is(1));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void cancelQueued() {
+        final RequestLimiter limiter = new RequestLimiter(1, 10, OverflowPolicy.REJECT, 0L, Runnable::run,
+                null, null, null);
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        limiter.execute(() -> first);
+        final AtomicInteger started = new AtomicInteger();
+        limiter.execute(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }).cancel(false);
+        first.complete(null);
+        assertThat(started.get(), is(0));
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getQueued(), is(0));
+    }
+
+    @Test
+    public void failStarted() {
+        final RequestLimiter limiter = new RequestLimiter(1, 10, OverflowPolicy.REJECT, 0L, Runnable::run,
+                null, null, null);
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        limiter.execute(() -> first);
+        final CompletableFuture<Void> second = new CompletableFuture<>();
+        final CompletableFuture<Void> result = limiter.execute(() -> second);
+        first.complete(null);
+        assertThat(limiter.getInFlight(), is(1));
+        result.completeExceptionally(new ArangoDBException("timeout"));
+        assertThat(second.isCompletedExceptionally(), is(true));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void synchronousCompletion() {
+        final RequestLimiter limiter = new RequestLimiter(1, 100_000, OverflowPolicy.REJECT, 0L, Runnable::run,
+                null, null, null);
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        limiter.execute(() -> first);
+        final List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            final int n = i;
+            results.add(limiter.execute(() -> CompletableFuture.completedFuture(n)));
+        }
+        first.complete(null);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).join(), is(i));
+        }
+    }
+
+}
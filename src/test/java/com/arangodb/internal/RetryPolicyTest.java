@@ -0,0 +1,236 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.entity.ErrorEntity;
+import com.arangodb.entity.LoadBalancingStrategy;
+import com.arangodb.internal.velocystream.LoopbackVstServer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocypack.VPack;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+
+    private static Request request(final RequestType type, final String path, final Object body) {
+        final Request request = new Request("_system", type, path);
+        if (body != null) {
+            request.setBody(LoopbackVstServer.toSlice(body));
+        }
+        return request;
+    }
+
+    private static Map<String, Object> document(final String key) {
+        final Map<String, Object> document = new HashMap<>();
+        document.put("value", 1);
+        if (key != null) {
+            document.put("_key", key);
+        }
+        return document;
+    }
+
+    @Test
+    public void classifyIdempotentRequests() {
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.GET, "/_api/version", null)), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.PUT, "/_api/document/c/k", document(null))), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.DELETE, "/_api/document/c/k", null)), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/document/c", document("k"))), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/document/c",
+                Arrays.asList(document("a"), document("b")))), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/document/c",
+                Arrays.asList(document("a"), document(null)))), is(false));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/document/c", document(null))), is(false));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/document/c", document(null))
+                .putQueryParam("overwrite", true)), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/cursor",
+                Collections.singletonMap("query", "FOR d IN c RETURN d"))), is(true));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/cursor",
+                Collections.singletonMap("query", "FOR d IN c REMOVE d IN c"))), is(false));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.PUT, "/_api/cursor/1", null)), is(false));
+        assertThat(RetryPolicy.isIdempotent(request(RequestType.POST, "/_api/transaction", null)), is(false));
+    }
+
+    @Test
+    public void classifyTransientFailures() {
+        final Request read = request(RequestType.GET, "/_api/version", null);
+        final Request insert = request(RequestType.POST, "/_api/document/c", document(null));
+        final ArangoDBException reset = new ArangoDBException(new IOException("Connection reset"));
+        final ArangoDBException unavailable = new ArangoDBException("unavailable", 503);
+        final ArangoDBException conflict = new ArangoDBException(new VPack.Builder().build().<ErrorEntity> deserialize(
+                Reply.error(409, RetryPolicy.ERROR_CONFLICT, "conflict").getBody(), ErrorEntity.class));
+        assertThat(RetryPolicy.isTransient(read, reset), is(true));
+        assertThat(RetryPolicy.isTransient(insert, reset), is(false));
+        assertThat(RetryPolicy.isTransient(read, unavailable), is(true));
+        assertThat(RetryPolicy.isTransient(insert, unavailable), is(false));
+        assertThat(RetryPolicy.isTransient(read, new ArangoDBException("not found", 404)), is(false));
+        assertThat(RetryPolicy.isTransient(read, new ArangoDBException(new TimeoutException())), is(false));
+        assertThat(RetryPolicy.isTransient(insert, conflict), is(true));
+    }
+
+    @Test
+    public void decorrelatedJitter() {
+        final RetryPolicy policy = new RetryPolicy(3, 10, 100, 0.1);
+        long delay = 0;
+        for (int i = 0; i < 1000; i++) {
+            final long next = policy.nextDelay(delay);
+            assertThat(next, is(both(greaterThanOrEqualTo(10L)).and(lessThanOrEqualTo(Math.min(100L,
+                    Math.max(10L, delay * 3))))));
+            delay = next;
+        }
+    }
+
+    @Test
+    public void limitRetries() {
+        final RetryPolicy policy = new RetryPolicy(3, 10, 100, 0.5);
+        final Request read = request(RequestType.GET, "/_api/version", null);
+        final ArangoDBException unavailable = new ArangoDBException("unavailable", 503);
+        assertThat(policy.shouldRetry(read, unavailable, 0), is(false));
+        for (int i = 0; i < 10; i++) {
+            policy.requestStarted();
+        }
+        assertThat(policy.shouldRetry(read, unavailable, 3), is(false));
+        int retries = 0;
+        while (policy.shouldRetry(read, unavailable, 0)) {
+            retries++;
+        }
+        assertThat(retries, is(5));
+    }
+
+    @Test
+    public void retryOnAnotherHost() throws IOException, ExecutionException, InterruptedException {
+        try (LoopbackVstServer healthy = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+             LoopbackVstServer restarting = new LoopbackVstServer()
+                     .route(RequestType.GET, "/_api/version", request -> Reply.error(503, 503, "unavailable"))
+                     .start()) {
+            final ArangoDBAsync arangoDB = healthy.clientBuilder().host("127.0.0.1", restarting.getPort())
+                    .loadBalancingStrategy(LoadBalancingStrategy.ROUND_ROBIN).maxRetries(2).retryBudget(1.0)
+                    .retryBaseDelay(1).retryMaxDelay(5).build();
+            try {
+                for (int i = 0; i < 20; i++) {
+                    assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+                }
+                assertThat(restarting.getRequestCount(), is(greaterThan(0L)));
+                assertThat(healthy.getRequestCount(), is(20L));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void retryOnAnotherHostWithDefaultStrategy() throws IOException, ExecutionException, InterruptedException {
+        try (LoopbackVstServer healthy = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+             LoopbackVstServer restarting = new LoopbackVstServer()
+                     .route(RequestType.GET, "/_api/version", request -> Reply.error(503, 503, "unavailable"))
+                     .start()) {
+            // the fallback host handler keeps sending to the first host, a single retry has to go to the other one
+            final ArangoDBAsync arangoDB = restarting.clientBuilder().host("127.0.0.1", healthy.getPort())
+                    .maxRetries(1).retryBudget(1.0).retryBaseDelay(1).retryMaxDelay(5).build();
+            try {
+                for (int i = 0; i < 20; i++) {
+                    assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+                }
+                assertThat(restarting.getRequestCount(), is(20L));
+                assertThat(healthy.getRequestCount(), is(20L));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void scheduleOnCompletionExecutor() throws IOException, ExecutionException, InterruptedException {
+        final ExecutorService completionExecutor = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "completion"));
+        try (LoopbackVstServer server = new LoopbackVstServer().start()) {
+            final ArangoDBAsync arangoDB = server.clientBuilder().completionExecutor(completionExecutor).build();
+            try {
+                // retries, hedges, lingers and host list refreshes are scheduled like this
+                final CompletableFuture<String> thread = new CompletableFuture<>();
+                ((ArangoDBAsyncImpl) arangoDB).executor()
+                        .schedule(() -> thread.complete(Thread.currentThread().getName()), 1, TimeUnit.MILLISECONDS);
+                assertThat(thread.get(), is("completion"));
+            } finally {
+                arangoDB.shutdown();
+            }
+        } finally {
+            completionExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void retryConflictsOnly() throws IOException, ExecutionException, InterruptedException {
+        try (LoopbackVstServer server = new LoopbackVstServer().collection("c").start()) {
+            final ArangoDBAsync arangoDB = server.clientBuilder().maxRetries(2).retryBudget(1.0).retryBaseDelay(1)
+                    .retryMaxDelay(5).build();
+            try {
+                // warm up the budget of retries
+                arangoDB.db().collection("c").insertDocument(new BaseDocument()).get();
+                server.failNext(request -> request.getRequestType() == RequestType.POST, 1,
+                        Reply.error(409, RetryPolicy.ERROR_CONFLICT, "write-write conflict"));
+                arangoDB.db().collection("c").insertDocument(new BaseDocument()).get();
+                assertThat(server.documents("c").size(), is(2));
+
+                server.failNext(request -> request.getRequestType() == RequestType.POST, 1,
+                        Reply.error(503, 503, "unavailable"));
+                try {
+                    arangoDB.db().collection("c").insertDocument(new BaseDocument()).get();
+                    fail();
+                } catch (final ExecutionException e) {
+                    assertThat(((ArangoDBException) e.getCause()).getResponseCode(), is(503));
+                }
+                assertThat(server.documents("c").size(), is(2));
+
+                server.failNext(request -> request.getRequestType() == RequestType.POST, 1,
+                        Reply.error(503, 503, "unavailable"));
+                arangoDB.db().collection("c").insertDocument(new BaseDocument("k")).get();
+                assertThat(server.documents("c"), hasKey("k"));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+}
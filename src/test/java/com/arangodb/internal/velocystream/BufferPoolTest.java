@@ -0,0 +1,140 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoCollectionAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.model.AqlQueryOptions;
+import com.arangodb.velocypack.VPackSlice;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BufferPoolTest {
+
+    @Test
+    public void roundUpToSizeClass() {
+        final BufferPool pool = new BufferPool(1);
+        assertThat(pool.acquire(1).length, is(BufferPool.MIN_SIZE));
+        assertThat(pool.acquire(BufferPool.MIN_SIZE + 1).length, is(2 * BufferPool.MIN_SIZE));
+        assertThat(pool.acquire(BufferPool.MAX_SIZE).length, is(BufferPool.MAX_SIZE));
+        assertThat(pool.acquire(BufferPool.MAX_SIZE + 1).length, is(BufferPool.MAX_SIZE + 1));
+    }
+
+    @Test
+    public void reuseReleasedArrays() {
+        final BufferPool pool = new BufferPool(4);
+        final byte[] small = pool.acquire(100);
+        final byte[] large = pool.acquire(100_000);
+        pool.release(small);
+        pool.release(large);
+        assertThat(pool.acquire(BufferPool.MIN_SIZE), is(sameInstance(small)));
+        assertThat(pool.acquire(70_000), is(sameInstance(large)));
+        assertThat(pool.acquire(100), is(not(sameInstance(small))));
+    }
+
+    @Test
+    public void ignoreArraysNotFittingSizeClass() {
+        final BufferPool pool = new BufferPool(1);
+        final byte[] odd = new byte[BufferPool.MIN_SIZE + 1];
+        final byte[] huge = pool.acquire(BufferPool.MAX_SIZE + 1);
+        pool.release(odd);
+        pool.release(huge);
+        assertThat(pool.acquire(odd.length), is(not(sameInstance(odd))));
+        assertThat(pool.acquire(huge.length), is(not(sameInstance(huge))));
+    }
+
+    @Test
+    public void boundRetainedArrays() {
+        final BufferPool pool = new BufferPool(1);
+        final byte[] first = new byte[BufferPool.MAX_SIZE];
+        final byte[] second = new byte[BufferPool.MAX_SIZE];
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.acquire(BufferPool.MAX_SIZE), is(sameInstance(first)));
+        assertThat(pool.acquire(BufferPool.MAX_SIZE), is(not(sameInstance(second))));
+    }
+
+    @Test
+    public void blockingConnection() throws IOException, ExecutionException, InterruptedException {
+        readDocuments(false);
+    }
+
+    @Test
+    public void nioConnection() throws IOException, ExecutionException, InterruptedException {
+        readDocuments(true);
+    }
+
+    /**
+     * Reads documents of different sizes, some of them spanning several chunks, through reused arrays. A document
+     * read as {@link VPackSlice} and the batches of a cursor refer to their responses and must not be overwritten by
+     * the following responses.
+     */
+    private static void readDocuments(final boolean nio) throws IOException, ExecutionException,
+            InterruptedException {
+        final List<Integer> values = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        try (final LoopbackVstServer server = new LoopbackVstServer().chunksize(1000).collection("c")
+                .cursors(request -> values).start()) {
+            final ArangoDBAsync arangoDB = server.clientBuilder().pooledBuffers(true).useNio(nio).build();
+            try {
+                final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+                for (int i = 0; i < 20; i++) {
+                    final Map<String, Object> document = new HashMap<>();
+                    document.put("_key", String.valueOf(i));
+                    document.put("value", String.join("", Collections.nCopies(i * 150, String.valueOf(i % 10))));
+                    server.documents("c").put(String.valueOf(i), document);
+                }
+                final VPackSlice slice = collection.getDocument("7", VPackSlice.class).get();
+                final List<Integer> queried = arangoDB.db()
+                        .query("for i in 0..99 return i", null, new AqlQueryOptions().batchSize(10), Integer.class)
+                        .get().streamRemaining().collect(Collectors.toList());
+                assertThat(queried, is(values));
+                for (int round = 0; round < 3; round++) {
+                    for (int i = 0; i < 20; i++) {
+                        final BaseDocument document = collection.getDocument(String.valueOf(i), BaseDocument.class)
+                                .get();
+                        assertThat(document.getKey(), is(String.valueOf(i)));
+                        assertThat(((String) document.getAttribute("value")).length(), is(i * 150));
+                    }
+                }
+                final List<BaseDocument> inserted = Collections.singletonList(new BaseDocument("new"));
+                assertThat(collection.insertDocuments(inserted).get().getDocuments(), hasSize(1));
+                assertThat(slice.get("_key").getAsString(), is("7"));
+                assertThat(slice.get("value").getAsString(), is(String.join("", Collections.nCopies(1050, "7"))));
+            } finally {
+                arangoDB.shutdown();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.internal.ArangoContext;
+import com.arangodb.internal.ArangoDBAsyncImpl;
+import com.arangodb.internal.net.ConnectionPoolImpl;
+import com.arangodb.internal.net.FallbackHostHandler;
+import com.arangodb.internal.net.Host;
+import com.arangodb.internal.net.HostDescription;
+import com.arangodb.internal.net.HostHandler;
+import com.arangodb.internal.net.HostImpl;
+import com.arangodb.internal.net.HostResolver;
+import com.arangodb.internal.net.SimpleHostResolver;
+import com.arangodb.internal.util.ArangoDeserializerImpl;
+import com.arangodb.internal.util.ArangoSerializationFactory;
+import com.arangodb.internal.util.ArangoSerializerImpl;
+import com.arangodb.internal.util.DefaultArangoSerialization;
+import com.arangodb.internal.velocypack.VPackDriverModule;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Handler;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.internal.velocystream.internal.Chunk;
+import com.arangodb.internal.velocystream.internal.Message;
+import com.arangodb.internal.velocystream.internal.MessageStore;
+import com.arangodb.util.ArangoSerialization;
+import com.arangodb.velocypack.VPack;
+import com.arangodb.velocypack.VPackParser;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Connection answering every request in the calling thread, without any socket involved. It is meant to measure the
+ * CPU and allocation cost of the driver itself: building messages and chunks, dispatching, decoding responses and
+ * deserializing results. The chunks handed to {@link #write(Message, Collection)} are not serialized to bytes.
+ * <p>
+ * Requests are answered either with a fixed {@link Reply}, encoded once, or by a {@link Handler} as used by
+ * {@link LoopbackVstServer}:
+ *
+ * <pre>
+ * ArangoDBAsync arangoDB = InMemoryVstConnection.client(request -&gt; Reply.ok(Collections.singletonMap("a", 1)));
+ * </pre>
+ */
+public class InMemoryVstConnection extends VstConnectionAsync {
+
+    private static final HostDescription HOST = new HostDescription("in-memory", 8529);
+
+    private final Function<Message, byte[]> responder;
+
+    private InMemoryVstConnection(final Function<Message, byte[]> responder) {
+        super(HOST, null, null, false, null, new MessageStore(), new WriteStatisticsCollector(), false, null);
+        this.responder = responder;
+    }
+
+    /**
+     * @param handler handler of the requests, receives the same requests a {@link LoopbackVstServer} would
+     */
+    public InMemoryVstConnection(final Handler handler) {
+        this(dispatching(handler));
+    }
+
+    private static Function<Message, byte[]> dispatching(final Handler handler) {
+        return message -> {
+            Reply reply;
+            try {
+                reply = handler.handle(LoopbackVstServer.toRequest(message.getHead(), message.getBody()));
+            } catch (final Exception e) {
+                reply = Reply.error(500, 4, String.valueOf(e.getMessage()));
+            }
+            return reply.toMessage();
+        };
+    }
+
+    /**
+     * @param reply reply to every request
+     */
+    public static InMemoryVstConnection replying(final Reply reply) {
+        final byte[] response = reply.toMessage();
+        final Function<Message, byte[]> responder = message -> response;
+        return new InMemoryVstConnection(responder);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public synchronized void open() {
+    }
+
+    @Override
+    public synchronized void close() {
+    }
+
+    @Override
+    public CompletableFuture<Message> write(final Message message, final Collection<Chunk> chunks) {
+        final VstMessageFuture future = new VstMessageFuture();
+        try {
+            future.complete(new Message(message.getId(), responder.apply(message)));
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return host handler with a single host, whose only connection is the given one
+     */
+    public static HostHandler hostHandler(final InMemoryVstConnection connection) {
+        return new FallbackHostHandler(hostResolver(connection));
+    }
+
+    private static HostResolver hostResolver(final InMemoryVstConnection connection) {
+        final Host host = new HostImpl(new ConnectionPoolImpl(HOST, 1, description -> connection), HOST);
+        return new SimpleHostResolver(Collections.singletonList(host));
+    }
+
+    /**
+     * @return serialization configured like the default one of {@link ArangoDBAsync.Builder}
+     */
+    public static ArangoSerializationFactory serialization() {
+        final VPack.Builder vpackBuilder = new VPack.Builder().registerModule(new VPackDriverModule());
+        final VPack vpacker = vpackBuilder.serializeNullValues(false).build();
+        final VPack vpackerNull = vpackBuilder.serializeNullValues(true).build();
+        final VPackParser vpackParser = new VPackParser.Builder().registerModule(new VPackDriverModule()).build();
+        final ArangoSerialization internal = new DefaultArangoSerialization(
+                new ArangoSerializerImpl(vpacker, vpackerNull, vpackParser),
+                new ArangoDeserializerImpl(vpackerNull, vpackParser));
+        return new ArangoSerializationFactory(internal, internal);
+    }
+
+    /**
+     * @return client whose requests are answered by the given handler, completing the returned futures in the
+     * calling thread
+     */
+    public static ArangoDBAsync client(final Handler handler) {
+        return client(new InMemoryVstConnection(handler));
+    }
+
+    /**
+     * @return client whose only connection is the given one, completing the returned futures in the calling thread
+     */
+    public static ArangoDBAsync client(final InMemoryVstConnection connection) {
+        final HostResolver hostResolver = hostResolver(connection);
+        final HostHandler hostHandler = new FallbackHostHandler(hostResolver);
+        return new ArangoDBAsyncImpl(new VstCommunicationAsync.Builder(hostHandler), serialization(),
+                hostResolver, new ArangoContext(), Runnable::run, new WriteStatisticsCollector(), null, 0, null, null);
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.internal.velocystream.LoopbackVstServer.Handler;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Emulation of the cursor API: creates a cursor over the results computed for every query and serves them in batches
+ * of the requested size.
+ */
+class LoopbackCursorApi implements Handler {
+
+    static final String PATH = "/_api/cursor";
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int ERROR_CURSOR_NOT_FOUND = 1600;
+
+    private static final class Cursor {
+        private final List<?> results;
+        private final int batchSize;
+        private int position;
+
+        private Cursor(final List<?> results, final int batchSize) {
+            this.results = results;
+            this.batchSize = batchSize;
+        }
+    }
+
+    private final Function<Request, List<?>> query;
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    LoopbackCursorApi(final Function<Request, List<?>> query) {
+        this.query = query;
+    }
+
+    int getOpenCursors() {
+        return cursors.size();
+    }
+
+    @Override
+    public Reply handle(final Request request) {
+        final String path = request.getRequest();
+        final String id = path.length() > PATH.length() ? path.substring(PATH.length() + 1) : null;
+        if (request.getRequestType() == RequestType.POST && id == null) {
+            return create(request);
+        }
+        final Cursor cursor = id != null ? cursors.get(id) : null;
+        if (cursor == null) {
+            return Reply.error(404, ERROR_CURSOR_NOT_FOUND, "cursor not found");
+        }
+        if (request.getRequestType() == RequestType.DELETE) {
+            cursors.remove(id);
+            final Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", id);
+            body.put("error", false);
+            body.put("code", 202);
+            return Reply.of(202, body);
+        }
+        if (request.getRequestType() == RequestType.PUT || request.getRequestType() == RequestType.POST) {
+            return Reply.ok(batch(id, cursor, null));
+        }
+        return Reply.error(405, 405, "method not supported");
+    }
+
+    private Reply create(final Request request) {
+        final VPackSlice body = request.getBody();
+        final VPackSlice batchSize = body != null ? body.get("batchSize") : null;
+        final List<?> results = query.apply(request);
+        final Cursor cursor = new Cursor(results,
+                batchSize != null && batchSize.isInteger() ? Math.max(1, batchSize.getAsInt()) : DEFAULT_BATCH_SIZE);
+        final String id = String.valueOf(ids.incrementAndGet());
+        cursors.put(id, cursor);
+        final VPackSlice count = body != null ? body.get("count") : null;
+        return Reply.of(201, batch(id, cursor, count != null && count.isBoolean() && count.getAsBoolean()
+                ? results.size() : null));
+    }
+
+    private Map<String, Object> batch(final String id, final Cursor cursor, final Integer count) {
+        final Map<String, Object> batch = new LinkedHashMap<>();
+        final boolean hasMore;
+        synchronized (cursor) {
+            final int end = Math.min(cursor.position + cursor.batchSize, cursor.results.size());
+            batch.put("result", cursor.results.subList(cursor.position, end));
+            cursor.position = end;
+            hasMore = end < cursor.results.size();
+        }
+        if (hasMore) {
+            batch.put("id", id);
+        } else {
+            cursors.remove(id);
+        }
+        batch.put("hasMore", hasMore);
+        if (count != null) {
+            batch.put("count", count);
+        }
+        batch.put("cached", false);
+        batch.put("error", false);
+        batch.put("code", 200);
+        return batch;
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.internal.velocystream.LoopbackVstServer.Handler;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocypack.VPack;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emulation of the single and multi document API of a collection, keeping the documents in memory. Supports
+ * <code>returnNew</code>, <code>returnOld</code> and <code>keepNull</code>, other options are ignored.
+ */
+class LoopbackDocumentApi implements Handler {
+
+    private static final VPack VPACK = new VPack.Builder().build();
+
+    private static final int ERROR_DOCUMENT_NOT_FOUND = 1202;
+    private static final int ERROR_UNIQUE_CONSTRAINT_VIOLATED = 1210;
+    private static final int ERROR_DOCUMENT_KEY_MISSING = 1221;
+
+    private static final class Failure extends Exception {
+        private final int responseCode;
+        private final int errorNum;
+
+        private Failure(final int responseCode, final int errorNum, final String message) {
+            super(message, null, false, false);
+            this.responseCode = responseCode;
+            this.errorNum = errorNum;
+        }
+    }
+
+    private final String collection;
+    private final String path;
+    private final Map<String, Map<String, Object>> documents = new ConcurrentHashMap<>();
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLong revisions = new AtomicLong();
+
+    LoopbackDocumentApi(final String collection) {
+        this.collection = collection;
+        this.path = "/_api/document/" + collection;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    Map<String, Map<String, Object>> getDocuments() {
+        return documents;
+    }
+
+    @Override
+    public Reply handle(final Request request) {
+        final String requestPath = request.getRequest();
+        final String key = requestPath.length() > path.length() ? requestPath.substring(path.length() + 1) : null;
+        final RequestType type = request.getRequestType();
+        final boolean read = type == RequestType.GET || type == RequestType.HEAD
+                || (type == RequestType.PUT && "true".equals(request.getQueryParam().get("onlyget")));
+        final VPackSlice body = request.getBody();
+        if (key == null && body != null && body.isArray()) {
+            final List<Object> results = new ArrayList<>();
+            for (final Iterator<VPackSlice> it = body.arrayIterator(); it.hasNext(); ) {
+                final VPackSlice value = it.next();
+                final String k = value.isString() ? value.getAsString() : keyOf(value);
+                try {
+                    results.add(apply(request, read, k, value));
+                } catch (final Failure e) {
+                    final Map<String, Object> error = new LinkedHashMap<>();
+                    error.put("error", true);
+                    error.put("errorNum", e.errorNum);
+                    error.put("errorMessage", e.getMessage());
+                    results.add(error);
+                }
+            }
+            return Reply.of(read ? 200 : 202, results);
+        }
+        try {
+            return Reply.of(read ? 200 : 202, apply(request, read, key != null ? key : keyOf(body), body));
+        } catch (final Failure e) {
+            return Reply.error(e.responseCode, e.errorNum, e.getMessage());
+        }
+    }
+
+    private static String keyOf(final VPackSlice value) {
+        final VPackSlice key = value != null && value.isObject() ? value.get("_key") : null;
+        return key != null && key.isString() ? key.getAsString() : null;
+    }
+
+    private Map<String, Object> apply(final Request request, final boolean read, final String key,
+                                      final VPackSlice value) throws Failure {
+        if (read) {
+            return get(key);
+        }
+        final Map<String, String> options = request.getQueryParam();
+        switch (request.getRequestType()) {
+            case POST:
+                return insert(key, value, options);
+            case PUT:
+                return modify(key, value, options, false);
+            case PATCH:
+                return modify(key, value, options, true);
+            case DELETE:
+                return remove(key, options);
+            default:
+                throw new Failure(405, 405, "method not supported");
+        }
+    }
+
+    private Map<String, Object> get(final String key) throws Failure {
+        final Map<String, Object> document = key != null ? documents.get(key) : null;
+        if (document == null) {
+            throw new Failure(404, ERROR_DOCUMENT_NOT_FOUND, "document not found");
+        }
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> insert(final String key, final VPackSlice value, final Map<String, String> options)
+            throws Failure {
+        final Map<String, Object> document = new LinkedHashMap<>(VPACK.deserialize(value, Map.class));
+        final String k = key != null ? key : String.valueOf(keys.incrementAndGet());
+        identify(document, k);
+        if (documents.putIfAbsent(k, document) != null) {
+            throw new Failure(409, ERROR_UNIQUE_CONSTRAINT_VIOLATED, "unique constraint violated");
+        }
+        final Map<String, Object> result = meta(document);
+        if ("true".equals(options.get("returnNew"))) {
+            result.put("new", document);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> modify(final String key, final VPackSlice value, final Map<String, String> options,
+                                       final boolean merge) throws Failure {
+        if (key == null) {
+            throw new Failure(400, ERROR_DOCUMENT_KEY_MISSING, "document key missing");
+        }
+        final Map<String, Object> changes = VPACK.deserialize(value, Map.class);
+        final Map<String, Object> document;
+        final Map<String, Object> old;
+        synchronized (documents) {
+            old = get(key);
+            document = new LinkedHashMap<>(merge ? old : changes);
+            if (merge) {
+                document.putAll(changes);
+                if ("false".equals(options.get("keepNull"))) {
+                    document.values().removeIf(v -> v == null);
+                }
+            }
+            identify(document, key);
+            documents.put(key, document);
+        }
+        final Map<String, Object> result = meta(document);
+        result.put("_oldRev", old.get("_rev"));
+        if ("true".equals(options.get("returnNew"))) {
+            result.put("new", document);
+        }
+        if ("true".equals(options.get("returnOld"))) {
+            result.put("old", old);
+        }
+        return result;
+    }
+
+    private Map<String, Object> remove(final String key, final Map<String, String> options) throws Failure {
+        final Map<String, Object> old = key != null ? documents.remove(key) : null;
+        if (old == null) {
+            throw new Failure(404, ERROR_DOCUMENT_NOT_FOUND, "document not found");
+        }
+        final Map<String, Object> result = meta(old);
+        if ("true".equals(options.get("returnOld"))) {
+            result.put("old", old);
+        }
+        return result;
+    }
+
+    private void identify(final Map<String, Object> document, final String key) {
+        document.put("_key", key);
+        document.put("_id", collection + "/" + key);
+        document.put("_rev", String.valueOf(revisions.incrementAndGet()));
+    }
+
+    private static Map<String, Object> meta(final Map<String, Object> document) {
+        final Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("_id", document.get("_id"));
+        meta.put("_key", document.get("_key"));
+        meta.put("_rev", document.get("_rev"));
+        return meta;
+    }
+
+}
@@ -0,0 +1,497 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.velocypack.*;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.net.ssl.SSLContext;
+
+/**
+ * In-process stand-in for an ArangoDB server speaking VelocyStream on the loopback interface.
+ * <p>
+ * It implements the chunk framing and the authentication handshake expected by {@link VstCommunicationAsync} and
+ * answers every request from a list of scriptable routes, optionally after an injected latency. Responses of
+ * different requests may overtake each other like on a real server.
+ *
+ * <pre>
+ * LoopbackVstServer server = new LoopbackVstServer()
+ *         .route(RequestType.GET, "/_api/document/", request -&gt; Reply.ok(document))
+ *         .latency(() -&gt; 2_000L)
+ *         .start();
+ * ArangoDBAsync arangoDB = server.clientBuilder().build();
+ * </pre>
+ * <p>
+ * The cursor API and the document API of a collection can be emulated with {@link #cursors(Function)} and
+ * {@link #collection(String)}, faults can be scripted with {@link #failNext(Predicate, int, Reply)} and
+ * {@link Reply#dropConnection()}.
+ */
+public class LoopbackVstServer implements Closeable {
+
+    private static final byte[] PROTOCOL_HEADER = "VST/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int AUTHENTICATION_TYPE = 1000;
+    private static final VPack VPACK = new VPack.Builder().build();
+
+    /**
+     * Produces the reply for a request, may throw to answer with an internal server error.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Reply handle(Request request) throws Exception;
+    }
+
+    /**
+     * Response of the server, either a regular result or an ArangoDB error.
+     */
+    public static final class Reply {
+
+        private static final Reply DROP_CONNECTION = new Reply(0, null, Collections.emptyMap());
+
+        private final int responseCode;
+        private final VPackSlice body;
+        private final Map<String, String> meta;
+
+        private Reply(final int responseCode, final VPackSlice body, final Map<String, String> meta) {
+            this.responseCode = responseCode;
+            this.body = body;
+            this.meta = meta;
+        }
+
+        public static Reply of(final int responseCode, final Object body) {
+            return new Reply(responseCode, body != null ? toSlice(body) : null, Collections.emptyMap());
+        }
+
+        public static Reply ok(final Object body) {
+            return of(200, body);
+        }
+
+        public static Reply error(final int responseCode, final int errorNum, final String errorMessage) {
+            final Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", true);
+            body.put("code", responseCode);
+            body.put("errorNum", errorNum);
+            body.put("errorMessage", errorMessage);
+            return of(responseCode, body);
+        }
+
+        /**
+         * @return reply closing the connection instead of answering, failing all its pending requests
+         */
+        public static Reply dropConnection() {
+            return DROP_CONNECTION;
+        }
+
+        public Reply meta(final String key, final String value) {
+            final Map<String, String> m = new HashMap<>(meta);
+            m.put(key, value);
+            return new Reply(responseCode, body, m);
+        }
+
+        public int getResponseCode() {
+            return responseCode;
+        }
+
+        public VPackSlice getBody() {
+            return body;
+        }
+
+        /**
+         * @return head and body of the response message, as found in the chunks sent by the server
+         */
+        byte[] toMessage() {
+            final VPackBuilder builder = new VPackBuilder().add(ValueType.ARRAY).add(1).add(2).add(responseCode)
+                    .add(ValueType.OBJECT);
+            for (final Map.Entry<String, String> entry : meta.entrySet()) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+            final VPackSlice head = builder.close().close().slice();
+            final int headSize = head.getByteSize();
+            final int bodySize = body != null ? body.getByteSize() : 0;
+            final byte[] message = new byte[headSize + bodySize];
+            System.arraycopy(head.getBuffer(), head.getStart(), message, 0, headSize);
+            if (body != null) {
+                System.arraycopy(body.getBuffer(), body.getStart(), message, headSize, bodySize);
+            }
+            return message;
+        }
+    }
+
+    private static final class Route {
+        private final Predicate<Request> matcher;
+        private final Handler handler;
+
+        private Route(final Predicate<Request> matcher, final Handler handler) {
+            this.matcher = matcher;
+            this.handler = handler;
+        }
+    }
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final ServerSocket serverSocket;
+    private volatile Supplier<Long> latency = () -> 0L;
+    private volatile int chunksize = 30000;
+    private volatile String user;
+    private volatile String password;
+    private volatile LoopbackCursorApi cursorApi;
+    private final Map<String, LoopbackDocumentApi> collections = new ConcurrentHashMap<>();
+
+    public LoopbackVstServer() throws IOException {
+        this(null);
+    }
+
+    /**
+     * @param sslContext if not null, the server only accepts SSL connections
+     */
+    public LoopbackVstServer(final SSLContext sslContext) throws IOException {
+        serverSocket = sslContext != null
+                ? sslContext.getServerSocketFactory().createServerSocket(0, 128, InetAddress.getLoopbackAddress())
+                : new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        scheduler = Executors.newScheduledThreadPool(2, daemonThreads("loopback-vst-latency"));
+        workers = Executors.newCachedThreadPool(daemonThreads("loopback-vst"));
+        route(RequestType.GET, "/_api/version", request -> Reply.ok(version()));
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Map<String, Object> version() {
+        final Map<String, Object> version = new LinkedHashMap<>();
+        version.put("server", "arango");
+        version.put("version", "3.6.0");
+        version.put("license", "community");
+        return version;
+    }
+
+    public static VPackSlice toSlice(final Object value) {
+        return value instanceof VPackSlice ? (VPackSlice) value : VPACK.serialize(value);
+    }
+
+    /**
+     * Adds a route, routes added later take precedence over earlier ones.
+     */
+    public LoopbackVstServer route(final Predicate<Request> matcher, final Handler handler) {
+        routes.add(0, new Route(matcher, handler));
+        return this;
+    }
+
+    /**
+     * Adds a route for all requests of the given type whose path starts with the given prefix.
+     */
+    public LoopbackVstServer route(final RequestType type, final String pathPrefix, final Handler handler) {
+        return route(request -> request.getRequestType() == type && request.getRequest().startsWith(pathPrefix),
+                handler);
+    }
+
+    /**
+     * Answers the next <code>count</code> matching requests with the given error, afterwards the request is handled
+     * by the other routes again.
+     */
+    public LoopbackVstServer failNext(final Predicate<Request> matcher, final int count, final Reply error) {
+        final AtomicLong remaining = new AtomicLong(count);
+        return route(request -> matcher.test(request) && remaining.getAndDecrement() > 0, request -> error);
+    }
+
+    /**
+     * Emulates the cursor API, the results of every created cursor are computed by the given function and served in
+     * batches of the requested size.
+     */
+    public LoopbackVstServer cursors(final Function<Request, List<?>> query) {
+        final LoopbackCursorApi api = new LoopbackCursorApi(query);
+        cursorApi = api;
+        return route(request -> request.getRequest().startsWith(LoopbackCursorApi.PATH), api);
+    }
+
+    /**
+     * @return number of cursors created through {@link #cursors(Function)} which are neither exhausted nor deleted
+     */
+    public int getOpenCursors() {
+        final LoopbackCursorApi api = cursorApi;
+        return api != null ? api.getOpenCursors() : 0;
+    }
+
+    /**
+     * Emulates the document API of the given collection, keeping its documents in memory.
+     */
+    public LoopbackVstServer collection(final String name) {
+        final LoopbackDocumentApi api = new LoopbackDocumentApi(name);
+        collections.put(name, api);
+        return route(request -> request.getRequest().equals(api.getPath())
+                || request.getRequest().startsWith(api.getPath() + "/"), api);
+    }
+
+    /**
+     * @return the live documents of a collection emulated through {@link #collection(String)}, by key
+     */
+    public Map<String, Map<String, Object>> documents(final String collection) {
+        return collections.get(collection).getDocuments();
+    }
+
+    /**
+     * Delay in microseconds applied to every response, evaluated once per request.
+     */
+    public LoopbackVstServer latency(final Supplier<Long> latencyMicros) {
+        this.latency = latencyMicros;
+        return this;
+    }
+
+    public LoopbackVstServer chunksize(final int chunksize) {
+        this.chunksize = chunksize;
+        return this;
+    }
+
+    /**
+     * Requires the authentication handshake with the given credentials.
+     */
+    public LoopbackVstServer credentials(final String user, final String password) {
+        this.user = user;
+        this.password = password;
+        return this;
+    }
+
+    public LoopbackVstServer start() {
+        workers.execute(this::accept);
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return a builder of a driver instance connected to this server
+     */
+    public ArangoDBAsync.Builder clientBuilder() {
+        return new ArangoDBAsync.Builder() {
+            {
+                // ignore the hosts of arangodb.properties
+                hosts.clear();
+            }
+        }
+                .host(serverSocket.getInetAddress().getHostAddress(), getPort())
+                .user(user != null ? user : "root")
+                .password(password);
+    }
+
+    /**
+     * Closes all client connections, the server keeps accepting new ones.
+     */
+    public void dropConnections() {
+        for (final Socket client : clients) {
+            try {
+                client.close();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket client = serverSocket.accept();
+                client.setTcpNoDelay(true);
+                clients.add(client);
+                connections.incrementAndGet();
+                workers.execute(() -> serve(client));
+            } catch (final IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(final Socket client) {
+        try (final Socket socket = client) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            final byte[] header = new byte[PROTOCOL_HEADER.length];
+            in.readFully(header);
+            if (!Arrays.equals(header, PROTOCOL_HEADER)) {
+                return;
+            }
+            final Map<Long, ByteBuffer> pending = new HashMap<>();
+            final boolean[] authenticated = {user == null};
+            while (true) {
+                final ByteBuffer chunkHead = read(in, 16);
+                final int length = chunkHead.getInt();
+                final int chunkX = chunkHead.getInt();
+                final long messageId = chunkHead.getLong();
+                final boolean first = (chunkX & 1) == 1;
+                final int numberOfChunks = chunkX >> 1;
+                final long messageLength = first && numberOfChunks > 1 ? read(in, 8).getLong() : -1L;
+                final int contentLength = length - (messageLength > -1 ? 24 : 16);
+                ByteBuffer message = pending.get(messageId);
+                if (message == null) {
+                    message = ByteBuffer.allocate((int) (messageLength > -1 ? messageLength : contentLength));
+                    pending.put(messageId, message);
+                }
+                in.readFully(message.array(), message.position(), contentLength);
+                message.position(message.position() + contentLength);
+                if (message.hasRemaining()) {
+                    continue;
+                }
+                pending.remove(messageId);
+                handle(messageId, message.array(), authenticated, socket, out);
+            }
+        } catch (final EOFException | SocketException e) {
+            // client disconnected
+        } catch (final IOException e) {
+            e.printStackTrace();
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private static ByteBuffer read(final DataInputStream in, final int length) throws IOException {
+        final byte[] buf = new byte[length];
+        in.readFully(buf);
+        return ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void handle(final long messageId, final byte[] message, final boolean[] authenticated,
+                        final Socket socket, final OutputStream out) {
+        final VPackSlice head = new VPackSlice(message);
+        final int headSize = head.getByteSize();
+        final VPackSlice body = message.length > headSize ? new VPackSlice(message, headSize) : null;
+        Reply reply;
+        if (head.get(1).getAsInt() == AUTHENTICATION_TYPE) {
+            final boolean valid = user == null
+                    || (user.equals(head.get(3).getAsString()) && Objects.equals(password == null ? "" : password,
+                    head.get(4).getAsString()));
+            authenticated[0] = valid;
+            reply = valid ? Reply.of(200, null) : Reply.error(401, 11, "not authorized to execute this request");
+        } else if (!authenticated[0]) {
+            reply = Reply.error(401, 11, "not authorized to execute this request");
+        } else {
+            requests.incrementAndGet();
+            reply = dispatch(toRequest(head, body));
+        }
+        final long delay = latency.get();
+        if (delay > 0) {
+            final Reply delayed = reply;
+            scheduler.schedule(() -> send(socket, out, messageId, delayed), delay, TimeUnit.MICROSECONDS);
+        } else {
+            send(socket, out, messageId, reply);
+        }
+    }
+
+    static Request toRequest(final VPackSlice head, final VPackSlice body) {
+        final Request request = new Request(head.get(2).getAsString(),
+                RequestType.fromType(head.get(3).getAsInt()), head.get(4).getAsString());
+        for (final Iterator<Map.Entry<String, VPackSlice>> it = head.get(5).objectIterator(); it.hasNext(); ) {
+            final Map.Entry<String, VPackSlice> param = it.next();
+            request.putQueryParam(param.getKey(), param.getValue().getAsString());
+        }
+        for (final Iterator<Map.Entry<String, VPackSlice>> it = head.get(6).objectIterator(); it.hasNext(); ) {
+            final Map.Entry<String, VPackSlice> param = it.next();
+            request.putHeaderParam(param.getKey(), param.getValue().getAsString());
+        }
+        return request.setBody(body);
+    }
+
+    private Reply dispatch(final Request request) {
+        for (final Route route : routes) {
+            if (route.matcher.test(request)) {
+                try {
+                    return route.handler.handle(request);
+                } catch (final Exception e) {
+                    return Reply.error(500, 4, String.valueOf(e.getMessage()));
+                }
+            }
+        }
+        return Reply.error(404, 404, "unknown path '" + request.getRequest() + "'");
+    }
+
+    private void send(final Socket socket, final OutputStream out, final long messageId, final Reply reply) {
+        if (reply == Reply.DROP_CONNECTION) {
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+            }
+            return;
+        }
+        final byte[] message = reply.toMessage();
+        final int size = this.chunksize;
+        final int numberOfChunks = (message.length + size - 1) / size;
+        try {
+            synchronized (out) {
+                for (int i = 0, off = 0; off < message.length; i++, off += size) {
+                    final int len = Math.min(size, message.length - off);
+                    final boolean withLength = i == 0 && numberOfChunks > 1;
+                    final ByteBuffer chunkHead = ByteBuffer.allocate(withLength ? 24 : 16)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    chunkHead.putInt(len + chunkHead.capacity());
+                    chunkHead.putInt(numberOfChunks == 1 ? 3 : (i == 0 ? (numberOfChunks << 1) + 1 : i << 1));
+                    chunkHead.putLong(messageId);
+                    if (withLength) {
+                        chunkHead.putLong(message.length);
+                    }
+                    out.write(chunkHead.array());
+                    out.write(message, off, len);
+                }
+                out.flush();
+            }
+        } catch (final IOException e) {
+            // client disconnected
+        }
+    }
+
+}
@@ -0,0 +1,406 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoCollectionAsync;
+import com.arangodb.ArangoCursorAsync;
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.ArangoDBException;
+import com.arangodb.BatchingDocumentWriter;
+import com.arangodb.entity.ArangoDBVersion;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.entity.MultiDocumentEntity;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.model.AqlQueryOptions;
+import com.arangodb.model.BatchingDocumentWriterOptions;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocystream.RequestType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class LoopbackVstServerTest {
+
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+
+    @After
+    public void teardown() throws IOException {
+        if (arangoDB != null) {
+            arangoDB.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    public void concurrentRequests() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().latency(() -> 500L).start();
+        arangoDB = server.clientBuilder().maxConnections(4).build();
+        final List<CompletableFuture<ArangoDBVersion>> versions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            versions.add(arangoDB.getVersion());
+        }
+        for (final CompletableFuture<ArangoDBVersion> version : versions) {
+            assertThat(version.get().getVersion(), is("3.6.0"));
+        }
+        assertThat(server.getRequestCount(), is(2000L));
+        assertThat(server.getConnectionCount(), is(lessThanOrEqualTo(4L)));
+    }
+
+    @Test
+    public void chunks() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().chunksize(100).collection("c").start();
+        arangoDB = server.clientBuilder().chunksize(100).build();
+        final BaseDocument doc = new BaseDocument("big");
+        doc.addAttribute("value", String.join("", Collections.nCopies(1000, "x")));
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        collection.insertDocument(doc).get();
+        final BaseDocument read = collection.getDocument("big", BaseDocument.class).get();
+        assertThat(read.getAttribute("value"), is(doc.getAttribute("value")));
+        assertThat(server.documents("c").get("big").get("value"), is(doc.getAttribute("value")));
+    }
+
+    @Test
+    public void largeResponsesNio() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().collection("c").start();
+        arangoDB = server.clientBuilder().useNio(true).maxConnections(1).build();
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final BaseDocument doc = new BaseDocument(String.valueOf(i));
+            final String value = String.join("", Collections.nCopies(1_000_000 + i * 77_777, String.valueOf(i)));
+            doc.addAttribute("value", value);
+            server.documents("c").put(doc.getKey(), doc.getProperties());
+            server.documents("c").get(doc.getKey()).put("_key", doc.getKey());
+            values.add(value);
+        }
+        final List<CompletableFuture<BaseDocument>> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reads.add(collection.getDocument(String.valueOf(i % 5), BaseDocument.class));
+            reads.add(collection.getDocument("missing", BaseDocument.class).exceptionally(e -> null));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThat(reads.get(2 * i).get().getAttribute("value"), is(values.get(i % 5)));
+            assertThat(reads.get(2 * i + 1).get(), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void lingerOutsideCallingThread() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().start();
+        arangoDB = server.clientBuilder().writeCoalescing(true)
+                .writeCoalescingLinger(TimeUnit.MILLISECONDS.toMicros(500)).build();
+        arangoDB.getVersion().get();
+        final long start = System.nanoTime();
+        final CompletableFuture<ArangoDBVersion> version = arangoDB.getVersion();
+        assertThat(System.nanoTime() - start, is(lessThan(TimeUnit.MILLISECONDS.toNanos(250))));
+        assertThat(version.get().getVersion(), is(notNullValue()));
+    }
+
+    @Test
+    public void authentication() throws IOException, InterruptedException {
+        server = new LoopbackVstServer().credentials("user", "secret").start();
+        arangoDB = server.clientBuilder().password("wrong").build();
+        try {
+            arangoDB.getVersion().get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+        assertThat(server.getRequestCount(), is(0L));
+    }
+
+    @Test
+    public void cursor() throws IOException, ExecutionException, InterruptedException {
+        final List<Integer> results = IntStream.range(0, 95).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> results).start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 0..94 return i", new AqlQueryOptions().batchSize(10).count(true), Integer.class)
+                .get();
+        assertThat(cursor.getCount(), is(95));
+        assertThat(cursor.streamRemaining().collect(Collectors.toList()), is(results));
+        assertThat(server.getOpenCursors(), is(0));
+    }
+
+    @Test
+    public void forEachAsyncBufferedBatches() throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        final List<Integer> results = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> results).start();
+        arangoDB = server.clientBuilder().cursorPrefetch(results.size()).build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 0..9999 return i", new AqlQueryOptions().batchSize(1), Integer.class).get();
+        final List<Integer> read = new ArrayList<>();
+        cursor.forEachAsync(e -> {
+            // every following batch is buffered once the first one has been consumed
+            while (read.isEmpty() && server.getOpenCursors() > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            read.add(e);
+        }).get(30, TimeUnit.SECONDS);
+        assertThat(read, is(results));
+    }
+
+    @Test
+    public void forEachAsyncWithPrefetchSlowConsumer() throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        final List<Integer> results = IntStream.range(0, 3000).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> results).start();
+        arangoDB = server.clientBuilder().cursorPrefetch(4).build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 0..2999 return i", new AqlQueryOptions().batchSize(1), Integer.class).get();
+        final List<Integer> read = new ArrayList<>();
+        cursor.forEachAsync(e -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            read.add(e);
+        }).get(60, TimeUnit.SECONDS);
+        assertThat(read, is(results));
+        assertThat(server.getOpenCursors(), is(0));
+    }
+
+    @Test
+    public void cursorClose() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().cursors(request -> Arrays.asList(1, 2, 3)).start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 1..3 return i", new AqlQueryOptions().batchSize(1), Integer.class).get();
+        assertThat(server.getOpenCursors(), is(1));
+        cursor.closeAsync().get();
+        assertThat(server.getOpenCursors(), is(0));
+    }
+
+    @Test
+    public void documents() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().collection("c").start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        final MultiDocumentEntity<DocumentCreateEntity<BaseDocument>> created = collection
+                .insertDocuments(Arrays.asList(new BaseDocument("1"), new BaseDocument("2"), new BaseDocument("1")))
+                .get();
+        assertThat(created.getDocuments().size(), is(2));
+        assertThat(created.getErrors().size(), is(1));
+        assertThat(created.getErrors().iterator().next().getErrorNum(), is(1210));
+
+        final BaseDocument update = new BaseDocument();
+        update.addAttribute("a", 1);
+        collection.updateDocument("1", update).get();
+        assertThat(collection.getDocument("1", BaseDocument.class).get().getAttribute("a"), is(1L));
+        assertThat(collection.getDocuments(Arrays.asList("1", "2", "3"), BaseDocument.class).get()
+                .getErrors().size(), is(1));
+
+        collection.deleteDocument("2").get();
+        assertThat(collection.getDocument("2", BaseDocument.class).get(), is(nullValue()));
+        assertThat(server.documents("c").keySet(), contains("1"));
+    }
+
+    @Test
+    public void readCoalescingInstancePerRead() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().collection("c").start();
+        arangoDB = server.clientBuilder().readCoalescing(true)
+                .readCoalescingWindow(TimeUnit.MILLISECONDS.toMicros(50)).build();
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        collection.insertDocument(new BaseDocument("1")).get();
+        final long requests = server.getRequestCount();
+
+        final CompletableFuture<BaseDocument> first = collection.getDocument("1", BaseDocument.class);
+        final CompletableFuture<BaseDocument> second = collection.getDocument("1", BaseDocument.class);
+        assertThat(first.get(), is(not(sameInstance(second.get()))));
+        assertThat(server.getRequestCount(), is(requests + 1));
+        first.get().addAttribute("a", "b");
+        assertThat(second.get().getProperties().containsKey("a"), is(false));
+    }
+
+    @Test
+    public void rawDocuments() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().collection("c").start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        final BaseDocument doc = new BaseDocument("1");
+        doc.addAttribute("a", "b");
+        collection.insertDocument(doc).get();
+
+        final VPackSlice read = collection.getDocumentRaw("1").get();
+        assertThat(read.get("_key").getAsString(), is("1"));
+        assertThat(read.get("a").getAsString(), is("b"));
+        assertThat(collection.getDocumentRaw("2").get(), is(nullValue()));
+
+        final VPackSlice reads = collection.getDocumentsRaw(Arrays.asList("2", "1")).get();
+        assertThat(reads.isArray(), is(true));
+        assertThat(reads.size(), is(2));
+        assertThat(reads.get(0).get("error").getAsBoolean(), is(true));
+        assertThat(reads.get(1).get("a").getAsString(), is("b"));
+    }
+
+    @Test
+    public void rawQuery() throws IOException, ExecutionException, InterruptedException {
+        final List<Integer> values = IntStream.range(0, 25).boxed().collect(Collectors.toList());
+        server = new LoopbackVstServer().cursors(request -> values).start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCursorAsync<VPackSlice> cursor = arangoDB.db()
+                .queryRaw("for i in 0..24 return i", null, new AqlQueryOptions().batchSize(10)).get();
+        final List<Integer> sizes = new ArrayList<>();
+        final List<Integer> read = new ArrayList<>();
+        cursor.forEachAsync(batch -> {
+            sizes.add(batch.size());
+            batch.arrayIterator().forEachRemaining(value -> read.add(value.getAsInt()));
+        }).get();
+        assertThat(sizes, contains(10, 10, 5));
+        assertThat(read, is(values));
+    }
+
+    @Test
+    public void deadlines() throws IOException, ExecutionException, InterruptedException {
+        final List<Integer> values = Arrays.asList(1, 2, 3);
+        final AtomicLong latency = new AtomicLong();
+        server = new LoopbackVstServer().latency(latency::get).collection("c").cursors(request -> values).start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCollectionAsync collection = arangoDB.db().collection("c");
+        collection.insertDocument(new BaseDocument("1")).get();
+        latency.set(TimeUnit.MILLISECONDS.toMicros(200));
+
+        assertTimedOut(collection.getDocument("1", BaseDocument.class, null, 50));
+        assertTimedOut(collection.getDocuments(Collections.singletonList("1"), BaseDocument.class, null, 50));
+        assertTimedOut(arangoDB.db().query("for i in 1..3 return i", null, null, Integer.class, 50));
+        assertThat(collection.getDocument("1", BaseDocument.class, null, 0).get().getKey(), is("1"));
+        // the callbacks of a timed out request do not run on the thread of the timer
+        final String thread = collection.getDocument("1", BaseDocument.class, null, 50)
+                .handle((document, e) -> Thread.currentThread().getName()).get();
+        assertThat(thread, not(startsWith("arangodb-request-timer")));
+
+        // the cursor of a query which timed out is closed once its first batch arrived
+        assertTimedOut(arangoDB.db().query("for i in 1..3 return i", null, new AqlQueryOptions().batchSize(1),
+                Integer.class, 50));
+        assertThat(server.getOpenCursors(), is(1));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getOpenCursors() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(server.getOpenCursors(), is(0));
+
+        final ArangoDBAsync coalescing = server.clientBuilder().readCoalescing(true).build();
+        try {
+            assertTimedOut(coalescing.db().collection("c").getDocument("1", BaseDocument.class, null, 50));
+        } finally {
+            coalescing.shutdown();
+        }
+    }
+
+    private static void assertTimedOut(final CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+            assertThat(e.getCause().getCause(), instanceOf(TimeoutException.class));
+        }
+    }
+
+    @Test
+    public void batchingWriter() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().latency(() -> 200L).collection("c").start();
+        arangoDB = server.clientBuilder().build();
+        final BatchingDocumentWriter<BaseDocument> writer = arangoDB.db().collection("c")
+                .batchingWriter(BaseDocument.class, new BatchingDocumentWriterOptions().maxBatchSize(100));
+        final List<CompletableFuture<?>> inserts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inserts.add(writer.insertDocument(new BaseDocument(String.valueOf(i))));
+        }
+        writer.close().get();
+        for (final CompletableFuture<?> insert : inserts) {
+            insert.get();
+        }
+        assertThat(server.documents("c").size(), is(1000));
+        assertThat(server.getRequestCount(), is(lessThanOrEqualTo(100L)));
+    }
+
+    @Test
+    public void failNext() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer()
+                .failNext(request -> request.getRequestType() == RequestType.GET, 1,
+                        Reply.error(503, 503, "service unavailable"))
+                .start();
+        arangoDB = server.clientBuilder().build();
+        try {
+            arangoDB.getVersion().get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+            assertThat(((ArangoDBException) e.getCause()).getErrorNum(), is(503));
+        }
+        assertThat(arangoDB.getVersion().get().getVersion(), is("3.6.0"));
+    }
+
+    @Test
+    public void dropConnection() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer()
+                .failNext(request -> request.getRequestType() == RequestType.GET, 1, Reply.dropConnection())
+                .start();
+        arangoDB = server.clientBuilder().build();
+        try {
+            arangoDB.getVersion().get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+        }
+        assertThat(arangoDB.getVersion().get().getVersion(), is("3.6.0"));
+        assertThat(server.getConnectionCount(), is(2L));
+    }
+
+    @Test
+    public void cursorStaysFailed() throws IOException, ExecutionException, InterruptedException {
+        server = new LoopbackVstServer().cursors(request -> Arrays.asList(1, 2, 3, 4, 5))
+                .failNext(request -> request.getRequestType() != RequestType.DELETE
+                        && request.getRequest().startsWith("/_api/cursor/"), 1, Reply.dropConnection())
+                .start();
+        arangoDB = server.clientBuilder().build();
+        final ArangoCursorAsync<Integer> cursor = arangoDB.db()
+                .query("for i in 1..5 return i", null, new AqlQueryOptions().batchSize(1), Integer.class).get();
+        assertThat(cursor.nextBatch().get(), contains(1));
+        // the server may have advanced the cursor, fetching the batch again could skip or repeat results
+        for (int i = 0; i < 2; i++) {
+            try {
+                cursor.nextBatch().get();
+                fail();
+            } catch (final ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(ArangoDBException.class));
+            }
+        }
+        assertThat(server.getRequestCount(), is(2L));
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoDBException;
+import com.arangodb.entity.BaseDocument;
+import com.arangodb.internal.net.HostHandle;
+import com.arangodb.internal.util.ArangoSerializationFactory.Serializer;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.internal.velocystream.internal.Chunk;
+import com.arangodb.util.ArangoSerialization;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link VstCommunicationAsync} turning a request into a message and its chunks, and of turning the response
+ * message into a {@link Response} or, for an error response, into an {@link ArangoDBException} carrying the
+ * deserialized {@link com.arangodb.entity.ErrorEntity}. The requests are answered by an {@link InMemoryVstConnection}.
+ * <p>
+ * It lives in this package to reach the protected methods of {@link VstCommunication}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VstCommunicationBenchmark {
+
+    @Param({"1", "100"})
+    private int documents;
+
+    @Param({"30000"})
+    private int chunksize;
+
+    private VstCommunicationAsync ok;
+    private VstCommunicationAsync error;
+    private Request request;
+
+    @Setup
+    public void setup() {
+        final ArangoSerialization util = InMemoryVstConnection.serialization().get(Serializer.INTERNAL);
+        final List<BaseDocument> docs = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            final BaseDocument doc = new BaseDocument("key" + i);
+            doc.addAttribute("name", "name" + i);
+            doc.addAttribute("value", i);
+            docs.add(doc);
+        }
+        ok = new VstCommunicationAsync.Builder(
+                InMemoryVstConnection.hostHandler(InMemoryVstConnection.replying(Reply.of(202, util.serialize(docs)))))
+                .chunksize(chunksize).build(util);
+        error = new VstCommunicationAsync.Builder(
+                InMemoryVstConnection.hostHandler(InMemoryVstConnection.replying(
+                        Reply.error(409, 1210, "unique constraint violated - in index primary of type primary"))))
+                .chunksize(chunksize).build(util);
+        request = new Request("_system", RequestType.POST, "/_api/document/benchmark")
+                .putQueryParam("returnNew", true).setBody(util.serialize(docs));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ok.close();
+        error.close();
+    }
+
+    @Benchmark
+    public Collection<Chunk> createMessage() {
+        return ok.buildChunks(ok.createMessage(request));
+    }
+
+    @Benchmark
+    public Response execute() {
+        return ok.execute(request, (HostHandle) null).join();
+    }
+
+    @Benchmark
+    public Throwable executeError() {
+        return error.execute(request, (HostHandle) null).handle((r, e) -> e).join();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VstCommunicationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.internal.net.Connection;
+import com.arangodb.internal.net.HostDescription;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class VstConnectionPoolTest {
+
+    private static VstConnectionPool pool(final int maxConnections) {
+        return new VstConnectionPool(new HostDescription("127.0.0.1", 8529), maxConnections,
+                new VstConnectionFactoryAsync(new VstConnectionAsync.Builder()));
+    }
+
+    @Test
+    public void createUpToMaxConnections() throws IOException {
+        final VstConnectionPool pool = pool(3);
+        final Set<Connection> created = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            created.add(pool.connection());
+        }
+        assertThat(created.size(), is(3));
+        for (int i = 0; i < 100; i++) {
+            assertThat(created, hasItem(pool.connection()));
+        }
+        pool.close();
+    }
+
+    @Test
+    public void avoidLoadedConnection() throws IOException {
+        final VstConnectionPool pool = pool(3);
+        final VstConnectionAsync loaded = (VstConnectionAsync) pool.connection();
+        pool.connection();
+        pool.connection();
+        loaded.outstanding().set(5);
+        final Set<Connection> selected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            selected.add(pool.connection());
+        }
+        assertThat(selected, not(hasItem(loaded)));
+        assertThat(selected.size(), is(2));
+        pool.close();
+    }
+
+    @Test
+    public void reopenAfterClose() throws IOException {
+        final VstConnectionPool pool = pool(1);
+        final Connection connection = pool.connection();
+        assertThat(pool.connection(), is(sameInstance(connection)));
+        pool.close();
+        assertThat(pool.connection(), is(not(sameInstance(connection))));
+        pool.close();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2020 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.internal.velocystream;
+
+import com.arangodb.ArangoDBAsync;
+import com.arangodb.internal.velocystream.LoopbackVstServer.Reply;
+import com.arangodb.velocystream.Request;
+import com.arangodb.velocystream.RequestType;
+import com.arangodb.velocystream.Response;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Parameterized.class)
+public class VstHandshakeTest {
+
+    private static final long AUTHENTICATION_LATENCY = TimeUnit.MILLISECONDS.toMicros(300);
+
+    @Parameterized.Parameters(name = "useNio={0}")
+    public static Collection<Boolean> useNio() {
+        return Arrays.asList(false, true);
+    }
+
+    private final boolean useNio;
+    private LoopbackVstServer server;
+    private ArangoDBAsync arangoDB;
+
+    public VstHandshakeTest(final boolean useNio) {
+        this.useNio = useNio;
+    }
+
+    @After
+    public void teardown() throws IOException {
+        if (arangoDB != null) {
+            arangoDB.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void requestsWaitForHandshake() throws IOException, ExecutionException, InterruptedException {
+        final Queue<String> received = new ConcurrentLinkedQueue<>();
+        server = new LoopbackVstServer().credentials("user", "secret")
+                .route(RequestType.GET, "/_api/order/", request -> {
+                    received.add(request.getRequest());
+                    return Reply.ok(Collections.emptyMap());
+                })
+                .latency(() -> AUTHENTICATION_LATENCY)
+                .start();
+        arangoDB = server.clientBuilder().useNio(useNio).build();
+
+        final long start = System.nanoTime();
+        final List<CompletableFuture<Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            responses.add(arangoDB.execute(new Request("_system", RequestType.GET, "/_api/order/" + i)));
+        }
+        // the calling thread does not wait for the authentication
+        assertThat(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), is(lessThan(AUTHENTICATION_LATENCY)));
+        for (final CompletableFuture<Response> response : responses) {
+            assertThat(response.get().getResponseCode(), is(200));
+        }
+        assertThat(new ArrayList<>(received), is(IntStream.range(0, 100).mapToObj(i -> "/_api/order/" + i)
+                .collect(Collectors.toList())));
+        assertThat(server.getConnectionCount(), is(1L));
+    }
+
+    @Test
+    public void failover() throws IOException, ExecutionException, InterruptedException {
+        final int unreachable;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            unreachable = socket.getLocalPort();
+        }
+        server = new LoopbackVstServer()
+                .route(RequestType.GET, "/_api/version", request -> Reply.ok(Collections.singletonMap("version", "3.7")))
+                .start();
+        arangoDB = new ArangoDBAsync.Builder() {
+            {
+                hosts.clear();
+            }
+        }
+                .host("127.0.0.1", unreachable)
+                .host("127.0.0.1", server.getPort())
+                .useNio(useNio)
+                .build();
+        assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+        assertThat(arangoDB.getVersion().get().getVersion(), is("3.7"));
+        assertThat(server.getConnectionCount(), is(1L));
+    }
+
+}